@@ -0,0 +1,62 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Application context without the web layer on the in-memory H2 database, seeded with {@link #rows} users whose ids
+ * run from 1 to rows. Shared by all threads of a benchmark.
+ */
+@State(Scope.Benchmark)
+public class BackendState {
+
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    @Param("10000")
+    public int rows;
+
+    ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN")
+                .run();
+
+        final JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        final List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+
+        for (int i = 1; i <= rows; i++) {
+            batch.add(new Object[]{(long) i, "user" + i, "First" + i, "Last" + i});
+            if (batch.size() == INSERT_BATCH_SIZE || i == rows) {
+                jdbcTemplate.batchUpdate("insert into users (id, user_name, first_name, last_name) values (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares one createUser call per row with createUsers batches of 1,000 on an in-memory H2 table, in rows per
+ * second. Starts a context of its own, as the seeded ids of {@link BackendState} would collide with generated ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserRepository userRepository;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void start() {
+
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN")
+                .run();
+
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void createUser() {
+        users().forEach(userService::createUser);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public UserBatchResultDTO createUsers() {
+        return userService.createUsers(users());
+    }
+
+    private List<UserCreateDTO> users() {
+
+        final List<UserCreateDTO> users = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final long n = sequence++;
+            users.add(UserCreateDTO.builder()
+                    .userName("user" + n)
+                    .firstName("First" + n)
+                    .lastName("Last" + n)
+                    .build());
+        }
+        return users;
+
+    }
+
+}
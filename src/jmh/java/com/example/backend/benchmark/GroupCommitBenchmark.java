@@ -0,0 +1,95 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.UserGroupCommitter;
+import com.example.backend.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent single-user creation with one transaction per call against the group commit queue, the way
+ * {@code POST /api/v1/user} uses either path. Commit cost only shows on a durable database, e.g.
+ * {@code -jvmArgsAppend -Dspring.datasource.url=jdbc:h2:file:./target/group-commit-benchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+public class GroupCommitBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserGroupCommitter userGroupCommitter;
+    private UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void start() {
+
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN")
+                .run("--backend.user-group-commit.enabled=true");
+
+        userService = context.getBean(UserService.class);
+        userGroupCommitter = context.getBean(UserGroupCommitter.class);
+        userRepository = context.getBean(UserRepository.class);
+
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserViewDTO createUserSingle() {
+        return userService.createUser(nextUser());
+    }
+
+    @Benchmark
+    public UserViewDTO createUserGrouped() {
+        return userGroupCommitter.createUser(nextUser());
+    }
+
+    private UserCreateDTO nextUser() {
+
+        final long i = sequence.incrementAndGet();
+        return UserCreateDTO.builder()
+                .userName("user" + i)
+                .firstName("First" + i)
+                .lastName("Last" + i)
+                .build();
+
+    }
+
+}
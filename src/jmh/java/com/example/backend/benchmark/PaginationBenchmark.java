@@ -0,0 +1,64 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.UserCursorPageDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.service.UserService;
+import com.example.backend.shared.UserCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deep-page latency of the offset based slice against the keyset based sliceAfter, at a relative depth into the
+ * seeded table of {@link BackendState}. {@code -p rows=10000000} reproduces the 10M row numbers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaginationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"0", "0.01", "0.5", "0.99"})
+    public double depth;
+
+    private UserService userService;
+    private int pageNumber;
+    private String cursor;
+
+    @Setup
+    public void setUp(BackendState backend) {
+
+        userService = backend.getBean(UserService.class);
+        pageNumber = (int) (backend.rows * depth) / PAGE_SIZE;
+        // seeded ids start at 1, so the row before page p has id p * size
+        cursor = UserCursor.encode((long) pageNumber * PAGE_SIZE);
+
+    }
+
+    @Benchmark
+    public List<UserViewDTO> offset() {
+        return userService.slice(PageRequest.of(pageNumber, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public UserCursorPageDTO keyset() {
+        return userService.sliceAfter(cursor, PAGE_SIZE);
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.UserViewDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bytes on the wire for a {@code List<UserViewDTO>} in every negotiable format, uncompressed, gzip (what Tomcat's
+ * response compression sends) and deflate, reported as the {@code bytes}, {@code gzip} and {@code deflate} counters.
+ * JMH sums event counters over the measured iterations, so there is a single one; its time to serialize and compress
+ * both ways is only indicative, CPU per format is measured properly by {@link UserViewSerializationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 1)
+@Fork(1)
+public class PayloadSizeBenchmark {
+
+    @Param({"1000", "100000"})
+    public int items;
+
+    @Param({"json", "xml", "cbor", "smile"})
+    public String format;
+
+    private List<UserViewDTO> users;
+    private ObjectMapper mapper;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sizes {
+
+        public long bytes;
+        public long gzip;
+        public long deflate;
+
+    }
+
+    @Setup
+    public void setUp() {
+
+        users = new ArrayList<>(items);
+        for (long i = 1; i <= items; i++) {
+            users.add(new UserViewDTO(i, "First" + i, "Last" + i));
+        }
+
+        switch (format) {
+            case "xml":
+                mapper = Jackson2ObjectMapperBuilder.xml().build();
+                break;
+            case "cbor":
+                mapper = Jackson2ObjectMapperBuilder.cbor().build();
+                break;
+            case "smile":
+                mapper = Jackson2ObjectMapperBuilder.smile().build();
+                break;
+            default:
+                mapper = Jackson2ObjectMapperBuilder.json().build();
+        }
+
+    }
+
+    @Benchmark
+    public byte[] serializeAndCompress(Sizes sizes) throws IOException {
+
+        final byte[] bytes = mapper.writeValueAsBytes(users);
+
+        final ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(bytes);
+        }
+
+        final ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+        try (OutputStream deflate = new DeflaterOutputStream(deflated, new Deflater(Deflater.DEFAULT_COMPRESSION))) {
+            deflate.write(bytes);
+        }
+
+        sizes.bytes = bytes.length;
+        sizes.gzip = gzipped.size();
+        sizes.deflate = deflated.size();
+        return bytes;
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares loading a page as managed {@code User} entities and mapping them with {@link UserViewDTO#of} against the
+ * constructor-expression projection the service uses, on the seeded table of {@link BackendState}. Run with
+ * {@code -prof gc} for the bytes allocated per page.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int pageSize;
+
+    private UserRepository userRepository;
+    private TransactionTemplate readOnly;
+    private PageRequest page;
+
+    @Setup
+    public void setUp(BackendState backend) {
+
+        userRepository = backend.getBean(UserRepository.class);
+        readOnly = new TransactionTemplate(backend.getBean(TransactionTemplate.class).getTransactionManager());
+        readOnly.setReadOnly(true);
+        page = PageRequest.of(0, pageSize);
+
+    }
+
+    @Benchmark
+    public List<UserViewDTO> entities() {
+        return readOnly.execute(status ->
+                userRepository.findAll(page).stream().map(UserViewDTO::of).collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<UserViewDTO> views() {
+        return readOnly.execute(status -> userRepository.findViews(page));
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.UserSearchPageDTO;
+import com.example.backend.model.User;
+import com.example.backend.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@code UserService#searchUsers} for every supported filter and sort combination, against the
+ * file-backed {@code file} profile so that 10M rows ({@code -p rows=10000000}) fit a default heap. Rows get one of
+ * 1000 first names and one of 2000 last names, so an equality filter matches 10000 and 5000 rows at 10M. A LIKE on
+ * lower(last_name), which no index can serve, is measured next to them as the unindexed baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final int SEED_CHUNK = 100_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int FIRST_NAMES = 1_000;
+    private static final int LAST_NAMES = 2_000;
+
+    private static final Path DIRECTORY = Paths.get("target", "search-benchmark");
+
+    @Param("100000")
+    public long rows;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+
+        FileSystemUtils.deleteRecursively(DIRECTORY);
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("file")
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN")
+                .run("--backend.storage.directory=" + DIRECTORY.toAbsolutePath());
+
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        userService = context.getBean(UserService.class);
+        seed(context.getBean(TransactionTemplate.class));
+
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserSearchPageDTO lastNameSortFirstName() {
+        return userService.searchUsers(null, lastName(), null, page("firstName"));
+    }
+
+    @Benchmark
+    public UserSearchPageDTO firstNameSortLastName() {
+        return userService.searchUsers(firstName(), null, null, page("lastName"));
+    }
+
+    @Benchmark
+    public UserSearchPageDTO lastNameAndFirstNameSortId() {
+        return userService.searchUsers(firstName(), lastName(), null, page("id"));
+    }
+
+    @Benchmark
+    public UserSearchPageDTO userNamePrefixSortUserName() {
+        return userService.searchUsers(null, null, "user" + ThreadLocalRandom.current().nextLong(rows / 100 + 1), page("userName"));
+    }
+
+    @Benchmark
+    public UserSearchPageDTO noFilterSortLastNameFirstName() {
+        return userService.searchUsers(null, null, null, page("lastName", "firstName"));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> baselineUnindexedLike() {
+        return jdbcTemplate.queryForList(
+                "select id, first_name, last_name from users where lower(last_name) like ? order by first_name, id limit ?",
+                lastName().toLowerCase() + "%", PAGE_SIZE);
+    }
+
+    private static Pageable page(String... sort) {
+        return PageRequest.of(ThreadLocalRandom.current().nextInt(10), PAGE_SIZE, Sort.by(sort));
+    }
+
+    private static String firstName() {
+        return "First" + ThreadLocalRandom.current().nextInt(FIRST_NAMES);
+    }
+
+    private static String lastName() {
+        return "Last" + ThreadLocalRandom.current().nextInt(LAST_NAMES);
+    }
+
+    /**
+     * One INSERT ... SELECT over H2's SYSTEM_RANGE per chunk, one transaction each, with the secondary indexes
+     * created afterwards under the names declared on {@link User}. The sequence is moved past the explicit ids so
+     * later inserts do not collide.
+     */
+    private void seed(TransactionTemplate transactionTemplate) {
+
+        // Filling the table first and sorting each index once is much faster than maintaining them row by row.
+        jdbcTemplate.execute("drop index " + User.LAST_NAME_INDEX);
+        jdbcTemplate.execute("drop index " + User.FIRST_NAME_INDEX);
+
+        for (long from = 1; from <= rows; from += SEED_CHUNK) {
+            final long first = from;
+            final long last = Math.min(rows, from + SEED_CHUNK - 1);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                    "insert into users (id, user_name, first_name, last_name, version) "
+                            + "select x, 'user' || x, 'First' || mod(x * 7, " + FIRST_NAMES + "), "
+                            + "'Last' || mod(x * 13, " + LAST_NAMES + "), 0 from system_range(?, ?)", first, last));
+        }
+
+        jdbcTemplate.execute("create index " + User.LAST_NAME_INDEX + " on users (last_name, first_name, id)");
+        jdbcTemplate.execute("create index " + User.FIRST_NAME_INDEX + " on users (first_name, last_name, id)");
+        jdbcTemplate.execute("analyze");
+        // The pooled optimizer hands out the allocation block below the value it reads.
+        jdbcTemplate.execute("alter sequence users_seq restart with " + (rows + User.ID_ALLOCATION_SIZE + 1));
+
+    }
+
+}
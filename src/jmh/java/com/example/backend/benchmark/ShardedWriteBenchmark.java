@@ -0,0 +1,115 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent batched user creation through {@code UserService} with 1, 2 and 4 shards, each a database of its own, in
+ * rows per second; the speedup is the rate over the one-shard rate. Writes to different shards share no lock, so the
+ * rate should grow close to linearly with the shards as long as there are cores (or disks, with
+ * {@code -p storage=file}) for them. On a single CPU the shards compete for the same core and only the lock
+ * contention one database adds is saved, so expect a modest gain there, not a linear one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class ShardedWriteBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final Path DIRECTORY = Paths.get("target", "sharded-write-benchmark");
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    @Param("mem")
+    public String storage;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+
+        FileSystemUtils.deleteRecursively(DIRECTORY);
+        final boolean file = "file".equals(storage);
+
+        final List<String> arguments = new ArrayList<>();
+        arguments.add("--backend.sharding.enabled=true");
+        arguments.add("--spring.jpa.open-in-view=false");
+        if (file) {
+            // Hibernate only creates the schema of in-memory databases by default.
+            arguments.add("--spring.jpa.hibernate.ddl-auto=create");
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            arguments.add("--backend.sharding.urls[" + shard + "]=" + (file
+                    ? "jdbc:h2:file:" + DIRECTORY.toAbsolutePath().resolve("shard_" + shard) + ";WRITE_DELAY=0"
+                    : "jdbc:h2:mem:sharded_write_" + shard));
+        }
+
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN")
+                .run(arguments.toArray(new String[0]));
+        userService = context.getBean(UserService.class);
+
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public UserBatchResultDTO createUsers() {
+
+        final long from = sequence.getAndAdd(BATCH_SIZE);
+        final List<UserCreateDTO> users = new ArrayList<>(BATCH_SIZE);
+        for (long i = from; i < from + BATCH_SIZE; i++) {
+            users.add(UserCreateDTO.builder()
+                    .userName("user" + i)
+                    .firstName("First" + i)
+                    .lastName("Last" + i)
+                    .build());
+        }
+        return userService.createUsers(users);
+
+    }
+
+}
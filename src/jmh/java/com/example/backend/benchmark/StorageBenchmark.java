@@ -0,0 +1,154 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserUpdateDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.model.User;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same {@code UserRepository} workload against the default in-memory H2 database and the file-backed
+ * {@code file} profile: point reads by id and user name, keyset pages, single-row updates and batched inserts.
+ * {@code -p rows=10000000} measures a large table; 10M rows in memory need a heap of about 6 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int INSERT_BATCH_SIZE = 1_000;
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private static final Path DIRECTORY = Paths.get("target", "storage-benchmark");
+
+    @Param({"mem", "file"})
+    public String storage;
+
+    @Param("100000")
+    public long rows;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private UserService userService;
+    private long inserted;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+
+        FileSystemUtils.deleteRecursively(DIRECTORY);
+        final SpringApplicationBuilder builder = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.devtools.restart.enabled=false", "logging.level.root=WARN");
+        if ("file".equals(storage)) {
+            builder.profiles("file");
+        }
+        context = builder.run("--backend.storage.directory=" + DIRECTORY.toAbsolutePath());
+
+        userRepository = context.getBean(UserRepository.class);
+        userService = context.getBean(UserService.class);
+        seed(context.getBean(JdbcTemplate.class), context.getBean(TransactionTemplate.class));
+
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<UserViewDTO> findViewById() {
+        return userRepository.findViewById(randomId());
+    }
+
+    @Benchmark
+    public boolean existsUserByUserName() {
+        return userRepository.existsUserByUserName("user" + randomId());
+    }
+
+    @Benchmark
+    public List<UserViewDTO> findViewsAfter() {
+        return userRepository.findViewsAfter(randomId() - 1, PageRequest.of(0, 100));
+    }
+
+    @Benchmark
+    public UserViewDTO updateUser() {
+        final long n = ThreadLocalRandom.current().nextLong();
+        return userService.updateUser(randomId(), UserUpdateDTO.builder().firstName("F" + n).lastName("L" + n).build());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSERT_BATCH_SIZE)
+    public UserBatchResultDTO createUsers() {
+
+        final List<UserCreateDTO> users = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < INSERT_BATCH_SIZE; i++) {
+            final long n = inserted++;
+            users.add(UserCreateDTO.builder().userName("new" + n).firstName("First" + n).lastName("Last" + n).build());
+        }
+        return userService.createUsers(users);
+
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    /**
+     * Plain JDBC batches with explicit ids, one transaction per batch; the sequence is moved past them so later
+     * inserts do not collide.
+     */
+    private void seed(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+
+        final List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+
+        for (long i = 1; i <= rows; i++) {
+            batch.add(new Object[]{i, "user" + i, "First" + i, "Last" + i});
+            if (batch.size() == SEED_BATCH_SIZE || i == rows) {
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate("insert into users (id, user_name, first_name, last_name) values (?, ?, ?, ?)", batch));
+                batch.clear();
+            }
+        }
+
+        // The pooled optimizer hands out the allocation block below the value it reads.
+        jdbcTemplate.execute("alter sequence users_seq restart with " + (rows + User.ID_ALLOCATION_SIZE + 1));
+
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.service.UserSuggestField;
+import com.example.backend.shared.PrefixIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build time, top-10 search latency and incremental update latency of the {@link PrefixIndex} behind
+ * {@code GET /api/v1/user/suggest}, for three values per user. Updates compact the way {@code UserSuggestIndex} does:
+ * a snapshot is taken in the update, which is all a search waits for behind the write lock, and merged outside it
+ * after the invocation; {@link #compact()} times that merge on its own. Sample mode reports p50, p99 and max; the fork
+ * runs on a fixed heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SuggestBenchmark {
+
+    private static final int LIMIT = 10;
+
+    private static final String[] FIRST_NAMES = {"Ahmet", "Ayse", "Mehmet", "Fatma", "Mustafa", "Emine", "Ali", "Zeynep",
+            "Hasan", "Elif", "Huseyin", "Hatice", "Ibrahim", "Merve", "Ismail", "Esra", "Osman", "Zehra", "Yusuf", "Selin"};
+    private static final String[] LAST_NAMES = {"Yilmaz", "Kaya", "Demir", "Sahin", "Celik", "Yildiz", "Yildirim",
+            "Ozturk", "Aydin", "Ozdemir", "Arslan", "Dogan", "Kilic", "Aslan", "Cetin", "Kara", "Koc", "Kurt", "Ozkan"};
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    private final Random random = new Random(42);
+    private final String[] prefixes = new String[1024];
+
+    private List<PrefixIndex.Value> values;
+    private PrefixIndex index;
+    private PrefixIndex.Snapshot snapshot;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void build() {
+
+        values = new ArrayList<>(users * 3);
+        for (long id = 1; id <= users; id++) {
+            values.add(new PrefixIndex.Value(id, UserSuggestField.USER_NAME.ordinal(), "user" + Long.toString(id * 7919, 36)));
+            values.add(new PrefixIndex.Value(id, UserSuggestField.FIRST_NAME.ordinal(), pick(FIRST_NAMES) + id % 1000));
+            values.add(new PrefixIndex.Value(id, UserSuggestField.LAST_NAME.ordinal(), pick(LAST_NAMES) + id % 997));
+        }
+        index = PrefixIndex.of(values);
+        index.setAutoCompaction(false);
+
+        for (int i = 0; i < prefixes.length; i++) {
+            final String name = random.nextBoolean() ? pick(FIRST_NAMES) : pick(LAST_NAMES);
+            prefixes[i] = name.substring(0, 1 + random.nextInt(Math.min(4, name.length())));
+        }
+
+    }
+
+    @TearDown(Level.Invocation)
+    public void compactPending() {
+        if (snapshot != null) {
+            index = snapshot.compact();
+            snapshot = null;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public PrefixIndex buildIndex() {
+        return PrefixIndex.of(values);
+    }
+
+    @Benchmark
+    public List<PrefixIndex.Match> search() {
+        return index.search(prefixes[next++ & prefixes.length - 1], LIMIT);
+    }
+
+    @Benchmark
+    public PrefixIndex.Snapshot put() {
+        index.put(1 + random.nextInt(users), UserSuggestField.FIRST_NAME.ordinal(), pick(FIRST_NAMES) + next++);
+        snapshot = index.needsCompaction() ? index.snapshot() : null;
+        return snapshot;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PrefixIndex compact() {
+        return index.snapshot().compact();
+    }
+
+    private String pick(String[] names) {
+        return names[random.nextInt(names.length)];
+    }
+
+}
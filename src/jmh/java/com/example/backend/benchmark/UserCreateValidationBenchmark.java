@@ -0,0 +1,57 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.validator.UniqueUserName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.groups.Default;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates like {@code POST /api/v1/user}: the default group plus the {@link UniqueUserName} check. A new name is
+ * answered by the username Bloom filter, a taken one goes to the database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserCreateValidationBenchmark {
+
+    private Validator validator;
+    private UserCreateDTO newUser;
+    private UserCreateDTO existingUser;
+
+    @Setup
+    public void setUp(BackendState backend) {
+
+        validator = backend.getBean(Validator.class);
+        newUser = UserCreateDTO.builder().userName("newuser").firstName("First").lastName("Last").build();
+        existingUser = UserCreateDTO.builder().userName("user1").firstName("First").lastName("Last").build();
+
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserCreateDTO>> newUserName() {
+        return validator.validate(newUser, Default.class, UniqueUserName.Check.class);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserCreateDTO>> existingUserName() {
+        return validator.validate(existingUser, Default.class, UniqueUserName.Check.class);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.UserCursorPageDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.service.UserService;
+import com.example.backend.shared.UserCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserService} read paths against the seeded H2 table of {@link BackendState}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private UserService userService;
+    private int rows;
+    private String middleCursor;
+
+    @Setup
+    public void setUp(BackendState backend) {
+
+        userService = backend.getBean(UserService.class);
+        rows = backend.rows;
+        middleCursor = UserCursor.encode((long) rows / 2);
+
+    }
+
+    @Benchmark
+    public UserViewDTO getUserById() {
+        return userService.getUserById(ThreadLocalRandom.current().nextLong(1, rows + 1));
+    }
+
+    @Benchmark
+    public List<UserViewDTO> sliceMiddlePage() {
+        return userService.slice(PageRequest.of(rows / 2 / PAGE_SIZE, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public UserCursorPageDTO sliceAfterMiddleCursor() {
+        return userService.sliceAfter(middleCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public boolean isUsernameExists() {
+        return userService.isUsernameExists("user" + ThreadLocalRandom.current().nextInt(1, rows * 2));
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserViewMappingBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User("samiogun", "Sami Ogün", "ERSUN");
+        user.setId(1L);
+    }
+
+    @Benchmark
+    public UserViewDTO of() {
+        return UserViewDTO.of(user);
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.UserViewDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializes a page of views with mappers configured like the ones Spring MVC uses for JSON, XML, CBOR and Smile
+ * responses, and JSON and CBOR once more through gzip as with response compression. Bytes on the wire are reported
+ * by {@link PayloadSizeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserViewSerializationBenchmark {
+
+    @Param({"20", "1000", "100000"})
+    public int size;
+
+    private List<UserViewDTO> users;
+    private ObjectMapper jsonMapper;
+    private XmlMapper xmlMapper;
+    private ObjectMapper cborMapper;
+    private ObjectMapper smileMapper;
+
+    @Setup
+    public void setUp() {
+
+        users = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            users.add(new UserViewDTO(i, "First" + i, "Last" + i));
+        }
+
+        jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        xmlMapper = Jackson2ObjectMapperBuilder.xml().build();
+        cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+
+    }
+
+    @Benchmark
+    public byte[] json() throws JsonProcessingException {
+        return jsonMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] xml() throws JsonProcessingException {
+        return xmlMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] cbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] smile() throws JsonProcessingException {
+        return smileMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] jsonGzip() throws IOException {
+        return gzip(jsonMapper);
+    }
+
+    @Benchmark
+    public byte[] cborGzip() throws IOException {
+        return gzip(cborMapper);
+    }
+
+    private byte[] gzip(ObjectMapper mapper) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            mapper.writeValue(gzip, users);
+        }
+        return bytes.toByteArray();
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.shared.VirtualThreads;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test of {@code GET /api/v1/user/{id}} with 1k and 10k concurrent clients, once on the Tomcat
+ * worker pool and once with {@code backend.virtual-threads.enabled=true}. The virtual thread run is skipped on a
+ * runtime without virtual threads. The user cache is disabled so every request reaches the database. Thousands of
+ * blocking clients against a live server do not fit a JMH harness, so this stays a main method next to the JMH
+ * benchmarks; run it with -Xss256k for the client threads.
+ */
+public final class VirtualThreadLoadBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int[] CLIENTS = {1_000, 10_000};
+
+    public static void main(String[] args) throws Exception {
+
+        final long durationMs = Long.getLong("benchmark.duration-ms", 20_000);
+
+        // A devtools restart would run main twice.
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        System.out.printf("%-10s %8s %12s %10s %10s %10s%n", "mode", "clients", "req/s", "p50 (ms)", "p99 (ms)", "errors");
+
+        for (boolean virtual : new boolean[]{false, true}) {
+
+            if (virtual && !VirtualThreads.isSupported()) {
+                System.out.println("virtual    skipped, runtime " + System.getProperty("java.version") + " has no virtual threads");
+                continue;
+            }
+
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                    .properties("server.port=0",
+                            "server.tomcat.max-connections=20000",
+                            "server.tomcat.accept-count=20000",
+                            "backend.user-cache.maximum-size=0",
+                            "backend.virtual-threads.enabled=" + virtual)
+                    .run(args)) {
+
+                seed(context.getBean(JdbcTemplate.class));
+                final int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+                for (int clients : CLIENTS) {
+                    run(virtual ? "virtual" : "platform", port, clients, durationMs);
+                }
+            }
+
+        }
+
+    }
+
+    private static void run(String mode, int port, int clients, long durationMs) throws InterruptedException {
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+        final List<long[]> latencies = new ArrayList<>(clients);
+        final AtomicLong errors = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(clients);
+
+        for (int i = 0; i < clients; i++) {
+            final long[] samples = new long[(int) (durationMs / 2)];
+            final int[] count = new int[1];
+            latencies.add(samples);
+            final Thread client = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        final long start = System.nanoTime();
+                        if (!get(port, ThreadLocalRandom.current().nextInt(1, ROWS + 1))) {
+                            errors.incrementAndGet();
+                        }
+                        if (count[0] < samples.length) {
+                            samples[count[0]++] = System.nanoTime() - start;
+                        }
+                    }
+                } finally {
+                    // Unused slots stay 0 and are dropped below.
+                    done.countDown();
+                }
+            });
+            client.setDaemon(true);
+            client.start();
+        }
+
+        done.await();
+
+        final long[] all = latencies.stream().flatMapToLong(Arrays::stream).filter(sample -> sample > 0).sorted().toArray();
+        System.out.printf("%-10s %8d %12.0f %10.2f %10.2f %10d%n", mode, clients, all.length * 1000.0 / durationMs,
+                percentile(all, 0.50), percentile(all, 0.99), errors.get());
+
+    }
+
+    private static boolean get(int port, int id) {
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/api/v1/user/" + id).openConnection();
+            final int status = connection.getResponseCode();
+            try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                while (body != null && body.read() >= 0) {
+                    // drain so the connection is reused
+                }
+            }
+            return status == 200;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1_000_000.0;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+
+        final List<Object[]> batch = new ArrayList<>(ROWS);
+        for (int i = 1; i <= ROWS; i++) {
+            batch.add(new Object[]{(long) i, "user" + i, "First" + i, "Last" + i});
+        }
+        jdbcTemplate.batchUpdate("insert into users (id, user_name, first_name, last_name) values (?, ?, ?, ?)", batch);
+
+    }
+
+}
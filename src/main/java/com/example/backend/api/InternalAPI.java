@@ -0,0 +1,76 @@
+package com.example.backend.api;
+
+import com.example.backend.config.InternalPortConfig;
+import com.example.backend.dto.MetricsDTO;
+import com.example.backend.dto.UserCacheStatsDTO;
+import com.example.backend.dto.UserChangeStreamStatsDTO;
+import com.example.backend.dto.UserNameFilterStatsDTO;
+import com.example.backend.dto.UserSuggestStatsDTO;
+import com.example.backend.service.RequestMetrics;
+import com.example.backend.service.UserChangeStream;
+import com.example.backend.service.UserNameFilter;
+import com.example.backend.service.UserSuggestIndex;
+import com.example.backend.service.UserViewCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Operational stats, answered only on the internal port (see {@link InternalPortConfig}), never next to the public
+ * user API.
+ */
+@RestController
+@RequestMapping(path = InternalAPI.PATH)
+@RequiredArgsConstructor
+public class InternalAPI {
+
+    public static final String PATH = "/internal";
+
+    private final RequestMetrics requestMetrics;
+
+    private final UserViewCache userViewCache;
+
+    private final UserNameFilter userNameFilter;
+
+    private final UserSuggestIndex userSuggestIndex;
+
+    private final UserChangeStream userChangeStream;
+
+    @GetMapping("metrics")
+    public ResponseEntity<MetricsDTO> getMetrics() {
+
+        return ResponseEntity.ok(requestMetrics.getStats());
+
+    }
+
+    @GetMapping("user-cache")
+    public ResponseEntity<UserCacheStatsDTO> getUserCacheStats() {
+
+        return ResponseEntity.ok(userViewCache.getStats());
+
+    }
+
+    @GetMapping("username-filter")
+    public ResponseEntity<UserNameFilterStatsDTO> getUserNameFilterStats() {
+
+        return ResponseEntity.ok(userNameFilter.getStats());
+
+    }
+
+    @GetMapping("user-suggest")
+    public ResponseEntity<UserSuggestStatsDTO> getUserSuggestStats() {
+
+        return ResponseEntity.ok(userSuggestIndex.getStats());
+
+    }
+
+    @GetMapping("user-changes")
+    public ResponseEntity<UserChangeStreamStatsDTO> getUserChangeStreamStats() {
+
+        return ResponseEntity.ok(userChangeStream.getStats());
+
+    }
+
+}
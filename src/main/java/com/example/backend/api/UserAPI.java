@@ -1,16 +1,57 @@
 package com.example.backend.api;
 
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserBulkDeleteResultDTO;
 import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserCursorPageDTO;
+import com.example.backend.dto.UserExportDTO;
+import com.example.backend.dto.UserImportResultDTO;
+import com.example.backend.dto.UserMultiGetResultDTO;
+import com.example.backend.dto.UserPatchDTO;
+import com.example.backend.dto.UserSearchPageDTO;
+import com.example.backend.dto.UserSuggestionDTO;
 import com.example.backend.dto.UserUpdateDTO;
 import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.PreconditionFailedException;
+import com.example.backend.service.UserExportFormat;
+import com.example.backend.service.UserChangeStream;
+import com.example.backend.service.UserExportService;
+import com.example.backend.service.UserGroupCommitter;
+import com.example.backend.service.UserImportFormat;
+import com.example.backend.service.UserImportService;
 import com.example.backend.service.UserService;
+import com.example.backend.service.UserSuggestIndex;
 import com.example.backend.shared.GenericResponse;
+import com.example.backend.shared.UserETag;
+import com.example.backend.validator.UniqueUserName;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import javax.validation.groups.Default;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -19,11 +60,44 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserAPI {
 
+    // Tomcat request attributes for sendfile, see org.apache.coyote.Constants
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
     private final UserService userService;
 
+    private final UserExportService userExportService;
+
+    private final UserImportService userImportService;
+
+    private final UserSuggestIndex userSuggestIndex;
+
+    private final UserChangeStream userChangeStream;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectProvider<UserGroupCommitter> userGroupCommitter;
+
+    /**
+     * The ETag is the row version; a matching {@code If-None-Match} answers 304 without a body.
+     */
     @GetMapping("v1/user/{id}")
-    public ResponseEntity<UserViewDTO> getUserById(@PathVariable("id") Long id) {
-        return ResponseEntity.ok(userService.getUserById(id));
+    public ResponseEntity<UserViewDTO> getUserById(@PathVariable("id") Long id, WebRequest webRequest) {
+
+        final UserViewDTO user = userService.getUserById(id);
+
+        if (user.getVersion() == null) {
+            return ResponseEntity.ok(user);
+        }
+
+        final String eTag = UserETag.of(user.getVersion());
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(user);
+
     }
 
 
@@ -40,29 +114,196 @@ public class UserAPI {
      Bu nedenle @ResponseBody zorunlu değil, koymasakta olur.
      ********************************************************************************************************************************************/
 
+    /**
+     * Goes through the group commit queue when {@code backend.user-group-commit.enabled}; the response is sent once
+     * the row is committed either way.
+     */
     @PostMapping(path = "v1/user")
-    public GenericResponse createUser(@Valid @RequestBody UserCreateDTO userCreateDTO) {
+    public GenericResponse createUser(@Validated({Default.class, UniqueUserName.Check.class}) @RequestBody UserCreateDTO userCreateDTO) {
 
-        userService.createUser(userCreateDTO);
+        final UserGroupCommitter groupCommitter = userGroupCommitter.getIfAvailable();
+        if (groupCommitter != null) {
+            groupCommitter.createUser(userCreateDTO);
+        } else {
+            userService.createUser(userCreateDTO);
+        }
         return new GenericResponse("User Created !");
 
     }
 
+    /**
+     * Per item results are returned in request order; invalid or duplicate names fail only their own item.
+     */
+    @PostMapping(path = "v1/user/batch")
+    public ResponseEntity<UserBatchResultDTO> createUsers(@RequestBody List<UserCreateDTO> userCreateDTOs) {
+
+        return ResponseEntity.ok(userService.createUsers(userCreateDTOs));
+
+    }
+
+    @PostMapping(path = "v1/user/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<UserImportResultDTO> importUsersFromNdjson(InputStream body) throws IOException {
+
+        return ResponseEntity.ok(userImportService.importUsers(body, UserImportFormat.NDJSON));
+
+    }
+
+    @PostMapping(path = "v1/user/import", consumes = "text/csv")
+    public ResponseEntity<UserImportResultDTO> importUsersFromCsv(InputStream body) throws IOException {
+
+        return ResponseEntity.ok(userImportService.importUsers(body, UserImportFormat.CSV));
+
+    }
+
+    @PostMapping("v1/user/export")
+    public ResponseEntity<UserExportDTO> exportUsers(@RequestParam(value = "format", defaultValue = "CSV") UserExportFormat format) {
+
+        return ResponseEntity.ok(userExportService.exportUsers(format));
+
+    }
+
+    /**
+     * Serves an export file with zero-copy transfer: Tomcat's sendfile when the connector supports it, otherwise
+     * {@link FileChannel#transferTo} into the response channel.
+     */
+    @GetMapping("v1/user/export/{name}")
+    public ResponseEntity<StreamingResponseBody> downloadExport(@PathVariable("name") String name,
+                                                                HttpServletRequest request) throws IOException {
+
+        final Path file = userExportService.getExportFile(name);
+        final long size = Files.size(file);
+
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentLength(size);
+        headers.setContentDisposition(ContentDisposition.attachment().filename(name).build());
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toString());
+            request.setAttribute(SENDFILE_START_ATTR, 0L);
+            request.setAttribute(SENDFILE_END_ATTR, size);
+            return ResponseEntity.ok().headers(headers).build();
+        }
+
+        final StreamingResponseBody body = outputStream -> {
+            try (FileChannel channel = FileChannel.open(file)) {
+                final WritableByteChannel target = Channels.newChannel(outputStream);
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+
+    }
+
+    /**
+     * The ETag comes from the collection-wide change counter and is taken before the list is read, so a revalidation
+     * that matches skips both the query and the serialization.
+     */
     @GetMapping("v1/user")
-    public List<UserViewDTO> getUsers() {
+    public ResponseEntity<List<UserViewDTO>> getUsers(WebRequest webRequest) {
 
 //        final List<UserViewDTO> users = userService.getUsers();
 //        return ResponseEntity.ok(users);
 //        return new ResponseEntity<>(users, new HttpHeaders(), HttpStatus.OK);
-        return userService.getUsers();
+        final String eTag = userService.getUsersETag();
+        if (eTag == null) {
+            return ResponseEntity.ok(userService.getUsers());
+        }
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(userService.getUsers());
+
+    }
+
+    /**
+     * {@code GET /api/v1/user?ids=1,2,3}: users in request order, unknown ids in missingIds.
+     */
+    @GetMapping(path = "v1/user", params = "ids")
+    public ResponseEntity<UserMultiGetResultDTO> getUsersByIds(@RequestParam("ids") List<Long> ids) {
+
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
 
     }
 
+    /**
+     * Same as {@code GET /api/v1/user?ids=} for id lists too long for a query string.
+     */
+    @PostMapping(path = "v1/user/lookup")
+    public ResponseEntity<UserMultiGetResultDTO> lookupUsers(@RequestBody List<Long> ids) {
+
+        return ResponseEntity.ok(userService.getUsersByIds(ids));
+
+    }
+
+    /**
+     * Writes users as a chunked JSON array while they are read from the database, so the heap usage does not grow
+     * with the table size.
+     */
+    @GetMapping(path = "v1/user/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+
+        final StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = createGenerator(outputStream)) {
+                generator.writeStartArray();
+                generator.flush();
+                userService.streamUsers(user -> writeUser(generator, user));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+
+    }
+
+    @GetMapping(path = "v1/user/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsersAsNdjson() {
+
+        final StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = createGenerator(outputStream)) {
+                // Lines are separated by writeNewLine only, not by the generator's default space between root values
+                generator.setRootValueSeparator(null);
+                userService.streamUsers(user -> {
+                    writeUser(generator, user);
+                    writeNewLine(generator);
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+
+    }
+
+    /**
+     * With {@code If-Match} the update only applies to a version the client has seen, otherwise 412. Each listed
+     * version is tried as a compare-and-set of its own, so the row must be at one of them when the update runs.
+     */
     @PutMapping("v1/user/{id}")
-    public ResponseEntity<UserViewDTO> updateUser(@PathVariable("id") Long userId, @RequestBody UserUpdateDTO userUpdateDTO) {
+    public ResponseEntity<UserViewDTO> updateUser(@PathVariable("id") Long userId,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  @RequestBody UserUpdateDTO userUpdateDTO) {
+
+        final List<Long> expectedVersions = ifMatch == null ? Collections.emptyList() : UserETag.parseIfMatch(ifMatch);
+        final UserViewDTO user = expectedVersions.isEmpty()
+                ? userService.updateUser(userId, userUpdateDTO)
+                : updateUserIfMatch(userId, userUpdateDTO, expectedVersions);
 
-        final UserViewDTO user = userService.updateUser(userId, userUpdateDTO);
-        return ResponseEntity.ok(user);
+        if (user.getVersion() == null) {
+            return ResponseEntity.ok(user);
+        }
+        return ResponseEntity.ok().eTag(UserETag.of(user.getVersion())).body(user);
+
+    }
+
+    @PatchMapping("v1/user/{id}")
+    public ResponseEntity<UserViewDTO> patchUser(@PathVariable("id") Long userId, @Valid @RequestBody UserPatchDTO userPatchDTO) {
+
+        final UserViewDTO user = userService.patchUser(userId, userPatchDTO);
+        if (user.getVersion() == null) {
+            return ResponseEntity.ok(user);
+        }
+        return ResponseEntity.ok().eTag(UserETag.of(user.getVersion())).body(user);
 
     }
 
@@ -75,6 +316,16 @@ public class UserAPI {
 
     }
 
+    /**
+     * {@code DELETE /api/v1/user?ids=1,2,3}; ids that do not exist are skipped.
+     */
+    @DeleteMapping(path = "v1/user", params = "ids")
+    public ResponseEntity<UserBulkDeleteResultDTO> deleteUsers(@RequestParam("ids") List<Long> ids) {
+
+        return ResponseEntity.ok(userService.deleteUsers(ids));
+
+    }
+
 
     @GetMapping("v1/user/slice")
     public ResponseEntity<List<UserViewDTO>> slice(Pageable pageable) {
@@ -84,6 +335,52 @@ public class UserAPI {
 
     }
 
+    @GetMapping("v1/user/keyset")
+    public ResponseEntity<UserCursorPageDTO> sliceAfter(@RequestParam(value = "after", required = false) String after,
+                                                        @RequestParam(value = "limit", defaultValue = "20") int limit) {
+
+        return ResponseEntity.ok(userService.sliceAfter(after, limit));
+
+    }
+
+    /**
+     * Type-ahead over user name, first name and last name; the limit is capped at 50.
+     */
+    @GetMapping("v1/user/suggest")
+    public ResponseEntity<List<UserSuggestionDTO>> suggest(@RequestParam("prefix") String prefix,
+                                                           @RequestParam(value = "limit", defaultValue = "10") int limit) {
+
+        if (prefix.trim().isEmpty()) {
+            return ResponseEntity.ok(Collections.emptyList());
+        }
+        return ResponseEntity.ok(userSuggestIndex.search(prefix, limit));
+
+    }
+
+    /**
+     * Server-Sent Events of committed user changes; reconnecting with {@code Last-Event-ID} replays what was missed.
+     */
+    @GetMapping(path = "v1/user/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUserChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        return userChangeStream.subscribe(lastEventId);
+
+    }
+
+    /**
+     * {@code GET /api/v1/user/search?lastName=&firstName=&userNamePrefix=&page=&size=&sort=firstName,desc}; sorting
+     * on a property without an index is rejected with 400.
+     */
+    @GetMapping("v1/user/search")
+    public ResponseEntity<UserSearchPageDTO> searchUsers(@RequestParam(value = "firstName", required = false) String firstName,
+                                                         @RequestParam(value = "lastName", required = false) String lastName,
+                                                         @RequestParam(value = "userNamePrefix", required = false) String userNamePrefix,
+                                                         Pageable pageable) {
+
+        return ResponseEntity.ok(userService.searchUsers(firstName, lastName, userNamePrefix, pageable));
+
+    }
+
     @RequestMapping(path = "v1/user", method = RequestMethod.PATCH)
     public boolean isUsernameExists(@RequestParam(value = "username") String username) {
 
@@ -91,4 +388,40 @@ public class UserAPI {
 
     }
 
+    private UserViewDTO updateUserIfMatch(Long userId, UserUpdateDTO userUpdateDTO, List<Long> expectedVersions) {
+
+        for (int i = 0; ; i++) {
+            try {
+                return userService.updateUser(userId, userUpdateDTO, expectedVersions.get(i));
+            } catch (PreconditionFailedException e) {
+                if (i == expectedVersions.size() - 1) {
+                    throw e;
+                }
+            }
+        }
+
+    }
+
+    private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        return objectMapper.getFactory()
+                .createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private static void writeUser(JsonGenerator generator, UserViewDTO user) {
+        try {
+            generator.writeObject(user);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeNewLine(JsonGenerator generator) {
+        try {
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 }
\ No newline at end of file
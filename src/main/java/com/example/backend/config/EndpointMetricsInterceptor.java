@@ -0,0 +1,49 @@
+package com.example.backend.config;
+
+import com.example.backend.service.RequestMetrics;
+import com.example.backend.service.SqlStatementCounter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Times every handled request by method and URL pattern, e.g. {@code GET /api/v1/user/{id}}. For async requests
+ * the start of the first dispatch is kept, so streaming responses are timed until the body is written. SQL
+ * statements are counted per dispatch on the request thread; work on an async executor is not included.
+ */
+@RequiredArgsConstructor
+public class EndpointMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = EndpointMetricsInterceptor.class.getName() + ".start";
+    private static final String STATEMENTS_ATTRIBUTE = EndpointMetricsInterceptor.class.getName() + ".statements";
+
+    private final RequestMetrics requestMetrics;
+    private final SqlStatementCounter sqlStatementCounter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        request.setAttribute(STATEMENTS_ATTRIBUTE, sqlStatementCounter.currentThreadTotal());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+
+        final Object start = request.getAttribute(START_ATTRIBUTE);
+        final Object statements = request.getAttribute(STATEMENTS_ATTRIBUTE);
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        if (start != null && statements != null && pattern != null) {
+            requestMetrics.recordEndpoint(request.getMethod() + " " + pattern, System.nanoTime() - (Long) start,
+                    sqlStatementCounter.currentThreadTotal() - (Long) statements);
+        }
+
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.example.backend.config;
+
+import com.example.backend.api.InternalAPI;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.connector.Connector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Like the actuator's management port: {@link InternalAPI} is served on a Tomcat connector of its own,
+ * {@code backend.internal.port} bound to {@code backend.internal.address} (loopback by default). Internal paths on
+ * the public port and public paths on the internal port are answered with 404.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class InternalPortConfig {
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> internalConnectorCustomizer(
+            @Value("${backend.internal.port:8090}") int port,
+            @Value("${backend.internal.address:127.0.0.1}") String address) {
+
+        return factory -> {
+            final Connector connector = new Connector(TomcatServletWebServerFactory.DEFAULT_PROTOCOL);
+            connector.setPort(port);
+            connector.setProperty("address", address);
+            factory.addAdditionalTomcatConnectors(connector);
+            log.info("Serving {} on {}:{}", InternalAPI.PATH, address, port);
+        };
+
+    }
+
+    @Bean
+    public FilterRegistrationBean<InternalPortFilter> internalPortFilter(@Value("${backend.internal.port:8090}") int port) {
+
+        final FilterRegistrationBean<InternalPortFilter> registration = new FilterRegistrationBean<>(new InternalPortFilter(port));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.example.backend.config;
+
+import com.example.backend.api.InternalAPI;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Keeps {@link InternalAPI} on the internal port and everything else off it, by the local port the request came in
+ * on.
+ */
+public class InternalPortFilter extends OncePerRequestFilter {
+
+    private final int internalPort;
+
+    public InternalPortFilter(int internalPort) {
+        this.internalPort = internalPort;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        final boolean internalPath = path.equals(InternalAPI.PATH) || path.startsWith(InternalAPI.PATH + "/");
+
+        if (internalPath != (request.getLocalPort() == internalPort)) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.example.backend.config;
+
+import com.example.backend.service.RequestMetrics;
+import com.example.backend.service.SqlStatementCounter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers the endpoint and repository timers feeding {@link RequestMetrics}; on unless
+ * {@code backend.metrics.enabled=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "backend.metrics.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final RequestMetrics requestMetrics;
+
+    private final SqlStatementCounter sqlStatementCounter;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new EndpointMetricsInterceptor(requestMetrics, sqlStatementCounter));
+    }
+
+    @Bean
+    public RepositoryMetricsAspect repositoryMetricsAspect() {
+        return new RepositoryMetricsAspect(requestMetrics, sqlStatementCounter);
+    }
+
+}
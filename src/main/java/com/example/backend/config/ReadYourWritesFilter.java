@@ -0,0 +1,80 @@
+package com.example.backend.config;
+
+import com.example.backend.shared.ReadWriteRoutingDataSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-your-writes for {@link ReadWriteRoutingDataSource}: a mutating request sets a cookie holding the end of the
+ * window, and until then the client's requests read from the primary instead of a replica that may not have applied
+ * the write yet. The cookie is set before the request is handled, while the response can still take headers, so a
+ * failed write opens the window as well; that only costs a few reads on the primary.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "backend-read-primary-until";
+
+    private static final Set<String> SAFE_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS", "TRACE")));
+
+    private final long windowMs;
+
+    public ReadYourWritesFilter(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        final long now = System.currentTimeMillis();
+        final boolean mutating = !SAFE_METHODS.contains(request.getMethod());
+
+        if (mutating) {
+            final Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(now + windowMs));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(windowMs + 999)));
+            response.addCookie(cookie);
+        }
+
+        final boolean pinned = mutating || readPrimaryUntil(request) > now;
+        ReadWriteRoutingDataSource.pinToPrimary(pinned);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.pinToPrimary(false);
+        }
+
+    }
+
+    private static long readPrimaryUntil(HttpServletRequest request) {
+
+        if (request.getCookies() == null) {
+            return 0;
+        }
+
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.example.backend.config;
+
+import com.example.backend.shared.ReadWriteRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in ({@code backend.datasource.replicas.enabled=true}) read/write splitting: read-only transactions go to the
+ * replica pools listed in {@code backend.datasource.replicas.urls}, everything else to the {@code spring.datasource}
+ * primary. Replicas use the primary's credentials.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "backend.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("${backend.datasource.replicas.maximum-pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int maximumPoolSize,
+            @Value("${backend.datasource.replicas.connection-timeout-ms:1000}") long connectionTimeoutMs,
+            @Value("${backend.datasource.replicas.validation-timeout-seconds:1}") int validationTimeoutSeconds) {
+
+        final Binder binder = Binder.get(environment);
+
+        final HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        // Indexed entries (urls[0]=...) may contain commas, as H2 URLs with an INIT script do.
+        final List<String> urls = binder.bind("backend.datasource.replicas.urls", Bindable.listOf(String.class))
+                .orElse(Collections.emptyList());
+
+        final Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            final HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i).trim())
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            // A replica that is down costs the read that finds out this long before it falls over to the next one.
+            replica.setConnectionTimeout(connectionTimeoutMs);
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        log.info("Routing read-only transactions to {} replicas", replicas.size());
+        return new ReadWriteRoutingDataSource(primary, replicas, validationTimeoutSeconds);
+
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    /**
+     * Spring holds a session's connection until the session closes, which with open-in-view is the end of the
+     * request; a write after a read in the same request would then reuse the replica connection.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransactionCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    @ConditionalOnExpression("${backend.datasource.replicas.read-your-writes-ms:0} > 0")
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${backend.datasource.replicas.read-your-writes-ms}") long readYourWritesMs) {
+
+        final FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(readYourWritesMs));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+
+    }
+
+}
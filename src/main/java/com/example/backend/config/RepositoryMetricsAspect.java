@@ -0,0 +1,35 @@
+package com.example.backend.config;
+
+import com.example.backend.service.RequestMetrics;
+import com.example.backend.service.SqlStatementCounter;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Times every {@code UserRepository} call by method name. Stream returning methods are timed until the first rows
+ * are available, not until the stream is consumed.
+ */
+@Aspect
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final RequestMetrics requestMetrics;
+    private final SqlStatementCounter sqlStatementCounter;
+
+    @Around("execution(* com.example.backend.repository.UserRepository.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+
+        final long statements = sqlStatementCounter.currentThreadTotal();
+        final long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            requestMetrics.recordRepository(joinPoint.getSignature().getName(), System.nanoTime() - start,
+                    sqlStatementCounter.currentThreadTotal() - statements);
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.example.backend.config;
+
+import com.example.backend.shared.ShardRoutingDataSource;
+import com.example.backend.shared.ShardedSequenceGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in ({@code backend.sharding.enabled=true}) hash sharding of the users table over the databases listed in
+ * {@code backend.sharding.urls}, which use the {@code spring.datasource} credentials and Hikari settings; the
+ * {@code spring.datasource} URL itself is not used. Hibernate creates or updates the schema on every shard.
+ * <p>
+ * A shard is bound to a thread for a whole unit of work, which open-in-view would stretch over a request that reads
+ * from several shards, so it has to be off. Sharding is not combined with read replicas.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "backend.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("${spring.jpa.open-in-view:true}") boolean openInView,
+            @Value("${backend.datasource.replicas.enabled:false}") boolean replicas) {
+
+        if (openInView) {
+            throw new IllegalStateException("backend.sharding.enabled=true needs spring.jpa.open-in-view=false");
+        }
+        if (replicas) {
+            throw new IllegalStateException("backend.sharding.enabled=true can not be combined with backend.datasource.replicas.enabled=true");
+        }
+
+        final Binder binder = Binder.get(environment);
+
+        // Indexed entries (urls[0]=...) may contain commas, as H2 URLs with settings do.
+        final List<String> urls = binder.bind("backend.sharding.urls", Bindable.listOf(String.class))
+                .orElse(Collections.emptyList());
+
+        final List<DataSource> shards = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            final HikariDataSource shard = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i).trim())
+                    .build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(shard));
+            shard.setPoolName("shard-" + i);
+            shards.add(shard);
+        }
+
+        log.info("Sharding users over {} databases", shards.size());
+        return new ShardRoutingDataSource(shards);
+
+    }
+
+    /**
+     * Tells the id generator the shard count and runs Hibernate's schema management on the other shards; the first
+     * one is where Hibernate runs it itself.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardingHibernatePropertiesCustomizer(ShardRoutingDataSource shardRoutingDataSource) {
+
+        final int shards = shardRoutingDataSource.getShardCount();
+        final IntegratorProvider integrators = () -> Collections.singletonList(new ShardSchemaIntegrator(shards));
+
+        return properties -> {
+            properties.put(ShardedSequenceGenerator.SHARDS, shards);
+            properties.put("hibernate.integrator_provider", integrators);
+        };
+
+    }
+
+    private static final class ShardSchemaIntegrator implements Integrator {
+
+        private final int shards;
+        // Drops of create-drop, run on their shard when the session factory closes
+        private final List<Runnable> drops = new ArrayList<>();
+
+        private ShardSchemaIntegrator(int shards) {
+            this.shards = shards;
+        }
+
+        @Override
+        public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                              SessionFactoryServiceRegistry serviceRegistry) {
+
+            final Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+
+            for (int shard = 1; shard < shards; shard++) {
+                final int owner = shard;
+                ShardRoutingDataSource.callOnShard(owner, () -> {
+                    SchemaManagementToolCoordinator.process(metadata, serviceRegistry, settings,
+                            drop -> drops.add(() -> ShardRoutingDataSource.callOnShard(owner, () -> {
+                                drop.perform(serviceRegistry);
+                                return null;
+                            })));
+                    return null;
+                });
+            }
+
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+            drops.forEach(Runnable::run);
+        }
+
+    }
+
+}
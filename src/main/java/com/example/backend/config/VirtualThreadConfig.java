@@ -0,0 +1,70 @@
+package com.example.backend.config;
+
+import com.example.backend.shared.ConnectionLimitDataSource;
+import com.example.backend.shared.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Opt-in ({@code backend.virtual-threads.enabled=true}) mode that runs every servlet request, and with it the
+ * service call and its JDBC work, on its own virtual thread instead of a Tomcat worker. Async request processing
+ * such as the streaming endpoints uses virtual threads as well. Needs a Java 21 runtime; startup fails otherwise.
+ * The build still targets Java 8, so the executor comes from the {@link VirtualThreads} reflection shim.
+ * <p>
+ * Virtual threads no longer bound the requests in flight the way the worker pool did; {@link ConnectionLimitDataSource}
+ * bounds what they queue on instead, the JDBC connections.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "backend.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        log.info("Serving requests on virtual threads");
+        return VirtualThreads.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    /**
+     * Wraps the {@code dataSource} bean, whichever configuration made it, so that requests beyond the pool size fail
+     * fast with 503 instead of parking a virtual thread each in the pool's queue.
+     */
+    @Bean
+    public static BeanPostProcessor connectionLimitPostProcessor(
+            @Value("${backend.virtual-threads.max-concurrent-connections:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConnections,
+            @Value("${backend.virtual-threads.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource) {
+                    return new ConnectionLimitDataSource((DataSource) bean, maxConnections, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+
+    }
+
+}
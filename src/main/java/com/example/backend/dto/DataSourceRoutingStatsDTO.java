@@ -0,0 +1,19 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+public final class DataSourceRoutingStatsDTO {
+
+    private final long primaryConnections;
+    // Read-only transactions sent to the primary for read-your-writes.
+    private final long pinnedReads;
+    // Read-only transactions sent to the primary because no replica was healthy.
+    private final long fallbackReads;
+    private final List<ReplicaStatsDTO> replicas;
+
+}
@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public final class LatencyStatsDTO {
+
+    private final String name;
+    private final long count;
+    private final double ratePerSecond;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p90Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+    private final double meanSqlStatements;
+
+}
@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+public final class MetricsDTO {
+
+    private final long uptimeSeconds;
+    private final List<LatencyStatsDTO> endpoints;
+    private final List<LatencyStatsDTO> repository;
+    private final SqlStatementCountDTO sqlStatements;
+    // null unless backend.user-group-commit.enabled
+    private final UserGroupCommitStatsDTO groupCommit;
+    // null unless backend.datasource.replicas.enabled
+    private final DataSourceRoutingStatsDTO dataSourceRouting;
+
+}
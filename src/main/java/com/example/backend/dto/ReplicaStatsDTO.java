@@ -0,0 +1,15 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public final class ReplicaStatsDTO {
+
+    private final String name;
+    private final boolean healthy;
+    private final long connections;
+    private final long failures;
+
+}
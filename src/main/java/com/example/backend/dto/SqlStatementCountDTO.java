@@ -0,0 +1,35 @@
+package com.example.backend.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class SqlStatementCountDTO {
+
+    private final long select;
+    private final long insert;
+    private final long update;
+    private final long delete;
+    private final long other;
+
+    public SqlStatementCountDTO(long select, long insert, long update, long delete, long other) {
+        this.select = select;
+        this.insert = insert;
+        this.update = update;
+        this.delete = delete;
+        this.other = other;
+    }
+
+    public long getTotal() {
+        return select + insert + update + delete + other;
+    }
+
+    public SqlStatementCountDTO minus(SqlStatementCountDTO before) {
+        return new SqlStatementCountDTO(select - before.select, insert - before.insert, update - before.update,
+                delete - before.delete, other - before.other);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.example.backend.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+public final class UserBatchItemResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int index;
+    private UserViewDTO user;
+    private List<String> errors;
+
+    public UserBatchItemResultDTO(int index, UserViewDTO user, List<String> errors) {
+        this.index = index;
+        this.user = user;
+        this.errors = errors;
+    }
+
+    public static UserBatchItemResultDTO created(int index, UserViewDTO user) {
+        return new UserBatchItemResultDTO(index, user, Collections.emptyList());
+    }
+
+    public static UserBatchItemResultDTO failed(int index, List<String> errors) {
+        return new UserBatchItemResultDTO(index, null, errors);
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.example.backend.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+public final class UserBatchResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int created;
+    private int failed;
+    private List<UserBatchItemResultDTO> results;
+
+    public UserBatchResultDTO(List<UserBatchItemResultDTO> results) {
+        this.results = results;
+        this.created = (int) results.stream().filter(result -> result.getUser() != null).count();
+        this.failed = results.size() - created;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Ids that did not exist are not an error; they show up as the difference between requested and deleted.
+ */
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public final class UserBulkDeleteResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int requested;
+    private int deleted;
+
+}
@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public final class UserCacheStatsDTO {
+
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+    private final double hitRate;
+    private final long evictionCount;
+    private final double averageLoadPenaltyNanos;
+    private final long loadCount;
+    // Lookups that joined another caller's in-flight load instead of issuing their own; also counted as hits.
+    private final long coalescedCount;
+    private final long coalescedTimeoutCount;
+
+}
@@ -0,0 +1,30 @@
+package com.example.backend.dto;
+
+import com.example.backend.service.UserChangeType;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+public final class UserChangeEventDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long sequence;
+    private UserChangeType type;
+    private Long userId;
+    // Null for deletes.
+    private UserViewDTO user;
+
+    public UserChangeEventDTO(long sequence, UserChangeType type, Long userId, UserViewDTO user) {
+        this.sequence = sequence;
+        this.type = type;
+        this.userId = userId;
+        this.user = user;
+    }
+
+}
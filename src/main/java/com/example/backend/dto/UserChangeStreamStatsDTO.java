@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public final class UserChangeStreamStatsDTO {
+
+    private final int subscribers;
+    private final int maxSubscribers;
+    private final long lastSequence;
+    private final int replayEvents;
+    private final long publishedCount;
+    private final long droppedCount;
+    private final long disconnectedCount;
+    private final long resetCount;
+    private final long stalledCount;
+
+}
@@ -14,7 +14,7 @@ public class UserCreateDTO {
 
     @NotNull(message = "{backend.constraints.username.NotNull.message}")
     @Size(min = 4, max = 24, message = "{backend.constraints.username.Size.message}")
-    @UniqueUserName
+    @UniqueUserName(groups = UniqueUserName.Check.class)
     private String userName;
 
     @NotNull(message = "{backend.constraints.firstname.NotNull.message}")
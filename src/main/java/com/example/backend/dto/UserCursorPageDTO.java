@@ -0,0 +1,25 @@
+package com.example.backend.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+public final class UserCursorPageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<UserViewDTO> users;
+    private String nextCursor;
+
+    public UserCursorPageDTO(List<UserViewDTO> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+}
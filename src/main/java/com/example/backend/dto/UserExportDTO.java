@@ -0,0 +1,18 @@
+package com.example.backend.dto;
+
+import com.example.backend.service.UserExportFormat;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public final class UserExportDTO {
+
+    private final String name;
+    private final UserExportFormat format;
+    private final long rows;
+    private final long bytes;
+    private final int ranges;
+    private final long elapsedMillis;
+
+}
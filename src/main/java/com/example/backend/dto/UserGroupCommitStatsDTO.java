@@ -0,0 +1,18 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public final class UserGroupCommitStatsDTO {
+
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long batches;
+    private final long rows;
+    private final double meanBatchSize;
+    private final long rejected;
+    private final LatencyStatsDTO flush;
+
+}
@@ -0,0 +1,25 @@
+package com.example.backend.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+public final class UserImportErrorDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long line;
+    private List<String> errors;
+
+    public UserImportErrorDTO(long line, List<String> errors) {
+        this.line = line;
+        this.errors = errors;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+public final class UserImportResultDTO {
+
+    private final long rows;
+    private final long created;
+    private final long failed;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+    private final List<UserImportErrorDTO> errors;
+    private final boolean errorsTruncated;
+
+}
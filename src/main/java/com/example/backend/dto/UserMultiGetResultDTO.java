@@ -0,0 +1,25 @@
+package com.example.backend.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+public final class UserMultiGetResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<UserViewDTO> users;
+    private List<Long> missingIds;
+
+    public UserMultiGetResultDTO(List<UserViewDTO> users, List<Long> missingIds) {
+        this.users = users;
+        this.missingIds = missingIds;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public final class UserNameFilterStatsDTO {
+
+    private final boolean ready;
+    private final double configuredFalsePositiveRate;
+    private final double expectedFalsePositiveRate;
+    private final double observedFalsePositiveRate;
+    private final long approximateNames;
+    private final long bitSize;
+    private final long queriesSaved;
+    private final long queriesIssued;
+    private final long falsePositives;
+    private final long deletesSinceRebuild;
+
+}
@@ -0,0 +1,23 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import javax.validation.constraints.Size;
+
+/**
+ * Partial update; a null field is left unchanged.
+ */
+@Getter
+@Builder
+@EqualsAndHashCode
+public class UserPatchDTO {
+
+    @Size(min = 2, max = 32, message = "{backend.constraints.firstname.Size.message}")
+    private String firstName;
+
+    @Size(min = 3, max = 32, message = "{backend.constraints.lastname.Size.message}")
+    private String lastName;
+
+}
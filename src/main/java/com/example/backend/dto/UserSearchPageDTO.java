@@ -0,0 +1,29 @@
+package com.example.backend.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+public final class UserSearchPageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<UserViewDTO> users;
+    private int page;
+    private int size;
+    private boolean hasNext;
+
+    public UserSearchPageDTO(List<UserViewDTO> users, int page, int size, boolean hasNext) {
+        this.users = users;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.example.backend.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public final class UserSuggestStatsDTO {
+
+    private final boolean ready;
+    private final int entries;
+    private final int maxEntries;
+    private final long estimatedBytes;
+    private final long lastBuildMs;
+    // The table outgrew maxEntries; a rebuild is tried every rebuild-interval-ms
+    private final boolean dropped;
+    private final long compactions;
+    private final long indexedSearches;
+    private final long fallbackSearches;
+
+}
@@ -0,0 +1,24 @@
+package com.example.backend.dto;
+
+import com.example.backend.service.UserSuggestField;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+public final class UserSuggestionDTO {
+
+    private Long id;
+    private UserSuggestField field;
+    private String value;
+
+    // JPQL constructor expressions take the field as a string literal.
+    public UserSuggestionDTO(Long id, String field, String value) {
+        this(id, UserSuggestField.valueOf(field), value);
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.example.backend.dto;
 
 import com.example.backend.model.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -18,14 +19,24 @@ public final class UserViewDTO implements Serializable {
     private String firstName;
     private String lastName;
 
+    // Sent as the ETag header, not in the body; null when the version is unknown.
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
     public UserViewDTO(Long id, String firstName, String lastName) {
+        this(id, firstName, lastName, null);
+    }
+
+    public UserViewDTO(Long id, String firstName, String lastName, Long version) {
         this.id = id;
         this.firstName = firstName;
         this.lastName = lastName;
+        this.version = version;
     }
 
     public static UserViewDTO of(User user) {
-        return new UserViewDTO(user.getId(), user.getFirstName(), user.getLastName());
+        return new UserViewDTO(user.getId(), user.getFirstName(), user.getLastName(), user.getVersion());
     }
 
 }
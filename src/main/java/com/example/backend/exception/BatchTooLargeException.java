@@ -0,0 +1,15 @@
+package com.example.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class BatchTooLargeException extends RuntimeException{
+
+    public BatchTooLargeException(String message){
+
+        super(message);
+
+    }
+
+}
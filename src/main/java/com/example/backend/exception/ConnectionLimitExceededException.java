@@ -0,0 +1,15 @@
+package com.example.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ConnectionLimitExceededException extends RuntimeException{
+
+    public ConnectionLimitExceededException(String message){
+
+        super(message);
+
+    }
+
+}
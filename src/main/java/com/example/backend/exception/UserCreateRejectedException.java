@@ -0,0 +1,15 @@
+package com.example.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UserCreateRejectedException extends RuntimeException{
+
+    public UserCreateRejectedException(String message){
+
+        super(message);
+
+    }
+
+}
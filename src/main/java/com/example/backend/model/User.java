@@ -4,20 +4,46 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
 import javax.persistence.*;
 
 @Getter
 @Setter
 @NoArgsConstructor
 @Entity
-@Table(name = "users")
+@Table(name = "users",
+        uniqueConstraints = @UniqueConstraint(name = User.USER_NAME_INDEX, columnNames = "user_name"),
+        // Each index serves an equality filter on its first column with a sort on the next ones, or a sort on its
+        // leading columns without a filter; id last keeps the order stable for paging.
+        indexes = {
+                @Index(name = User.LAST_NAME_INDEX, columnList = "last_name, first_name, id"),
+                @Index(name = User.FIRST_NAME_INDEX, columnList = "first_name, last_name, id")
+        })
 public class User{
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    public static final String USER_NAME_INDEX = "uk_users_user_name";
+
+    public static final String LAST_NAME_INDEX = "idx_users_last_name_first_name";
+
+    public static final String FIRST_NAME_INDEX = "idx_users_first_name_last_name";
+
+    // A pooled sequence lets Hibernate preallocate ids and batch inserts, IDENTITY forces one round trip per row.
+    // With sharding enabled the id also names the shard holding the row.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "users_seq")
+    @GenericGenerator(name = "users_seq", strategy = "com.example.backend.shared.ShardedSequenceGenerator", parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "users_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + User.ID_ALLOCATION_SIZE)
+    })
     private Long id;
 
-    @Column(name = "user_name" , nullable = false , length = 50 , unique = true)
+    @Column(name = "user_name" , nullable = false , length = 50)
     private String userName;
 
     @Column(name = "first_name", nullable = false , length = 50)
@@ -26,6 +52,12 @@ public class User{
     @Column(name = "last_name", nullable = false , length = 50)
     private String lastName;
 
+    // Bulk JPQL updates bypass Hibernate's versioning and increment it themselves.
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public User(String userName , String firstName, String lastName) {
         this.firstName = firstName;
         this.lastName = lastName;
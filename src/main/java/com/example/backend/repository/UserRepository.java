@@ -1,15 +1,141 @@
 package com.example.backend.repository;
 
+import com.example.backend.dto.UserSuggestionDTO;
+import com.example.backend.dto.UserViewDTO;
 import com.example.backend.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
-public interface UserRepository extends JpaRepository<User , Long>{
+public interface UserRepository extends JpaRepository<User , Long>, UserSearchRepository {
+
+    String STREAM_FETCH_SIZE = "1000";
+
+    String VIEW_SELECT = "select new com.example.backend.dto.UserViewDTO(u.id, u.firstName, u.lastName, u.version) from User u";
+
+    String SUGGEST_SELECT = "select new com.example.backend.dto.UserSuggestionDTO(u.id, ";
 
 //    boolean existsUserByuserName(String username);
     boolean existsUserByUserName(String username);
 
     //Yukarıdaki iki metodda database'e aynı sorguyu atar.
 
+    /**
+     * Read paths project straight into {@link UserViewDTO}: only the exposed columns are selected and no entity is
+     * registered in the persistence context.
+     */
+    @Query(VIEW_SELECT + " where u.id = :id")
+    Optional<UserViewDTO> findViewById(@Param("id") Long id);
+
+    @Query(VIEW_SELECT + " order by u.id")
+    List<UserViewDTO> findAllViews();
+
+    @Query(VIEW_SELECT + " where u.id in :ids")
+    List<UserViewDTO> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * A plain list result, so unlike {@code findAll(Pageable)} no count query is issued.
+     */
+    @Query(VIEW_SELECT)
+    List<UserViewDTO> findViews(Pageable pageable);
+
+    /**
+     * Keyset page: seeks on the primary key index instead of skipping rows with OFFSET, and issues no count query
+     * since the result is a plain list.
+     */
+    @Query(VIEW_SELECT + " where u.id > :id order by u.id")
+    List<UserViewDTO> findViewsAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Scrolls over the whole table with a JDBC fetch size instead of materializing it. The returned stream must be
+     * consumed and closed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(VIEW_SELECT + " order by u.id")
+    Stream<UserViewDTO> streamAllViews();
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select u from User u where u.id between :fromId and :toId order by u.id")
+    Stream<User> streamByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("select min(u.id) from User u")
+    Long findMinId();
+
+    @Query("select max(u.id) from User u")
+    Long findMaxId();
+
+    /**
+     * Single statement update without loading the entity; returns the number of rows updated.
+     */
+    @Modifying
+    @Query("update User u set u.firstName = :firstName, u.lastName = :lastName, u.version = u.version + 1 where u.id = :id")
+    int updateNames(@Param("id") Long id, @Param("firstName") String firstName, @Param("lastName") String lastName);
+
+    /**
+     * Optimistic variant of {@link #updateNames}: updates nothing unless the row still has the expected version.
+     */
+    @Modifying
+    @Query("update User u set u.firstName = :firstName, u.lastName = :lastName, u.version = u.version + 1 "
+            + "where u.id = :id and u.version = :version")
+    int updateNamesIfVersion(@Param("id") Long id, @Param("firstName") String firstName,
+                             @Param("lastName") String lastName, @Param("version") Long version);
+
+    @Modifying
+    @Query("update User u set u.firstName = :firstName, u.version = u.version + 1 where u.id = :id")
+    int updateFirstName(@Param("id") Long id, @Param("firstName") String firstName);
+
+    @Modifying
+    @Query("update User u set u.lastName = :lastName, u.version = u.version + 1 where u.id = :id")
+    int updateLastName(@Param("id") Long id, @Param("lastName") String lastName);
+
+    /**
+     * Single DELETE by primary key without loading the entity, unlike {@code deleteById}.
+     */
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int removeById(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from User u where u.id in :ids")
+    int removeByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select u.userName from User u where u.userName in :userNames")
+    List<String> findExistingUserNames(@Param("userNames") Collection<String> userNames);
+
+    /**
+     * Fallback of the suggest index while it is not built: one LIKE per field, the prefix escaped with '!'.
+     */
+    @Query(SUGGEST_SELECT + "'USER_NAME', u.userName) from User u where lower(u.userName) like :prefix escape '!' "
+            + "order by lower(u.userName), u.id")
+    List<UserSuggestionDTO> suggestByUserName(@Param("prefix") String prefix, Pageable pageable);
+
+    @Query(SUGGEST_SELECT + "'FIRST_NAME', u.firstName) from User u where lower(u.firstName) like :prefix escape '!' "
+            + "order by lower(u.firstName), u.id")
+    List<UserSuggestionDTO> suggestByFirstName(@Param("prefix") String prefix, Pageable pageable);
+
+    @Query(SUGGEST_SELECT + "'LAST_NAME', u.lastName) from User u where lower(u.lastName) like :prefix escape '!' "
+            + "order by lower(u.lastName), u.id")
+    List<UserSuggestionDTO> suggestByLastName(@Param("prefix") String prefix, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("select u.userName from User u")
+    Stream<String> streamUserNames();
+
 }
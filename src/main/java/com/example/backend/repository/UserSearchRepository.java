@@ -0,0 +1,18 @@
+package com.example.backend.repository;
+
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.model.User;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Criteria query fragment of {@link UserRepository}. Unlike {@code JpaSpecificationExecutor#findAll(Specification,
+ * Pageable)} it projects into {@link UserViewDTO} and issues no count query.
+ */
+public interface UserSearchRepository {
+
+    List<UserViewDTO> searchViews(Specification<User> specification, Sort sort, long offset, int limit);
+
+}
@@ -0,0 +1,46 @@
+package com.example.backend.repository;
+
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.model.User;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserViewDTO> searchViews(Specification<User> specification, Sort sort, long offset, int limit) {
+
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<UserViewDTO> query = builder.createQuery(UserViewDTO.class);
+        final Root<User> root = query.from(User.class);
+
+        query.select(builder.construct(UserViewDTO.class,
+                root.get("id"), root.get("firstName"), root.get("lastName"), root.get("version")));
+
+        final Predicate predicate = specification == null ? null : specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(toOrders(sort, root, builder));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.User;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filters of {@code GET /api/v1/user/search}. They compare the stored values as they are, without lower(), so that
+ * the indexes declared on {@link User} can serve them.
+ */
+public final class UserSpecifications {
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> firstNameEquals(String firstName) {
+        return (root, query, builder) -> builder.equal(root.get("firstName"), firstName);
+    }
+
+    public static Specification<User> lastNameEquals(String lastName) {
+        return (root, query, builder) -> builder.equal(root.get("lastName"), lastName);
+    }
+
+    /**
+     * A LIKE with a constant prefix, which H2 turns into a range scan of the user_name index.
+     */
+    public static Specification<User> userNameStartsWith(String prefix) {
+        return (root, query, builder) -> builder.like(root.get("userName"), escape(prefix) + "%", '!');
+    }
+
+    private static String escape(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.LatencyStatsDTO;
+import com.example.backend.dto.MetricsDTO;
+import com.example.backend.shared.LatencyHistogram;
+import com.example.backend.shared.ReadWriteRoutingDataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Latency histograms and SQL statement counts per HTTP endpoint and per {@code UserRepository} method. Rates are
+ * averaged since startup.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestMetrics {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Timer> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Timer> repository = new ConcurrentHashMap<>();
+
+    private final SqlStatementCounter sqlStatementCounter;
+
+    private final ObjectProvider<UserGroupCommitter> userGroupCommitter;
+
+    private final ObjectProvider<ReadWriteRoutingDataSource> readWriteRoutingDataSource;
+
+    public void recordEndpoint(String name, long nanos, long sqlStatements) {
+        endpoints.computeIfAbsent(name, key -> new Timer()).record(nanos, sqlStatements);
+    }
+
+    public void recordRepository(String name, long nanos, long sqlStatements) {
+        repository.computeIfAbsent(name, key -> new Timer()).record(nanos, sqlStatements);
+    }
+
+    public MetricsDTO getStats() {
+
+        final double uptimeSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        return MetricsDTO.builder()
+                .uptimeSeconds((long) uptimeSeconds)
+                .endpoints(toStats(endpoints, uptimeSeconds))
+                .repository(toStats(repository, uptimeSeconds))
+                .sqlStatements(sqlStatementCounter.getTotals())
+                .groupCommit(userGroupCommitter.stream()
+                        .map(committer -> committer.getStats(uptimeSeconds))
+                        .findFirst()
+                        .orElse(null))
+                .dataSourceRouting(readWriteRoutingDataSource.stream()
+                        .map(ReadWriteRoutingDataSource::getStats)
+                        .findFirst()
+                        .orElse(null))
+                .build();
+
+    }
+
+    private static List<LatencyStatsDTO> toStats(Map<String, Timer> timers, double uptimeSeconds) {
+        return timers.entrySet()
+                .stream()
+                .map(entry -> toStats(entry.getKey(), entry.getValue(), uptimeSeconds))
+                .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                .collect(Collectors.toList());
+    }
+
+    private static LatencyStatsDTO toStats(String name, Timer timer, double uptimeSeconds) {
+        return toStats(name, timer.latency, timer.sqlStatements.sum(), uptimeSeconds);
+    }
+
+    static LatencyStatsDTO toStats(String name, LatencyHistogram histogram, long sqlStatements, double uptimeSeconds) {
+
+        final long count = histogram.getCount();
+        final long[] values = histogram.getValuesAtQuantiles(QUANTILES);
+
+        return LatencyStatsDTO.builder()
+                .name(name)
+                .count(count)
+                .ratePerSecond(uptimeSeconds == 0 ? 0 : count / uptimeSeconds)
+                .meanMicros(histogram.getMeanNanos() / 1_000)
+                .p50Micros(toMicros(values[0]))
+                .p90Micros(toMicros(values[1]))
+                .p99Micros(toMicros(values[2]))
+                .p999Micros(toMicros(values[3]))
+                .maxMicros(toMicros(histogram.getMaxNanos()))
+                .meanSqlStatements(count == 0 ? 0 : (double) sqlStatements / count)
+                .build();
+
+    }
+
+    private static double toMicros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    private static final class Timer {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder sqlStatements = new LongAdder();
+
+        private void record(long nanos, long statements) {
+            latency.record(nanos);
+            sqlStatements.add(statements);
+        }
+
+    }
+
+}
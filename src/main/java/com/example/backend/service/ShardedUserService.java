@@ -0,0 +1,378 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserBatchItemResultDTO;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserBulkDeleteResultDTO;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserCursorPageDTO;
+import com.example.backend.dto.UserMultiGetResultDTO;
+import com.example.backend.dto.UserPatchDTO;
+import com.example.backend.dto.UserSearchPageDTO;
+import com.example.backend.dto.UserUpdateDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.BatchTooLargeException;
+import com.example.backend.exception.InvalidPageException;
+import com.example.backend.exception.InvalidSortException;
+import com.example.backend.shared.UserCursor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * {@link UserService} over several shards, on top of {@link UserServiceImpl} which runs unchanged on each of them.
+ * Calls on one user go to the shard named by its id, creates to the shard of the user name (see {@link UserShards}),
+ * and batches are split per shard with one transaction each; a batch spanning shards is therefore not atomic. Reads
+ * over all users ask every shard in parallel and merge the sorted results:
+ * <ul>
+ *     <li>getUsers, sliceAfter and streamUsers merge by id; streamUsers reads keyset pages instead of one snapshot</li>
+ *     <li>slice and searchUsers read offset + size rows from every shard, so pages past {@link #MAX_MERGE_OFFSET}
+ *     are rejected with 400; sliceAfter reads one page per shard at any depth</li>
+ *     <li>user names are not part of {@link UserViewDTO}, so they can not be sorted on</li>
+ * </ul>
+ */
+@Service
+@Primary
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "backend.sharding.enabled", havingValue = "true")
+public class ShardedUserService implements UserService {
+
+    static final int STREAM_PAGE_SIZE = UserServiceImpl.MAX_CURSOR_PAGE_SIZE;
+
+    // Every shard hands over this many rows at most for one offset page
+    static final int MAX_MERGE_OFFSET = 10_000;
+
+    private static final Comparator<UserViewDTO> BY_ID = Comparator.comparing(UserViewDTO::getId);
+
+    // The view properties results can be merged on
+    private static final Map<String, Comparator<UserViewDTO>> MERGE_ORDERS;
+
+    static {
+        final Map<String, Comparator<UserViewDTO>> orders = new LinkedHashMap<>();
+        orders.put("id", BY_ID);
+        orders.put("firstName", Comparator.comparing(UserViewDTO::getFirstName));
+        orders.put("lastName", Comparator.comparing(UserViewDTO::getLastName));
+        orders.put("version", Comparator.comparing(UserViewDTO::getVersion));
+        MERGE_ORDERS = Collections.unmodifiableMap(orders);
+    }
+
+    private final UserServiceImpl userService;
+
+    private final UserShards userShards;
+
+    @Override
+    public UserViewDTO getUserById(Long id) {
+        return userShards.call(userShards.shardOf(id), () -> userService.getUserById(id));
+    }
+
+    @Override
+    public List<UserViewDTO> getUsers() {
+        return UserShards.merge(userShards.scatter(shard -> userService.getUsers()), BY_ID, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public UserMultiGetResultDTO getUsersByIds(List<Long> ids) {
+
+        final List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+
+        if (distinctIds.size() > UserServiceImpl.MAX_MULTI_GET_SIZE) {
+            throw new BatchTooLargeException("Batch size must not exceed " + UserServiceImpl.MAX_MULTI_GET_SIZE + " : " + distinctIds.size());
+        }
+
+        final Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+        distinctIds.forEach(id -> idsByShard.computeIfAbsent(userShards.shardOf(id), shard -> new ArrayList<>()).add(id));
+
+        final Map<Long, UserViewDTO> found = new HashMap<>(distinctIds.size() * 2);
+        userShards.scatter(new ArrayList<>(idsByShard.keySet()), shard -> userService.getUsersByIds(idsByShard.get(shard)))
+                .forEach(result -> result.getUsers().forEach(user -> found.put(user.getId(), user)));
+
+        final List<UserViewDTO> users = new ArrayList<>(found.size());
+        final List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            final UserViewDTO user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        return new UserMultiGetResultDTO(users, missingIds);
+
+    }
+
+    @Override
+    public String getUsersETag() {
+        return userService.getUsersETag();
+    }
+
+    /**
+     * Keeps one keyset page per shard and hands out the lowest id of them, reading the next page of a shard when its
+     * current one is used up.
+     */
+    @Override
+    public void streamUsers(Consumer<UserViewDTO> action) {
+
+        final PriorityQueue<ShardPage> pages = new PriorityQueue<>(Comparator.comparing(ShardPage::head, BY_ID));
+        final List<UserCursorPageDTO> firstPages = userShards.scatter(shard -> userService.sliceAfter(null, STREAM_PAGE_SIZE));
+        for (int shard = 0; shard < firstPages.size(); shard++) {
+            if (!firstPages.get(shard).getUsers().isEmpty()) {
+                pages.add(new ShardPage(shard, firstPages.get(shard)));
+            }
+        }
+
+        while (!pages.isEmpty()) {
+
+            final ShardPage page = pages.poll();
+            action.accept(page.head());
+
+            if (++page.position < page.users.size()) {
+                pages.add(page);
+            } else if (page.nextCursor != null) {
+                final UserCursorPageDTO next = userShards.call(page.shard, () -> userService.sliceAfter(page.nextCursor, STREAM_PAGE_SIZE));
+                if (!next.getUsers().isEmpty()) {
+                    pages.add(new ShardPage(page.shard, next));
+                }
+            }
+
+        }
+
+    }
+
+    @Override
+    public UserViewDTO createUser(UserCreateDTO userCreateDTO) {
+        return userShards.call(userShards.shardOfUserName(userCreateDTO.getUserName()), () -> userService.createUser(userCreateDTO));
+    }
+
+    /**
+     * Duplicates within the batch always land on the same shard, where {@link UserServiceImpl#createUsers} reports
+     * them.
+     */
+    @Override
+    public UserBatchResultDTO createUsers(List<UserCreateDTO> userCreateDTOs) {
+
+        if (userCreateDTOs.size() > UserServiceImpl.MAX_BATCH_SIZE) {
+            throw new BatchTooLargeException("Batch size must not exceed " + UserServiceImpl.MAX_BATCH_SIZE + " : " + userCreateDTOs.size());
+        }
+
+        final UserBatchItemResultDTO[] results = new UserBatchItemResultDTO[userCreateDTOs.size()];
+        final Map<Integer, List<Integer>> indexesByShard = new TreeMap<>();
+        for (int i = 0; i < userCreateDTOs.size(); i++) {
+            if (userCreateDTOs.get(i) == null) {
+                results[i] = UserBatchItemResultDTO.failed(i, Collections.singletonList(UserServiceImpl.NULL_USER_MESSAGE));
+                continue;
+            }
+            indexesByShard.computeIfAbsent(userShards.shardOfUserName(userCreateDTOs.get(i).getUserName()), shard -> new ArrayList<>()).add(i);
+        }
+
+        final List<Integer> shards = new ArrayList<>(indexesByShard.keySet());
+        final List<UserBatchResultDTO> shardResults = userShards.scatter(shards, shard -> {
+            final List<UserCreateDTO> batch = new ArrayList<>();
+            indexesByShard.get(shard).forEach(index -> batch.add(userCreateDTOs.get(index)));
+            return userService.createUsers(batch);
+        });
+
+        for (int i = 0; i < shards.size(); i++) {
+            final List<Integer> indexes = indexesByShard.get(shards.get(i));
+            for (UserBatchItemResultDTO item : shardResults.get(i).getResults()) {
+                final int index = indexes.get(item.getIndex());
+                results[index] = new UserBatchItemResultDTO(index, item.getUser(), item.getErrors());
+            }
+        }
+
+        return new UserBatchResultDTO(Arrays.asList(results));
+
+    }
+
+    @Override
+    public UserViewDTO updateUser(Long id, UserUpdateDTO userUpdateDTO) {
+        return userShards.call(userShards.shardOf(id), () -> userService.updateUser(id, userUpdateDTO));
+    }
+
+    @Override
+    public UserViewDTO updateUser(Long id, UserUpdateDTO userUpdateDTO, Long expectedVersion) {
+        return userShards.call(userShards.shardOf(id), () -> userService.updateUser(id, userUpdateDTO, expectedVersion));
+    }
+
+    @Override
+    public UserViewDTO patchUser(Long id, UserPatchDTO userPatchDTO) {
+        return userShards.call(userShards.shardOf(id), () -> userService.patchUser(id, userPatchDTO));
+    }
+
+    @Override
+    public void deleteUser(Long id) {
+        userShards.run(userShards.shardOf(id), () -> userService.deleteUser(id));
+    }
+
+    @Override
+    public UserBulkDeleteResultDTO deleteUsers(Collection<Long> ids) {
+
+        final List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+
+        if (distinctIds.size() > UserServiceImpl.MAX_BATCH_SIZE) {
+            throw new BatchTooLargeException("Batch size must not exceed " + UserServiceImpl.MAX_BATCH_SIZE + " : " + distinctIds.size());
+        }
+
+        final Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+        distinctIds.forEach(id -> idsByShard.computeIfAbsent(userShards.shardOf(id), shard -> new ArrayList<>()).add(id));
+
+        final int deleted = userShards.scatter(new ArrayList<>(idsByShard.keySet()), shard -> userService.deleteUsers(idsByShard.get(shard)))
+                .stream()
+                .mapToInt(UserBulkDeleteResultDTO::getDeleted)
+                .sum();
+
+        return new UserBulkDeleteResultDTO(distinctIds.size(), deleted);
+
+    }
+
+    /**
+     * Unsorted pages are in id order.
+     */
+    @Override
+    public List<UserViewDTO> slice(Pageable pageable) {
+
+        final Sort sort = withIdLast(pageable.getSort());
+        final Comparator<UserViewDTO> order = mergeOrder(sort);
+        final long offset = mergeOffset(pageable.getPageNumber(), pageable.getPageSize());
+        final int rows = (int) offset + pageable.getPageSize();
+
+        return UserShards.merge(userShards.scatter(shard -> userService.slice(PageRequest.of(0, rows, sort))),
+                order, offset, pageable.getPageSize());
+
+    }
+
+    @Override
+    public UserCursorPageDTO sliceAfter(String cursor, int limit) {
+
+        final int pageSize = Math.max(1, Math.min(limit, UserServiceImpl.MAX_CURSOR_PAGE_SIZE));
+        final List<UserCursorPageDTO> shardPages = userShards.scatter(shard -> userService.sliceAfter(cursor, pageSize));
+
+        final List<List<UserViewDTO>> users = new ArrayList<>(shardPages.size());
+        boolean more = false;
+        for (UserCursorPageDTO shardPage : shardPages) {
+            users.add(shardPage.getUsers());
+            more |= shardPage.getNextCursor() != null;
+        }
+
+        // One row more than a page tells whether a next page exists, as on a single database.
+        final List<UserViewDTO> merged = UserShards.merge(users, BY_ID, 0, pageSize + 1);
+        final List<UserViewDTO> page = merged.size() > pageSize ? merged.subList(0, pageSize) : merged;
+        final boolean hasNext = merged.size() > pageSize || (more && !page.isEmpty());
+
+        return new UserCursorPageDTO(page, hasNext ? UserCursor.encode(page.get(page.size() - 1).getId()) : null);
+
+    }
+
+    @Override
+    public UserSearchPageDTO searchUsers(String firstName, String lastName, String userNamePrefix, Pageable pageable) {
+
+        final int pageSize = Math.max(1, Math.min(pageable.getPageSize(), UserServiceImpl.MAX_CURSOR_PAGE_SIZE));
+        final Sort sort = pageable.getSort();
+        // UserServiceImpl sorts on id last as well, see toSearchSort
+        final Comparator<UserViewDTO> order = mergeOrder(withIdLast(sort));
+        final long offset = mergeOffset(pageable.getPageNumber(), pageSize);
+        final int rows = (int) offset + pageSize + 1;
+
+        final List<UserViewDTO> users = UserShards.merge(
+                userShards.scatter(shard -> userService.searchViews(firstName, lastName, userNamePrefix, sort, 0, rows)),
+                order, offset, pageSize + 1);
+
+        final boolean hasNext = users.size() > pageSize;
+        return new UserSearchPageDTO(hasNext ? users.subList(0, pageSize) : users, pageable.getPageNumber(), pageSize, hasNext);
+
+    }
+
+    /**
+     * The user name picks the one shard that can hold it.
+     */
+    @Override
+    public boolean isUsernameExists(String username) {
+        return userService.isUsernameExists(username);
+    }
+
+    private static long mergeOffset(int pageNumber, int pageSize) {
+
+        final long offset = (long) pageNumber * pageSize;
+
+        if (offset > MAX_MERGE_OFFSET) {
+            throw new InvalidPageException("Page is out of range : " + pageNumber + ", offset pages end at "
+                    + MAX_MERGE_OFFSET + " rows when sharded, use the keyset endpoint beyond");
+        }
+
+        return offset;
+
+    }
+
+    /**
+     * id after the sorted properties, in the direction of the last one, makes the order total so that the shards and
+     * the merge agree on it.
+     */
+    private static Sort withIdLast(Sort sort) {
+
+        if (sort.getOrderFor("id") != null) {
+            return sort;
+        }
+
+        Sort.Direction lastDirection = Sort.Direction.ASC;
+        for (Sort.Order order : sort) {
+            lastDirection = order.getDirection();
+        }
+        return sort.and(Sort.by(lastDirection, "id"));
+
+    }
+
+    private static Comparator<UserViewDTO> mergeOrder(Sort sort) {
+
+        Comparator<UserViewDTO> comparator = null;
+        for (Sort.Order order : sort) {
+            final Comparator<UserViewDTO> property = MERGE_ORDERS.get(order.getProperty());
+            if (property == null) {
+                throw new InvalidSortException("Sort property must be one of " + MERGE_ORDERS.keySet() + " with sharding : " + order.getProperty());
+            }
+            if (order.isIgnoreCase()) {
+                throw new InvalidSortException("Case insensitive sort is not supported with sharding : " + order.getProperty());
+            }
+            final Comparator<UserViewDTO> directed = order.isAscending() ? property : property.reversed();
+            comparator = comparator == null ? directed : comparator.thenComparing(directed);
+        }
+        return comparator;
+
+    }
+
+    private static final class ShardPage {
+
+        private final int shard;
+        private final List<UserViewDTO> users;
+        private final String nextCursor;
+        private int position;
+
+        private ShardPage(int shard, UserCursorPageDTO page) {
+            this.shard = shard;
+            this.users = page.getUsers();
+            this.nextCursor = page.getNextCursor();
+        }
+
+        private UserViewDTO head() {
+            return users.get(position);
+        }
+
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.SqlStatementCountDTO;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hibernate statement inspector counting the statements Hibernate prepares, by type, both in total and per thread.
+ * A JDBC batched flush prepares its statement once and counts once, however many rows it sends. The per-thread
+ * counts only ever grow; a caller takes {@link #currentThread()} before and after a unit of work and subtracts.
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> THREAD_COUNTS =
+            ThreadLocal.withInitial(() -> new long[SqlStatementType.values().length]);
+
+    private final LongAdder[] totals = new LongAdder[SqlStatementType.values().length];
+
+    public SqlStatementCounter() {
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        final int type = SqlStatementType.of(sql).ordinal();
+        THREAD_COUNTS.get()[type]++;
+        totals[type].increment();
+        return sql;
+    }
+
+    public SqlStatementCountDTO currentThread() {
+        final long[] counts = THREAD_COUNTS.get();
+        return new SqlStatementCountDTO(counts[0], counts[1], counts[2], counts[3], counts[4]);
+    }
+
+    public long currentThreadTotal() {
+        long total = 0;
+        for (long count : THREAD_COUNTS.get()) {
+            total += count;
+        }
+        return total;
+    }
+
+    public SqlStatementCountDTO getTotals() {
+        return new SqlStatementCountDTO(totals[0].sum(), totals[1].sum(), totals[2].sum(), totals[3].sum(), totals[4].sum());
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.example.backend.service;
+
+import java.util.Locale;
+
+public enum SqlStatementType {
+
+    SELECT, INSERT, UPDATE, DELETE, OTHER;
+
+    /**
+     * Classifies by the first keyword after any leading block comments; {@code with} counts as a select.
+     */
+    public static SqlStatementType of(String sql) {
+
+        String statement = sql.trim();
+        while (statement.startsWith("/*") && statement.contains("*/")) {
+            statement = statement.substring(statement.indexOf("*/") + 2).trim();
+        }
+
+        final String keyword = statement.split("\\s", 2)[0].toLowerCase(Locale.ROOT);
+        switch (keyword) {
+            case "select":
+            case "with":
+                return SELECT;
+            case "insert":
+                return INSERT;
+            case "update":
+                return UPDATE;
+            case "delete":
+                return DELETE;
+            default:
+                return OTHER;
+        }
+
+    }
+
+}
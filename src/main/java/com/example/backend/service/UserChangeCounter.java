@@ -0,0 +1,43 @@
+package com.example.backend.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collection-wide change counter behind the ETag of {@code GET /api/v1/user}. The counter is bumped after the
+ * writing transaction completes and read before the list is, so a tag is never newer than the data sent with it.
+ * The startup time is part of the tag so a restart can not reproduce an old tag for different data.
+ * <p>
+ * The tag is weak: it names a version of the collection, not the bytes, which differ between formats and between
+ * gzip and identity encoding. Tomcat also compresses only responses without a strong ETag.
+ */
+@Component
+public class UserChangeCounter {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong changes = new AtomicLong();
+
+    public void onChange() {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changes.incrementAndGet();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                changes.incrementAndGet();
+            }
+        });
+
+    }
+
+    public String getETag() {
+        return "W/\"" + epoch + "-" + changes.get() + "\"";
+    }
+
+}
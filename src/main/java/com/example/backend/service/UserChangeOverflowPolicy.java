@@ -0,0 +1,13 @@
+package com.example.backend.service;
+
+/**
+ * What {@link UserChangeStream} does when a subscriber's buffer is full.
+ */
+public enum UserChangeOverflowPolicy {
+
+    // Discards the oldest buffered event; the subscriber sees a gap in the sequence numbers.
+    DROP_OLDEST,
+    // Closes the stream; the client reconnects with Last-Event-ID and catches up from the replay window.
+    DISCONNECT
+
+}
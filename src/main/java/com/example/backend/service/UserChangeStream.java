@@ -0,0 +1,473 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserChangeEventDTO;
+import com.example.backend.dto.UserChangeStreamStatsDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.UserChangeStreamFullException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-Sent Events behind {@code GET /api/v1/user/changes}: one event per committed create, update and delete, in
+ * commit order, numbered by a sequence that is the SSE id together with the startup time.
+ * <p>
+ * Subscribers hold no thread while idle. Each one has a bounded buffer that a small dispatcher pool drains, one drain
+ * task per subscriber at a time; when it is full the overflow policy drops the oldest event or closes the stream.
+ * Sends are blocking servlet writes, so a client that stops reading holds a dispatcher thread until the container's
+ * write timeout. A send still in flight after send-timeout-ms marks the subscriber as stalled: it is disconnected and
+ * the pool gets a thread in its place until the send returns, so the other subscribers keep receiving their events.
+ * While a send is in flight the emitter is only completed by the sending thread, since its methods share one lock.
+ * <p>
+ * A client reconnecting with {@code Last-Event-ID} is sent the events it missed from an in-memory window of the
+ * latest replay-size events; when they are no longer there, or the id is from before a restart, it gets a
+ * {@value #RESET_EVENT} event and should re-read the users it tracks.
+ */
+@Slf4j
+@Component
+public class UserChangeStream {
+
+    static final String RESET_EVENT = "reset";
+
+    // Bounds the events one drain task sends before yielding the dispatcher thread to other subscribers.
+    private static final int DRAIN_BATCH = 256;
+
+    private static final Event HEARTBEAT = new Event(-1, null, null);
+
+    // Subscriber.state values
+    private static final int IDLE = 0;
+    private static final int SENDING = 1;
+    private static final int STALLED = 2;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ObjectMapper objectMapper;
+    private final int replaySize;
+    private final int bufferSize;
+    private final UserChangeOverflowPolicy overflowPolicy;
+    private final int maxSubscribers;
+    private final long emitterTimeoutMs;
+    private final long sendTimeoutNanos;
+    private final ThreadPoolExecutor dispatcher;
+
+    // Guarded by this, as is adding a subscriber, so a replay and the live events after it neither overlap nor gap.
+    private final ArrayDeque<Event> replay = new ArrayDeque<>();
+    private long lastSequence;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+    private final LongAdder stalled = new LongAdder();
+
+    public UserChangeStream(ObjectMapper objectMapper,
+                            @Value("${backend.user-changes.replay-size:10000}") int replaySize,
+                            @Value("${backend.user-changes.buffer-size:1000}") int bufferSize,
+                            @Value("${backend.user-changes.overflow-policy:DISCONNECT}") UserChangeOverflowPolicy overflowPolicy,
+                            @Value("${backend.user-changes.max-subscribers:5000}") int maxSubscribers,
+                            @Value("${backend.user-changes.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                            @Value("${backend.user-changes.send-timeout-ms:5000}") long sendTimeoutMs,
+                            @Value("${backend.user-changes.dispatch-threads:2}") int dispatchThreads) {
+
+        this.objectMapper = objectMapper;
+        this.replaySize = replaySize;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.overflowPolicy = overflowPolicy;
+        this.maxSubscribers = maxSubscribers;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+
+        final AtomicInteger threads = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(Math.max(1, dispatchThreads), Math.max(1, dispatchThreads),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "user-changes-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    }
+
+    public void onCreate(UserViewDTO user) {
+        publish(UserChangeType.CREATED, user.getId(), user);
+    }
+
+    public void onUpdate(UserViewDTO user) {
+        publish(UserChangeType.UPDATED, user.getId(), user);
+    }
+
+    public void onDelete(Collection<Long> ids) {
+        final List<Long> removed = new ArrayList<>(ids);
+        afterCommit(() -> removed.forEach(id -> append(UserChangeType.DELETED, id, null)));
+    }
+
+    /**
+     * A null lastEventId starts with the next change.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+
+        if (subscribers.size() >= maxSubscribers) {
+            throw new UserChangeStreamFullException("User change stream is at its limit of " + maxSubscribers + " subscribers");
+        }
+
+        final SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        register(emitter, lastEventId);
+        return emitter;
+
+    }
+
+    /**
+     * A comment line on idle streams, so proxies keep them open and closed connections are noticed.
+     */
+    @Scheduled(fixedDelayString = "${backend.user-changes.heartbeat-interval-ms:15000}",
+            initialDelayString = "${backend.user-changes.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    /**
+     * Disconnects subscribers whose send has been in flight for longer than send-timeout-ms.
+     */
+    @Scheduled(fixedDelayString = "${backend.user-changes.send-timeout-ms:5000}",
+            initialDelayString = "${backend.user-changes.send-timeout-ms:5000}")
+    public void checkStalls() {
+        final long now = System.nanoTime();
+        subscribers.forEach(subscriber -> subscriber.checkStall(now));
+    }
+
+    public UserChangeStreamStatsDTO getStats() {
+
+        synchronized (this) {
+            return UserChangeStreamStatsDTO.builder()
+                    .subscribers(subscribers.size())
+                    .maxSubscribers(maxSubscribers)
+                    .lastSequence(lastSequence)
+                    .replayEvents(replay.size())
+                    .publishedCount(published.sum())
+                    .droppedCount(dropped.sum())
+                    .disconnectedCount(disconnected.sum())
+                    .resetCount(resets.sum())
+                    .stalledCount(stalled.sum())
+                    .build();
+        }
+
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.close(true));
+        dispatcher.shutdownNow();
+    }
+
+    void register(SseEmitter emitter, String lastEventId) {
+
+        final Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscriber.close(false));
+        emitter.onError(e -> subscriber.close(false));
+        emitter.onTimeout(() -> subscriber.close(true));
+
+        synchronized (this) {
+
+            if (lastEventId != null) {
+                final List<Event> missed = missedSince(lastEventId);
+                if (missed != null) {
+                    missed.forEach(subscriber::offer);
+                } else {
+                    resets.increment();
+                    subscriber.offer(new Event(lastSequence, RESET_EVENT, RESET_EVENT));
+                }
+            }
+            subscribers.add(subscriber);
+
+        }
+
+        // Sends the response headers right away instead of with the first change.
+        subscriber.heartbeat();
+
+    }
+
+    /**
+     * Null when the events after lastEventId can not all be sent: the id is malformed, from another epoch, older
+     * than the replay window, or more events behind than the buffer holds.
+     */
+    private List<Event> missedSince(String lastEventId) {
+
+        final int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+
+        final long after;
+        try {
+            after = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        final long firstReplayable = replay.isEmpty() ? lastSequence + 1 : replay.peekFirst().sequence;
+        if (after > lastSequence || after < firstReplayable - 1 || lastSequence - after > bufferSize) {
+            return null;
+        }
+
+        final List<Event> missed = new ArrayList<>((int) (lastSequence - after));
+        for (Event event : replay) {
+            if (event.sequence > after) {
+                missed.add(event);
+            }
+        }
+        return missed;
+
+    }
+
+    private void publish(UserChangeType type, Long userId, UserViewDTO user) {
+        afterCommit(() -> append(type, userId, user));
+    }
+
+    /**
+     * The event is serialized once here rather than per subscriber.
+     */
+    private synchronized void append(UserChangeType type, Long userId, UserViewDTO user) {
+
+        final long sequence = lastSequence + 1;
+        final String data;
+        try {
+            data = objectMapper.writeValueAsString(new UserChangeEventDTO(sequence, type, userId, user));
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize the {} event of user {}", type, userId, e);
+            return;
+        }
+
+        final Event event = new Event(sequence, type.name().toLowerCase(Locale.ROOT), data);
+        lastSequence = sequence;
+        replay.addLast(event);
+        while (replay.size() > replaySize) {
+            replay.removeFirst();
+        }
+        published.increment();
+
+        subscribers.forEach(subscriber -> subscriber.offer(event));
+
+    }
+
+    /**
+     * Rolled back writes are never published.
+     */
+    private static void afterCommit(Runnable action) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+
+    }
+
+    /**
+     * Grows or shrinks the dispatcher pool by one thread for a stalled send.
+     */
+    private void resizeDispatcher(int delta) {
+        synchronized (dispatcher) {
+            final int size = dispatcher.getCorePoolSize() + delta;
+            if (delta > 0) {
+                dispatcher.setMaximumPoolSize(size);
+                dispatcher.setCorePoolSize(size);
+            } else {
+                dispatcher.setCorePoolSize(size);
+                dispatcher.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private String id(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private static final class Event {
+
+        private final long sequence;
+        private final String name;
+        private final String data;
+
+        private Event(long sequence, String name, String data) {
+            this.sequence = sequence;
+            this.name = name;
+            this.data = data;
+        }
+
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private volatile long sendStarted;
+        private volatile boolean closed;
+        private volatile boolean completePending;
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void offer(Event event) {
+
+            if (closed) {
+                return;
+            }
+
+            while (!buffer.offer(event)) {
+                if (overflowPolicy == UserChangeOverflowPolicy.DISCONNECT) {
+                    disconnected.increment();
+                    close(true);
+                    return;
+                }
+                if (buffer.poll() != null) {
+                    dropped.increment();
+                }
+            }
+            schedule();
+
+        }
+
+        private void heartbeat() {
+            if (buffer.isEmpty()) {
+                offer(HEARTBEAT);
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+
+            try {
+                for (int sent = 0; sent < DRAIN_BATCH && !closed; sent++) {
+                    final Event event = buffer.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    sendStarted = System.nanoTime();
+                    state.set(SENDING);
+                    try {
+                        // Rechecked now that close() can see the send
+                        if (closed) {
+                            break;
+                        }
+                        send(event);
+                    } finally {
+                        sendReturned();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container completes the emitter.
+                log.debug("Closing user change subscriber: {}", e.getMessage());
+                close(false);
+            } finally {
+                scheduled.set(false);
+            }
+
+            if (!closed && !buffer.isEmpty()) {
+                schedule();
+            }
+
+        }
+
+        private void send(Event event) throws IOException {
+
+            if (event == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment(""));
+                return;
+            }
+
+            emitter.send(SseEmitter.event()
+                    .id(id(event.sequence))
+                    .name(event.name)
+                    .data(event.data, MediaType.TEXT_PLAIN));
+
+        }
+
+        private void sendReturned() {
+
+            if (!state.compareAndSet(SENDING, IDLE)) {
+                // Stalled meanwhile: the subscriber is closed and the pool has a thread in place of this one.
+                state.set(IDLE);
+                resizeDispatcher(-1);
+            }
+            completeIfIdle();
+
+        }
+
+        private void checkStall(long now) {
+
+            if (state.get() == SENDING && now - sendStarted > sendTimeoutNanos && state.compareAndSet(SENDING, STALLED)) {
+                log.debug("Closing user change subscriber, its send is stalled");
+                stalled.increment();
+                disconnected.increment();
+                resizeDispatcher(1);
+                close(true);
+            }
+
+        }
+
+        /**
+         * With complete, the emitter is completed at once when no send is in flight, and otherwise by the sending
+         * thread when its send returns, rather than waiting for the emitter's lock here.
+         */
+        private void close(boolean complete) {
+
+            closed = true;
+            subscribers.remove(this);
+            buffer.clear();
+            if (complete) {
+                completePending = true;
+                completeIfIdle();
+            }
+
+        }
+
+        private void completeIfIdle() {
+            if (completePending && state.get() == IDLE && completed.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.example.backend.service;
+
+public enum UserChangeType {
+
+    CREATED,
+    UPDATED,
+    DELETED
+
+}
@@ -0,0 +1,18 @@
+package com.example.backend.service;
+
+public enum UserExportFormat {
+
+    CSV("csv"),
+    BINARY("bin");
+
+    private final String extension;
+
+    UserExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+}
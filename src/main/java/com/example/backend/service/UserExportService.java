@@ -0,0 +1,13 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserExportDTO;
+
+import java.nio.file.Path;
+
+public interface UserExportService {
+
+    UserExportDTO exportUsers(UserExportFormat format);
+
+    Path getExportFile(String name);
+
+}
@@ -0,0 +1,260 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserExportDTO;
+import com.example.backend.exception.ExportNotFoundException;
+import com.example.backend.model.User;
+import com.example.backend.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Splits the id space into ranges and exports them in parallel on a fork/join pool, every range in its own read-only
+ * transaction and into its own part file. The parts are then concatenated in id order with
+ * {@link FileChannel#transferTo}, so rows are never held on the heap beyond the current one. With several shards each
+ * shard's id space is split on its own and the file is in id order per shard.
+ * <p>
+ * Binary records are {@code long id} followed by user name, first name and last name in modified UTF-8
+ * ({@link DataOutputStream#writeUTF}), behind the {@link #BINARY_MAGIC} header.
+ */
+@Slf4j
+@Service
+public class UserExportServiceImpl implements UserExportService {
+
+    static final String CSV_HEADER = "id,user_name,first_name,last_name\n";
+
+    static final int BINARY_MAGIC = 0x55535231;
+
+    private static final Pattern EXPORT_NAME = Pattern.compile("users-[0-9T-]+\\.(csv|bin)");
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS");
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final UserShards userShards;
+    private final Path directory;
+    private final long rangeSize;
+    private final int parallelism;
+
+    public UserExportServiceImpl(UserRepository userRepository,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 UserShards userShards,
+                                 @Value("${backend.user-export.directory:${java.io.tmpdir}/user-exports}") String directory,
+                                 @Value("${backend.user-export.range-size:50000}") long rangeSize,
+                                 @Value("${backend.user-export.parallelism:0}") int parallelism) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.userShards = userShards;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.rangeSize = Math.max(1, rangeSize);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Scheduled(cron = "${backend.user-export.cron:-}")
+    public void scheduledExport() {
+        exportUsers(UserExportFormat.CSV);
+    }
+
+    @Override
+    public UserExportDTO exportUsers(UserExportFormat format) {
+
+        final long start = System.nanoTime();
+        final String name = "users-" + LocalDateTime.now().format(TIMESTAMP) + "." + format.getExtension();
+
+        final List<Path> parts = new ArrayList<>();
+
+        try {
+            Files.createDirectories(directory);
+
+            final List<ForkJoinTask<Long>> tasks = new ArrayList<>();
+            // Ids of one shard are shards apart, so a range spans that many ids for rangeSize rows.
+            final long rangeIds = rangeSize * userShards.count();
+
+            for (int shard = 0; shard < userShards.count(); shard++) {
+
+                final int owner = shard;
+                final Long minId = userShards.call(owner, userRepository::findMinId);
+                final Long maxId = userShards.call(owner, userRepository::findMaxId);
+
+                if (minId != null) {
+                    for (long from = minId; from <= maxId; from += rangeIds) {
+                        final long fromId = from;
+                        final long toId = Math.min(from + rangeIds - 1, maxId);
+                        final Path part = Files.createTempFile(directory, name + ".", ".part");
+                        parts.add(part);
+                        tasks.add(ForkJoinTask.adapt(() -> userShards.call(owner, () -> exportRange(fromId, toId, part, format))));
+                    }
+                }
+
+            }
+
+            final ForkJoinPool pool = new ForkJoinPool(parallelism);
+            long rows = 0;
+            try {
+                tasks.forEach(pool::execute);
+                for (ForkJoinTask<Long> task : tasks) {
+                    rows += task.join();
+                }
+            } finally {
+                pool.shutdown();
+            }
+
+            final Path target = directory.resolve(name);
+            final long bytes = concatenate(parts, target, format);
+
+            final UserExportDTO export = UserExportDTO.builder()
+                    .name(name)
+                    .format(format)
+                    .rows(rows)
+                    .bytes(bytes)
+                    .ranges(parts.size())
+                    .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                    .build();
+            log.info("Exported {} users to {} ({} bytes, {} ranges) in {} ms",
+                    rows, target, bytes, parts.size(), export.getElapsedMillis());
+            return export;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            parts.forEach(UserExportServiceImpl::deleteQuietly);
+        }
+
+    }
+
+    @Override
+    public Path getExportFile(String name) {
+
+        final Path file = directory.resolve(name).normalize();
+
+        if (!EXPORT_NAME.matcher(name).matches() || !file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new ExportNotFoundException("Export not found : " + name);
+        }
+
+        return file;
+
+    }
+
+    private long exportRange(long fromId, long toId, Path part, UserExportFormat format) {
+
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(part), 1 << 16);
+             DataOutputStream output = new DataOutputStream(outputStream)) {
+
+            final Long rows = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<User> users = userRepository.streamByIdBetween(fromId, toId)) {
+                    for (User user : (Iterable<User>) users::iterator) {
+                        write(output, user, format);
+                        entityManager.detach(user);
+                        count++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+
+            return rows == null ? 0 : rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+    }
+
+    private static void write(DataOutputStream output, User user, UserExportFormat format) throws IOException {
+
+        if (format == UserExportFormat.BINARY) {
+            output.writeLong(user.getId());
+            output.writeUTF(user.getUserName());
+            output.writeUTF(user.getFirstName());
+            output.writeUTF(user.getLastName());
+            return;
+        }
+
+        final String line = user.getId() + "," + csvField(user.getUserName()) + "," + csvField(user.getFirstName())
+                + "," + csvField(user.getLastName()) + "\n";
+        output.write(line.getBytes(StandardCharsets.UTF_8));
+
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete export part {}", path, e);
+        }
+    }
+
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Writes the header and appends the parts in id order, then publishes the file with an atomic rename so a
+     * half-written export is never served.
+     */
+    private long concatenate(List<Path> parts, Path target, UserExportFormat format) throws IOException {
+
+        final Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            final ByteBuffer header = format == UserExportFormat.BINARY
+                    ? (ByteBuffer) ByteBuffer.allocate(Integer.BYTES).putInt(BINARY_MAGIC).flip()
+                    : ByteBuffer.wrap(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+
+            for (Path part : parts) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    final long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+
+            out.force(false);
+        }
+
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(target);
+
+    }
+
+}
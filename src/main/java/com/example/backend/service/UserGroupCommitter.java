@@ -0,0 +1,241 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserBatchItemResultDTO;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserGroupCommitStatsDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.UserCreateQueueFullException;
+import com.example.backend.exception.UserCreateRejectedException;
+import com.example.backend.shared.LatencyHistogram;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in ({@code backend.user-group-commit.enabled=true}) write-behind path for single user creation. Requests are
+ * queued into a bounded buffer and flusher threads write them through {@link UserService#createUsers(List)}, one
+ * transaction per max-batch-size rows or max-delay-ms, whichever comes first. With more than one flusher the next
+ * batch fills while the previous one commits. Every caller blocks until the
+ * transaction holding its row has committed, so a 200 still means the row is durable; only the commit is shared.
+ * <p>
+ * When the buffer is full for longer than offer-timeout-ms the request is answered with 503, and so is a caller whose
+ * row has not committed within result-timeout-ms. If the database rejects a whole batch, its rows are retried one
+ * transaction each so that only the offending rows fail.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "backend.user-group-commit.enabled", havingValue = "true")
+public class UserGroupCommitter {
+
+    // How long an idle flusher waits before it checks whether it should stop
+    private static final long IDLE_POLL_MS = 50;
+
+    private final UserService userService;
+    private final BlockingQueue<PendingCreate> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long offerTimeoutMs;
+    private final long resultTimeoutMs;
+
+    private final List<Thread> flushers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public UserGroupCommitter(UserService userService,
+                              @Value("${backend.user-group-commit.queue-capacity:10000}") int queueCapacity,
+                              @Value("${backend.user-group-commit.max-batch-size:200}") int maxBatchSize,
+                              @Value("${backend.user-group-commit.max-delay-ms:5}") long maxDelayMs,
+                              @Value("${backend.user-group-commit.offer-timeout-ms:1000}") long offerTimeoutMs,
+                              @Value("${backend.user-group-commit.result-timeout-ms:30000}") long resultTimeoutMs,
+                              @Value("${backend.user-group-commit.flusher-threads:2}") int flusherThreads) {
+        this.userService = userService;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, UserServiceImpl.MAX_BATCH_SIZE));
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxDelayMs));
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.resultTimeoutMs = resultTimeoutMs;
+        for (int i = 0; i < Math.max(1, flusherThreads); i++) {
+            final Thread flusher = new Thread(this::run, "user-group-commit-" + i);
+            flusher.setDaemon(true);
+            flushers.add(flusher);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        flushers.forEach(Thread::start);
+    }
+
+    /**
+     * Flushes whatever is still queued before the datasource goes away. Flushers are not interrupted, one may be in
+     * the middle of a JDBC or file write; idle ones notice within IDLE_POLL_MS.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread flusher : flushers) {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+
+        // Offers racing with shutdown
+        final List<PendingCreate> stranded = new ArrayList<>();
+        queue.drainTo(stranded);
+        stranded.forEach(pending -> pending.result.completeExceptionally(
+                new UserCreateQueueFullException("User creation queue is shutting down, retry later")));
+    }
+
+    /**
+     * Queues the user and waits until the transaction holding it has committed. A row still queued when the wait times
+     * out is withdrawn; one that is already part of a flushing batch may still be created after the 503.
+     */
+    public UserViewDTO createUser(UserCreateDTO userCreateDTO) {
+
+        final PendingCreate pending = new PendingCreate(userCreateDTO);
+
+        try {
+            if (!running || !queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new UserCreateQueueFullException("User creation queue is full, retry later");
+            }
+            return pending.result.get(resultTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            rejected.increment();
+            throw new UserCreateQueueFullException(queue.remove(pending)
+                    ? "User creation queue did not drain in time, retry later"
+                    : "User creation did not commit in time, it may still have been created");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the group commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+    }
+
+    public UserGroupCommitStatsDTO getStats(double uptimeSeconds) {
+
+        final long batchCount = batches.sum();
+        final long rowCount = rows.sum();
+
+        return UserGroupCommitStatsDTO.builder()
+                .queueDepth(queue.size())
+                .queueCapacity(queue.size() + queue.remainingCapacity())
+                .batches(batchCount)
+                .rows(rowCount)
+                .meanBatchSize(batchCount == 0 ? 0 : (double) rowCount / batchCount)
+                .rejected(rejected.sum())
+                .flush(RequestMetrics.toStats("flush", flushLatency, 0, uptimeSeconds))
+                .build();
+
+    }
+
+    private void run() {
+
+        final List<PendingCreate> batch = new ArrayList<>(maxBatchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                if (running) {
+                    final PendingCreate first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    final long deadline = System.nanoTime() + maxDelayNanos;
+                    while (batch.size() < maxBatchSize) {
+                        final PendingCreate next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                    }
+                } else {
+                    queue.drainTo(batch, maxBatchSize);
+                }
+            } catch (InterruptedException e) {
+                // Not from stop(); flush what was collected, the loop condition decides whether to go on
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+
+    }
+
+    private void flush(List<PendingCreate> batch) {
+
+        final long start = System.nanoTime();
+        final List<UserCreateDTO> userCreateDTOs = new ArrayList<>(batch.size());
+        batch.forEach(pending -> userCreateDTOs.add(pending.userCreateDTO));
+
+        try {
+            final UserBatchResultDTO result = userService.createUsers(userCreateDTOs);
+            for (UserBatchItemResultDTO item : result.getResults()) {
+                final PendingCreate pending = batch.get(item.getIndex());
+                if (item.getUser() != null) {
+                    pending.result.complete(item.getUser());
+                } else {
+                    pending.result.completeExceptionally(new UserCreateRejectedException(String.join(", ", item.getErrors())));
+                }
+            }
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Group commit of {} users rejected, retrying them one by one", batch.size(), e);
+            batch.forEach(this::createAlone);
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+
+        flushLatency.record(System.nanoTime() - start);
+        batches.increment();
+        rows.add(batch.size());
+
+    }
+
+    private void createAlone(PendingCreate pending) {
+        try {
+            pending.result.complete(userService.createUser(pending.userCreateDTO));
+        } catch (DataIntegrityViolationException e) {
+            // The same name committed by another flusher after this batch was checked.
+            pending.result.completeExceptionally(new UserCreateRejectedException(UserServiceImpl.DUPLICATE_USER_NAME_MESSAGE));
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingCreate {
+
+        private final UserCreateDTO userCreateDTO;
+        private final CompletableFuture<UserViewDTO> result = new CompletableFuture<>();
+
+        private PendingCreate(UserCreateDTO userCreateDTO) {
+            this.userCreateDTO = userCreateDTO;
+        }
+
+    }
+
+}
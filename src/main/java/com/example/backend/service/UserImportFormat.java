@@ -0,0 +1,8 @@
+package com.example.backend.service;
+
+public enum UserImportFormat {
+
+    NDJSON,
+    CSV
+
+}
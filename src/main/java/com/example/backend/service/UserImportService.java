@@ -0,0 +1,12 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserImportResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface UserImportService {
+
+    UserImportResultDTO importUsers(InputStream body, UserImportFormat format) throws IOException;
+
+}
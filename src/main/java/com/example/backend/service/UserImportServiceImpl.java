@@ -0,0 +1,305 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserBatchItemResultDTO;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserImportErrorDTO;
+import com.example.backend.dto.UserImportResultDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the upload line by line and hands it to {@link UserService#createUsers(List)} in chunks, each chunk in its
+ * own transaction. Parsing runs on the request thread and only continues once the previous chunk is committed, so the
+ * parser can never run ahead of the database and memory is bounded by the chunk size. Lines longer than
+ * max-line-length characters are not buffered; they are skipped and reported as failed.
+ */
+@Slf4j
+@Service
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final List<String> CSV_HEADER = Arrays.asList("username", "firstname", "lastname");
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+    private final int maxLineLength;
+
+    public UserImportServiceImpl(UserService userService,
+                                 ObjectMapper objectMapper,
+                                 @Value("${backend.user-import.chunk-size:1000}") int chunkSize,
+                                 @Value("${backend.user-import.max-reported-errors:1000}") int maxReportedErrors,
+                                 @Value("${backend.user-import.max-line-length:8192}") int maxLineLength) {
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, Math.min(chunkSize, UserServiceImpl.MAX_BATCH_SIZE));
+        this.maxReportedErrors = maxReportedErrors;
+        this.maxLineLength = Math.max(1, maxLineLength);
+    }
+
+    @Override
+    public UserImportResultDTO importUsers(InputStream body, UserImportFormat format) throws IOException {
+
+        final Progress progress = new Progress();
+        final List<UserCreateDTO> chunk = new ArrayList<>(chunkSize);
+        final List<Long> chunkLines = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+
+            final BoundedLineReader lines = new BoundedLineReader(reader, maxLineLength);
+            long lineNumber = 0;
+
+            while (lines.next()) {
+
+                lineNumber++;
+
+                if (lines.oversized) {
+                    progress.rows++;
+                    progress.fail(lineNumber, Collections.singletonList("Line is longer than " + maxLineLength + " characters"));
+                    continue;
+                }
+
+                final String line = lines.line.toString();
+                if (line.trim().isEmpty() || (format == UserImportFormat.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                    continue;
+                }
+
+                progress.rows++;
+
+                try {
+                    chunk.add(parse(line, format));
+                    chunkLines.add(lineNumber);
+                } catch (JsonProcessingException e) {
+                    progress.fail(lineNumber, Collections.singletonList("Malformed JSON : " + e.getOriginalMessage()));
+                } catch (IllegalArgumentException e) {
+                    progress.fail(lineNumber, Collections.singletonList(e.getMessage()));
+                }
+
+                if (chunk.size() == chunkSize) {
+                    flush(chunk, chunkLines, progress);
+                }
+
+            }
+
+        }
+
+        flush(chunk, chunkLines, progress);
+
+        final UserImportResultDTO result = progress.toResult();
+        log.info("User import finished : {} rows, {} created, {} failed, {} rows/s",
+                result.getRows(), result.getCreated(), result.getFailed(), Math.round(result.getRowsPerSecond()));
+        return result;
+
+    }
+
+    private void flush(List<UserCreateDTO> chunk, List<Long> chunkLines, Progress progress) {
+
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        try {
+            final UserBatchResultDTO result = userService.createUsers(new ArrayList<>(chunk));
+            progress.created += result.getCreated();
+            for (UserBatchItemResultDTO item : result.getResults()) {
+                if (item.getUser() == null) {
+                    progress.fail(chunkLines.get(item.getIndex()), item.getErrors());
+                }
+            }
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent writer took one of the names after the uniqueness check; only this chunk is rejected.
+            final List<String> errors = Collections.singletonList("Chunk rejected by the database : " + e.getMostSpecificCause().getMessage());
+            chunkLines.forEach(line -> progress.fail(line, errors));
+        }
+
+        chunk.clear();
+        chunkLines.clear();
+        progress.report();
+
+    }
+
+    private UserCreateDTO parse(String line, UserImportFormat format) throws JsonProcessingException {
+
+        if (format == UserImportFormat.NDJSON) {
+            final UserCreateDTO userCreateDTO = objectMapper.readValue(line, UserCreateDTO.class);
+            if (userCreateDTO == null) {
+                // The line is the JSON literal null
+                throw new IllegalArgumentException("Expected a JSON object but found null");
+            }
+            return userCreateDTO;
+        }
+
+        final List<String> columns = parseCsvLine(line);
+        if (columns.size() != CSV_HEADER.size()) {
+            throw new IllegalArgumentException("Expected " + CSV_HEADER.size() + " columns but found " + columns.size());
+        }
+        return UserCreateDTO.builder()
+                .userName(columns.get(0))
+                .firstName(columns.get(1))
+                .lastName(columns.get(2))
+                .build();
+
+    }
+
+    private static boolean isCsvHeader(String line) {
+        final List<String> columns = new ArrayList<>();
+        for (String column : parseCsvLine(line)) {
+            columns.add(column.trim().replace("_", "").toLowerCase());
+        }
+        return columns.equals(CSV_HEADER);
+    }
+
+    /**
+     * RFC 4180 fields on a single line: optional double quotes, "" as an escaped quote.
+     */
+    static List<String> parseCsvLine(String line) {
+
+        final List<String> columns = new ArrayList<>();
+        final StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        columns.add(current.toString());
+        return columns;
+
+    }
+
+    /**
+     * {@link BufferedReader#readLine()} that keeps at most maxLength characters of a line; the rest of a longer line
+     * is read and dropped, and the line is marked oversized.
+     */
+    private static final class BoundedLineReader {
+
+        private final Reader reader;
+        private final int maxLength;
+        private final StringBuilder line = new StringBuilder();
+        private boolean oversized;
+        private boolean skipLineFeed;
+
+        private BoundedLineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * Reads the next line ending in \n, \r or \r\n; false at the end of the input.
+         */
+        private boolean next() throws IOException {
+
+            line.setLength(0);
+            oversized = false;
+            boolean read = false;
+
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (c == '\n') {
+                        continue;
+                    }
+                }
+                read = true;
+                if (c == '\n' || c == '\r') {
+                    skipLineFeed = c == '\r';
+                    return true;
+                }
+                if (line.length() < maxLength) {
+                    line.append((char) c);
+                } else {
+                    oversized = true;
+                }
+            }
+            return read;
+
+        }
+
+    }
+
+    private final class Progress {
+
+        private final long start = System.nanoTime();
+        private long lastReport = start;
+        private long rows;
+        private long created;
+        private long failed;
+        private final List<UserImportErrorDTO> errors = new ArrayList<>();
+
+        private void fail(long line, List<String> messages) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new UserImportErrorDTO(line, messages));
+            }
+        }
+
+        private void report() {
+            final long now = System.nanoTime();
+            if (now - lastReport >= PROGRESS_INTERVAL_NANOS) {
+                lastReport = now;
+                log.info("User import in progress : {} rows, {} created, {} failed, {} rows/s",
+                        rows, created, failed, Math.round(rowsPerSecond(now)));
+            }
+        }
+
+        private double rowsPerSecond(long now) {
+            final long elapsed = now - start;
+            return elapsed == 0 ? 0 : rows * 1e9 / elapsed;
+        }
+
+        private UserImportResultDTO toResult() {
+            final long now = System.nanoTime();
+            return UserImportResultDTO.builder()
+                    .rows(rows)
+                    .created(created)
+                    .failed(failed)
+                    .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(now - start))
+                    .rowsPerSecond(rowsPerSecond(now))
+                    .errors(errors)
+                    .errorsTruncated(failed > errors.size())
+                    .build();
+        }
+
+    }
+
+}
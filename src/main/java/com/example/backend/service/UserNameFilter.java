@@ -0,0 +1,169 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserNameFilterStatsDTO;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.shared.ScalableBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over user_name in front of {@link UserRepository#existsUserByUserName(String)}. A definite negative is
+ * answered without SQL, "maybe present" falls through to the repository. Deleted names can not be removed from a
+ * Bloom filter, so the filter is rebuilt from the table on a schedule; until the first build finishes every lookup
+ * goes to the repository. With several shards a user name is looked up on the shard it would be placed on, and the
+ * filter is built from all of them.
+ */
+@Slf4j
+@Component
+public class UserNameFilter {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserShards userShards;
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile ScalableBloomFilter filter;
+    // Names put since the last rebuild started; their rows may not have been visible to the rebuild scan.
+    private Set<String> recentNames = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder queriesSaved = new LongAdder();
+    private final LongAdder queriesIssued = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder deletesSinceRebuild = new LongAdder();
+
+    public UserNameFilter(UserRepository userRepository,
+                          TransactionTemplate transactionTemplate,
+                          UserShards userShards,
+                          @Value("${backend.username-filter.expected-insertions:100000}") int expectedInsertions,
+                          @Value("${backend.username-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.userShards = userShards;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public boolean exists(String username) {
+
+        final ScalableBloomFilter current = filter;
+
+        if (current != null && !current.mightContain(username)) {
+            queriesSaved.increment();
+            return false;
+        }
+
+        queriesIssued.increment();
+        final boolean exists = userShards.call(userShards.shardOfUserName(username),
+                () -> userRepository.existsUserByUserName(username));
+        if (current != null && !exists) {
+            falsePositives.increment();
+        }
+        return exists;
+
+    }
+
+    /**
+     * Must be called before the row is inserted so no reader can see the row while the filter still says "absent".
+     */
+    public void put(String username) {
+        lock.readLock().lock();
+        try {
+            final ScalableBloomFilter current = filter;
+            if (current != null) {
+                current.put(username);
+            }
+            recentNames.add(username);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void onDelete() {
+        deletesSinceRebuild.increment();
+    }
+
+    public void onDelete(long count) {
+        deletesSinceRebuild.add(count);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${backend.username-filter.rebuild-interval-ms:3600000}",
+            initialDelayString = "${backend.username-filter.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+
+        final long start = System.nanoTime();
+        final Set<String> previousNames;
+
+        lock.writeLock().lock();
+        try {
+            previousNames = recentNames;
+            recentNames = ConcurrentHashMap.newKeySet();
+            deletesSinceRebuild.reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        final ScalableBloomFilter rebuilt = new ScalableBloomFilter(expectedInsertions, falsePositiveRate);
+        for (int shard = 0; shard < userShards.count(); shard++) {
+            userShards.run(shard, () -> transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> userNames = userRepository.streamUserNames()) {
+                    userNames.forEach(rebuilt::put);
+                }
+            }));
+        }
+
+        lock.writeLock().lock();
+        try {
+            previousNames.forEach(rebuilt::put);
+            recentNames.forEach(rebuilt::put);
+            filter = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Username filter rebuilt with {} names in {} ms, expected false positive rate {}",
+                rebuilt.getApproximateElementCount(), (System.nanoTime() - start) / 1_000_000,
+                rebuilt.getExpectedFalsePositiveRate());
+
+    }
+
+    public UserNameFilterStatsDTO getStats() {
+
+        final ScalableBloomFilter current = filter;
+        final long saved = queriesSaved.sum();
+        final long misses = falsePositives.sum();
+
+        return UserNameFilterStatsDTO.builder()
+                .ready(current != null)
+                .configuredFalsePositiveRate(falsePositiveRate)
+                .expectedFalsePositiveRate(current == null ? 0 : current.getExpectedFalsePositiveRate())
+                .approximateNames(current == null ? 0 : current.getApproximateElementCount())
+                .bitSize(current == null ? 0 : current.getBitSize())
+                .queriesSaved(saved)
+                .queriesIssued(queriesIssued.sum())
+                .falsePositives(misses)
+                .observedFalsePositiveRate(misses + saved == 0 ? 0 : (double) misses / (misses + saved))
+                .deletesSinceRebuild(deletesSinceRebuild.sum())
+                .build();
+
+    }
+
+}
@@ -1,12 +1,20 @@
 package com.example.backend.service;
 
 
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserBulkDeleteResultDTO;
 import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserCursorPageDTO;
+import com.example.backend.dto.UserMultiGetResultDTO;
+import com.example.backend.dto.UserPatchDTO;
+import com.example.backend.dto.UserSearchPageDTO;
 import com.example.backend.dto.UserUpdateDTO;
 import com.example.backend.dto.UserViewDTO;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 
 public interface UserService {
@@ -15,13 +23,31 @@ public interface UserService {
 
     List<UserViewDTO> getUsers();
 
+    UserMultiGetResultDTO getUsersByIds(List<Long> ids);
+
+    String getUsersETag();
+
+    void streamUsers(Consumer<UserViewDTO> action);
+
     UserViewDTO createUser(UserCreateDTO userCreateDTO);
 
+    UserBatchResultDTO createUsers(List<UserCreateDTO> userCreateDTOs);
+
     UserViewDTO updateUser(Long id, UserUpdateDTO userUpdateDTO);
 
+    UserViewDTO updateUser(Long id, UserUpdateDTO userUpdateDTO, Long expectedVersion);
+
+    UserViewDTO patchUser(Long id, UserPatchDTO userPatchDTO);
+
     void deleteUser(Long id);
 
+    UserBulkDeleteResultDTO deleteUsers(Collection<Long> ids);
+
     List<UserViewDTO> slice(Pageable pageable);
 
+    UserCursorPageDTO sliceAfter(String cursor, int limit);
+
+    UserSearchPageDTO searchUsers(String firstName, String lastName, String userNamePrefix, Pageable pageable);
+
     boolean isUsernameExists(String username);
 }
\ No newline at end of file
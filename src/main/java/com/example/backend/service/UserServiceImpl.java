@@ -1,48 +1,165 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.UserBatchItemResultDTO;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserBulkDeleteResultDTO;
 import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserCursorPageDTO;
+import com.example.backend.dto.UserMultiGetResultDTO;
+import com.example.backend.dto.UserPatchDTO;
+import com.example.backend.dto.UserSearchPageDTO;
 import com.example.backend.dto.UserUpdateDTO;
 import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.BatchTooLargeException;
+import com.example.backend.exception.InvalidPageException;
+import com.example.backend.exception.InvalidSortException;
+import com.example.backend.exception.PreconditionFailedException;
 import com.example.backend.exception.UserNotFoundException;
 import com.example.backend.model.User;
 import com.example.backend.repository.UserRepository;
+import com.example.backend.repository.UserSpecifications;
+import com.example.backend.shared.ReadWriteRoutingDataSource;
+import com.example.backend.shared.UserCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+    static final int MAX_BATCH_SIZE = 1000;
+
+    static final int MAX_MULTI_GET_SIZE = 10_000;
+
+    // Stays below the 1000 element IN list limit of some databases
+    static final int MULTI_GET_CHUNK_SIZE = 1000;
+
+    static final String DUPLICATE_USER_NAME_MESSAGE = "User name must be unique";
+
+    static final String NULL_USER_MESSAGE = "User must not be null";
+
+    // Each leads an index, see searchUsers
+    static final Set<String> SEARCH_SORT_PROPERTIES =
+            Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList("id", "userName", "lastName", "firstName")));
+
     private final UserRepository userRepository;
 
+    private final UserNameFilter userNameFilter;
+
+    private final UserViewCache userViewCache;
+
+    private final Validator validator;
+
+    private final UserChangeCounter userChangeCounter;
+
+    private final UserSuggestIndex userSuggestIndex;
+
+    private final UserChangeStream userChangeStream;
+
+    /**
+     * Cache misses load from the primary: the cache is only invalidated when a write commits, so a row from a lagging
+     * replica would be served to everyone until it is evicted.
+     */
     @Override
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public UserViewDTO getUserById(Long id) {
 
-        final User user = userRepository
-                .findById(id)
-                .orElseThrow(() -> new UserNotFoundException("User not found with id : " + id));
+        final UserViewDTO user = userViewCache.get(id, key -> ReadWriteRoutingDataSource.callOnPrimary(
+                () -> userRepository.findViewById(key).orElse(null)));
+
+        if (user == null) {
+            throw new UserNotFoundException("User not found with id : " + id);
+        }
 
-        return UserViewDTO.of(user);
+        return user;
 
     }
 
+    /**
+     * Read from the primary: the list is served under {@link #getUsersETag()}, which moves when a write commits there,
+     * and a lagging replica would let clients store the old list under the new tag.
+     */
     @Override
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<UserViewDTO> getUsers() {
 
-        return userRepository.findAll()
-                .stream()
-                .map(UserViewDTO::of)
-                .collect(Collectors.toList());
+        return ReadWriteRoutingDataSource.callOnPrimary(userRepository::findAllViews);
+
+    }
+
+    /**
+     * One {@code IN} query per chunk of {@link #MULTI_GET_CHUNK_SIZE} distinct ids. Users come back in the order their
+     * ids were first requested; ids without a user are listed in missingIds instead of failing the call.
+     */
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public UserMultiGetResultDTO getUsersByIds(List<Long> ids) {
+
+        final List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+
+        if (distinctIds.size() > MAX_MULTI_GET_SIZE) {
+            throw new BatchTooLargeException("Batch size must not exceed " + MAX_MULTI_GET_SIZE + " : " + distinctIds.size());
+        }
+
+        final Map<Long, UserViewDTO> found = new HashMap<>(distinctIds.size() * 2);
+        for (int from = 0; from < distinctIds.size(); from += MULTI_GET_CHUNK_SIZE) {
+            final List<Long> chunk = distinctIds.subList(from, Math.min(from + MULTI_GET_CHUNK_SIZE, distinctIds.size()));
+            userRepository.findViewsByIdIn(chunk).forEach(user -> found.put(user.getId(), user));
+        }
+
+        final List<UserViewDTO> users = new ArrayList<>(found.size());
+        final List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            final UserViewDTO user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        return new UserMultiGetResultDTO(users, missingIds);
+
+    }
+
+    @Override
+    public String getUsersETag() {
+        return userChangeCounter.getETag();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamUsers(Consumer<UserViewDTO> action) {
+
+        try (Stream<UserViewDTO> users = userRepository.streamAllViews()) {
+            users.forEach(action);
+        }
 
     }
 
@@ -50,26 +167,177 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public UserViewDTO createUser(UserCreateDTO userCreateDTO) {
 
+        userNameFilter.put(userCreateDTO.getUserName());
+
         final User user = userRepository.save(
                 new User(userCreateDTO.getUserName(),
                         userCreateDTO.getFirstName(),
                         userCreateDTO.getLastName()
                 )
         );
+        userChangeCounter.onChange();
+        userSuggestIndex.onSave(user.getId(), user.getUserName(), user.getFirstName(), user.getLastName());
+
+        final UserViewDTO userViewDTO = UserViewDTO.of(user);
+        userChangeStream.onCreate(userViewDTO);
+
+        return userViewDTO;
+
+    }
+
+    @Override
+    @Transactional
+    public UserBatchResultDTO createUsers(List<UserCreateDTO> userCreateDTOs) {
+
+        if (userCreateDTOs.size() > MAX_BATCH_SIZE) {
+            throw new BatchTooLargeException("Batch size must not exceed " + MAX_BATCH_SIZE + " : " + userCreateDTOs.size());
+        }
+
+        final UserBatchItemResultDTO[] results = new UserBatchItemResultDTO[userCreateDTOs.size()];
+        final Map<String, Integer> candidates = new LinkedHashMap<>();
+
+        for (int i = 0; i < userCreateDTOs.size(); i++) {
+
+            // A JSON array may hold nulls, which the validator does not accept
+            if (userCreateDTOs.get(i) == null) {
+                results[i] = UserBatchItemResultDTO.failed(i, Collections.singletonList(NULL_USER_MESSAGE));
+                continue;
+            }
+
+            // Default group only, uniqueness is checked for the whole batch below.
+            final List<String> errors = validator.validate(userCreateDTOs.get(i))
+                    .stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.toList());
 
-        return UserViewDTO.of(user);
+            if (!errors.isEmpty()) {
+                results[i] = UserBatchItemResultDTO.failed(i, errors);
+            } else if (candidates.putIfAbsent(userCreateDTOs.get(i).getUserName(), i) != null) {
+                results[i] = UserBatchItemResultDTO.failed(i, Collections.singletonList(DUPLICATE_USER_NAME_MESSAGE));
+            }
+
+        }
+
+        final Set<String> existingUserNames = candidates.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(userRepository.findExistingUserNames(candidates.keySet()));
+
+        final List<User> users = new ArrayList<>(candidates.size());
+        final List<Integer> indexes = new ArrayList<>(candidates.size());
+
+        candidates.forEach((userName, index) -> {
+            if (existingUserNames.contains(userName)) {
+                results[index] = UserBatchItemResultDTO.failed(index, Collections.singletonList(DUPLICATE_USER_NAME_MESSAGE));
+                return;
+            }
+            final UserCreateDTO userCreateDTO = userCreateDTOs.get(index);
+            userNameFilter.put(userName);
+            users.add(new User(userName, userCreateDTO.getFirstName(), userCreateDTO.getLastName()));
+            indexes.add(index);
+        });
+
+        // Ids come from the pooled sequence, so the inserts are flushed as JDBC batches.
+        final List<User> savedUsers = userRepository.saveAll(users);
+        if (!savedUsers.isEmpty()) {
+            userChangeCounter.onChange();
+        }
+
+        for (int i = 0; i < savedUsers.size(); i++) {
+            final User user = savedUsers.get(i);
+            userSuggestIndex.onSave(user.getId(), user.getUserName(), user.getFirstName(), user.getLastName());
+            final UserViewDTO userViewDTO = UserViewDTO.of(user);
+            userChangeStream.onCreate(userViewDTO);
+            results[indexes.get(i)] = UserBatchItemResultDTO.created(indexes.get(i), userViewDTO);
+        }
+
+        return new UserBatchResultDTO(Arrays.asList(results));
 
     }
 
+    /**
+     * One UPDATE statement; both names are replaced, so the new view is known without reading the row back. The new
+     * version is not, so the returned view carries none.
+     */
     @Override
+    @Transactional
     public UserViewDTO updateUser(Long id, UserUpdateDTO userUpdateDTO) {
 
-        final User user = userRepository.findById(id).orElseThrow(() -> new UserNotFoundException("User not found with id : " + id));
-        user.setFirstName(userUpdateDTO.getFirstName());
-        user.setLastName(userUpdateDTO.getLastName());
-        final User updatedUser = userRepository.save(user);
+        if (userRepository.updateNames(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName()) == 0) {
+            throw new UserNotFoundException("User not found with id : " + id);
+        }
+        userViewCache.invalidate(id);
+        userChangeCounter.onChange();
+        userSuggestIndex.onUpdate(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName());
+
+        final UserViewDTO userViewDTO = new UserViewDTO(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName());
+        userChangeStream.onUpdate(userViewDTO);
+
+        return userViewDTO;
+
+    }
+
+    /**
+     * Compare-and-set on the version column. A null expected version updates unconditionally; when nothing is
+     * updated, an existence check tells a missing user from a stale version.
+     */
+    @Override
+    @Transactional
+    public UserViewDTO updateUser(Long id, UserUpdateDTO userUpdateDTO, Long expectedVersion) {
+
+        if (expectedVersion == null) {
+            return updateUser(id, userUpdateDTO);
+        }
+
+        if (userRepository.updateNamesIfVersion(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName(), expectedVersion) == 0) {
+            if (!userRepository.existsById(id)) {
+                throw new UserNotFoundException("User not found with id : " + id);
+            }
+            throw new PreconditionFailedException("User " + id + " has been modified, expected version : " + expectedVersion);
+        }
+        userViewCache.invalidate(id);
+        userChangeCounter.onChange();
+        userSuggestIndex.onUpdate(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName());
 
-        return UserViewDTO.of(updatedUser);
+        final UserViewDTO userViewDTO = new UserViewDTO(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName(), expectedVersion + 1);
+        userChangeStream.onUpdate(userViewDTO);
+
+        return userViewDTO;
+
+    }
+
+    /**
+     * Updates only the fields sent. With both names present this is {@link #updateUser}; otherwise the untouched
+     * name is read back after the UPDATE.
+     */
+    @Override
+    @Transactional
+    public UserViewDTO patchUser(Long id, UserPatchDTO userPatchDTO) {
+
+        final String firstName = userPatchDTO.getFirstName();
+        final String lastName = userPatchDTO.getLastName();
+
+        if (firstName != null && lastName != null) {
+            return updateUser(id, UserUpdateDTO.builder().firstName(firstName).lastName(lastName).build());
+        }
+
+        if (firstName != null || lastName != null) {
+            final int updated = firstName != null
+                    ? userRepository.updateFirstName(id, firstName)
+                    : userRepository.updateLastName(id, lastName);
+            if (updated == 0) {
+                throw new UserNotFoundException("User not found with id : " + id);
+            }
+            userViewCache.invalidate(id);
+            userChangeCounter.onChange();
+            userSuggestIndex.onUpdate(id, firstName, lastName);
+        }
+
+        final UserViewDTO userViewDTO = userRepository.findViewById(id).orElseThrow(() -> new UserNotFoundException("User not found with id : " + id));
+        if (firstName != null || lastName != null) {
+            userChangeStream.onUpdate(userViewDTO);
+        }
+
+        return userViewDTO;
 
     }
 
@@ -77,8 +345,43 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public void deleteUser(Long id) {
 
-        final User user = userRepository.findById(id).orElseThrow(() -> new UserNotFoundException("User not found with id : " + id));
-        userRepository.deleteById(user.getId());
+        if (userRepository.removeById(id) == 0) {
+            throw new UserNotFoundException("User not found with id : " + id);
+        }
+        userViewCache.invalidate(id);
+        userNameFilter.onDelete();
+        userChangeCounter.onChange();
+        userSuggestIndex.onDelete(Collections.singletonList(id));
+        userChangeStream.onDelete(Collections.singletonList(id));
+
+    }
+
+    /**
+     * One set based DELETE for the whole list. The list is capped like a batch create, which also keeps the query
+     * string of {@code DELETE /api/v1/user?ids=} below Tomcat's default header limit.
+     */
+    @Override
+    @Transactional
+    public UserBulkDeleteResultDTO deleteUsers(Collection<Long> ids) {
+
+        final List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new BatchTooLargeException("Batch size must not exceed " + MAX_BATCH_SIZE + " : " + distinctIds.size());
+        }
+
+        final int deleted = distinctIds.isEmpty() ? 0 : userRepository.removeByIdIn(distinctIds);
+
+        userViewCache.invalidateAll(distinctIds);
+        userNameFilter.onDelete(deleted);
+        if (deleted > 0) {
+            userChangeCounter.onChange();
+            userSuggestIndex.onDelete(distinctIds);
+            // Ids that did not exist get a delete event as well, which consumers can ignore.
+            userChangeStream.onDelete(distinctIds);
+        }
+
+        return new UserBulkDeleteResultDTO(distinctIds.size(), deleted);
 
     }
 
@@ -87,13 +390,133 @@ public class UserServiceImpl implements UserService {
     @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<UserViewDTO> slice(Pageable pageable) {
 
-        return userRepository.findAll(pageable).stream().map(UserViewDTO::of).collect(Collectors.toList());
+        return userRepository.findViews(pageable);
+
+    }
+
+    //    Keyset pagination
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public UserCursorPageDTO sliceAfter(String cursor, int limit) {
+
+        final int pageSize = Math.max(1, Math.min(limit, MAX_CURSOR_PAGE_SIZE));
+        final long afterId = cursor == null ? Long.MIN_VALUE : UserCursor.decode(cursor);
+
+        // One extra row tells whether a next page exists without a count query.
+        final List<UserViewDTO> users = userRepository.findViewsAfter(afterId, PageRequest.of(0, pageSize + 1));
+
+        final List<UserViewDTO> page = users.size() > pageSize ? users.subList(0, pageSize) : users;
+        final String nextCursor = users.size() > pageSize ? UserCursor.encode(page.get(page.size() - 1).getId()) : null;
+
+        return new UserCursorPageDTO(page, nextCursor);
+
+    }
+
+    /**
+     * Filters are combined with AND, blank ones are ignored. Only columns leading an index can be sorted on:
+     * <ul>
+     *     <li>lastName, then firstName, uses idx_users_last_name_first_name, also with a lastName filter</li>
+     *     <li>firstName, then lastName, uses idx_users_first_name_last_name, also with a firstName filter</li>
+     *     <li>userName uses uk_users_user_name, also with a userName prefix</li>
+     *     <li>id uses the primary key</li>
+     * </ul>
+     * id is appended as the last sort order, unless userName is sorted on, so pages are stable. One extra row tells
+     * whether a next page exists, so no count query is issued.
+     */
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public UserSearchPageDTO searchUsers(String firstName, String lastName, String userNamePrefix, Pageable pageable) {
+
+        final int pageSize = Math.max(1, Math.min(pageable.getPageSize(), MAX_CURSOR_PAGE_SIZE));
+
+        final List<UserViewDTO> users = searchViews(firstName, lastName, userNamePrefix, pageable.getSort(),
+                searchOffset(pageable.getPageNumber(), pageSize), pageSize + 1);
+
+        final boolean hasNext = users.size() > pageSize;
+        return new UserSearchPageDTO(hasNext ? users.subList(0, pageSize) : users, pageable.getPageNumber(), pageSize, hasNext);
+
+    }
+
+    /**
+     * JPA takes the first result as an int, so pages past it are rejected rather than failing in the query.
+     */
+    static long searchOffset(int pageNumber, int pageSize) {
+
+        final long offset = (long) pageNumber * pageSize;
+
+        if (offset + pageSize + 1 > Integer.MAX_VALUE) {
+            throw new InvalidPageException("Page is out of range : " + pageNumber);
+        }
+
+        return offset;
+
+    }
+
+    /**
+     * The rows of {@link #searchUsers} from offset on, without its page size cap; {@link ShardedUserService} merges
+     * them from every shard.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public List<UserViewDTO> searchViews(String firstName, String lastName, String userNamePrefix, Sort sort,
+                                         long offset, int limit) {
+
+        Specification<User> specification = Specification.where(null);
+        if (hasText(firstName)) {
+            specification = specification.and(UserSpecifications.firstNameEquals(firstName));
+        }
+        if (hasText(lastName)) {
+            specification = specification.and(UserSpecifications.lastNameEquals(lastName));
+        }
+        if (hasText(userNamePrefix)) {
+            specification = specification.and(UserSpecifications.userNameStartsWith(userNamePrefix));
+        }
+
+        return userRepository.searchViews(specification, toSearchSort(sort, hasText(lastName), hasText(firstName)),
+                offset, limit);
+
+    }
+
+    /**
+     * Columns filtered by equality are put in front of the sort. That does not change the order of the rows, but it
+     * lets H2 see that the filter index already returns them sorted.
+     */
+    private static Sort toSearchSort(Sort sort, boolean lastNameFiltered, boolean firstNameFiltered) {
+
+        Sort.Direction lastDirection = Sort.Direction.ASC;
+        for (Sort.Order order : sort) {
+            if (!SEARCH_SORT_PROPERTIES.contains(order.getProperty())) {
+                throw new InvalidSortException("Sort property must be one of " + SEARCH_SORT_PROPERTIES + " : " + order.getProperty());
+            }
+            if (order.isIgnoreCase()) {
+                throw new InvalidSortException("Case insensitive sort is not indexed : " + order.getProperty());
+            }
+            lastDirection = order.getDirection();
+        }
+
+        final Sort.Direction firstDirection = sort.stream().findFirst().map(Sort.Order::getDirection).orElse(Sort.Direction.ASC);
+        Sort prefix = Sort.unsorted();
+        if (lastNameFiltered && sort.getOrderFor("lastName") == null) {
+            prefix = prefix.and(Sort.by(firstDirection, "lastName"));
+        }
+        if (firstNameFiltered && sort.getOrderFor("firstName") == null) {
+            prefix = prefix.and(Sort.by(firstDirection, "firstName"));
+        }
+
+        // user_name is unique, so the order is already total and an id after it would hide the index order from H2.
+        final Sort ordered = prefix.and(sort);
+        return ordered.getOrderFor("id") != null || ordered.getOrderFor("userName") != null
+                ? ordered
+                : ordered.and(Sort.by(lastDirection, "id"));
+
+    }
 
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
     }
 
     @Override
     public boolean isUsernameExists(String username) {
-        return userRepository.existsUserByUserName(username);
+        return userNameFilter.exists(username);
     }
 
 
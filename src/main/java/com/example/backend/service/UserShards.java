@@ -0,0 +1,207 @@
+package com.example.backend.service;
+
+import com.example.backend.shared.ShardRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Where users live when {@code backend.sharding.enabled=true}: a user is placed on the shard picked by the hash of
+ * its user name, so the unique index of that shard alone keeps user names unique, and its id encodes the shard (see
+ * {@link com.example.backend.shared.ShardedSequenceGenerator}). Without sharding there is one shard and every call
+ * runs directly.
+ * <p>
+ * Calls on several shards run in parallel on a small pool, the first one on the calling thread.
+ */
+@Component
+public class UserShards {
+
+    private final ShardRoutingDataSource routing;
+    private final int count;
+    private final ExecutorService scatter;
+
+    @Autowired
+    public UserShards(ObjectProvider<ShardRoutingDataSource> routing,
+                      @Value("${backend.sharding.scatter-threads:8}") int scatterThreads) {
+        this(routing.getIfAvailable(), scatterThreads);
+    }
+
+    UserShards(ShardRoutingDataSource routing, int scatterThreads) {
+
+        this.routing = routing;
+        this.count = routing == null ? 1 : routing.getShardCount();
+
+        if (count > 1) {
+            final AtomicInteger threads = new AtomicInteger();
+            this.scatter = new ThreadPoolExecutor(Math.max(1, scatterThreads), Math.max(1, scatterThreads),
+                    0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                final Thread thread = new Thread(runnable, "user-shards-" + threads.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.scatter = null;
+        }
+
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id, (long) count);
+    }
+
+    /**
+     * A null user name, which fails validation anyway, goes to the first shard.
+     */
+    public int shardOfUserName(String userName) {
+        return userName == null ? 0 : Math.floorMod(userName.hashCode(), count);
+    }
+
+    /**
+     * Transactions started inside the action run on the shard.
+     */
+    public <T> T call(int shard, Supplier<T> action) {
+        return routing == null ? action.get() : ShardRoutingDataSource.callOnShard(shard, action);
+    }
+
+    public void run(int shard, Runnable action) {
+        call(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * The action on every shard; results in shard order.
+     */
+    public <T> List<T> scatter(IntFunction<T> action) {
+        return scatter(IntStream.range(0, count).boxed().collect(Collectors.toList()), action);
+    }
+
+    /**
+     * The action on each of the given shards; results in the order of the shards. The first failure is thrown once
+     * all calls have finished, so no call is left running against a shard.
+     */
+    public <T> List<T> scatter(List<Integer> shards, IntFunction<T> action) {
+
+        if (shards.size() <= 1 || scatter == null) {
+            final List<T> results = new ArrayList<>(shards.size());
+            shards.forEach(shard -> results.add(call(shard, () -> action.apply(shard))));
+            return results;
+        }
+
+        final List<Future<T>> futures = new ArrayList<>(shards.size() - 1);
+        for (Integer shard : shards.subList(1, shards.size())) {
+            futures.add(scatter.submit(() -> call(shard, () -> action.apply(shard))));
+        }
+
+        final List<T> results = new ArrayList<>(shards.size());
+        RuntimeException failure = null;
+        try {
+            results.add(call(shards.get(0), () -> action.apply(shards.get(0))));
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        boolean interrupted = false;
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                interrupted = true;
+                failure = failure != null ? failure : new IllegalStateException("Interrupted while waiting for the shards");
+            } catch (ExecutionException e) {
+                failure = failure != null ? failure : rethrow(e.getCause());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+
+    }
+
+    /**
+     * Merges lists that are each sorted by the order: skips the first rows, then returns up to limit.
+     */
+    public static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, long skip, int limit) {
+
+        final PriorityQueue<Cursor<T>> heads = new PriorityQueue<>(Math.max(1, sorted.size()),
+                (left, right) -> order.compare(left.head(), right.head()));
+        for (List<T> list : sorted) {
+            if (!list.isEmpty()) {
+                heads.add(new Cursor<>(list));
+            }
+        }
+
+        final List<T> merged = new ArrayList<>(Math.min(limit, 1024));
+        long skipped = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            final Cursor<T> cursor = heads.poll();
+            if (skipped < skip) {
+                skipped++;
+            } else {
+                merged.add(cursor.head());
+            }
+            if (++cursor.position < cursor.list.size()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scatter != null) {
+            scatter.shutdownNow();
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+    }
+
+    private static final class Cursor<T> {
+
+        private final List<T> list;
+        private int position;
+
+        private Cursor(List<T> list) {
+            this.list = list;
+        }
+
+        private T head() {
+            return list.get(position);
+        }
+
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.example.backend.service;
+
+/**
+ * Fields served by {@code GET /api/v1/user/suggest}; the ordinal is the field number in the prefix index.
+ */
+public enum UserSuggestField {
+    USER_NAME,
+    FIRST_NAME,
+    LAST_NAME
+}
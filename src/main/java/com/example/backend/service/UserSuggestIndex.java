@@ -0,0 +1,387 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserSuggestStatsDTO;
+import com.example.backend.dto.UserSuggestionDTO;
+import com.example.backend.model.User;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.shared.PrefixIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory prefix index over user_name, first_name and last_name behind {@code GET /api/v1/user/suggest}. It is
+ * built from the table once the application is ready and then follows committed creates, updates and deletes. Until
+ * the build finishes, or when the table outgrows {@code backend.user-suggest.max-entries}, searches fall back to one
+ * {@code LIKE 'prefix%'} query per field and shard. An index dropped for its size is rebuilt every
+ * rebuild-interval-ms until it fits again.
+ * <p>
+ * Compactions and rebuilds run on one background thread. The index is compacted from a snapshot outside the lock,
+ * so searches and writes only wait for the snapshot and the swap, not for the merge.
+ */
+@Slf4j
+@Component
+public class UserSuggestIndex {
+
+    static final int MAX_LIMIT = 50;
+
+    private static final UserSuggestField[] FIELDS = UserSuggestField.values();
+
+    private static final Comparator<UserSuggestionDTO> ORDER = Comparator
+            .<UserSuggestionDTO, String>comparing(suggestion -> suggestion.getValue().toLowerCase(Locale.ROOT))
+            .thenComparing(UserSuggestionDTO::getId)
+            .thenComparing(UserSuggestionDTO::getField);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final UserShards userShards;
+    private final int maxEntries;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Held for a build or a compaction, one at a time.
+    private final Lock maintenance = new ReentrantLock();
+    // Guarded by lock; null until built and after the index outgrew maxEntries.
+    private PrefixIndex index;
+    // Changes committed while a build or compaction is running, replayed onto the new index; null when none runs.
+    private List<Consumer<PrefixIndex>> pendingChanges;
+    private volatile boolean ready;
+    // Set when the table outgrew maxEntries, until a rebuild fits again.
+    private volatile boolean dropped;
+    private volatile long lastBuildMs;
+
+    // One compaction or rebuild queued at most, the others are dropped: the queued one does the same work.
+    private final ThreadPoolExecutor maintenanceExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), runnable -> {
+        final Thread thread = new Thread(runnable, "user-suggest-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private final LongAdder indexedSearches = new LongAdder();
+    private final LongAdder fallbackSearches = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    public UserSuggestIndex(UserRepository userRepository,
+                            TransactionTemplate transactionTemplate,
+                            EntityManager entityManager,
+                            UserShards userShards,
+                            @Value("${backend.user-suggest.max-entries:3000000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.userShards = userShards;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Up to limit values of any field starting with the prefix, ignoring case, ordered by value then id.
+     */
+    public List<UserSuggestionDTO> search(String prefix, int limit) {
+
+        final int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        if (ready) {
+            lock.readLock().lock();
+            try {
+                if (index != null) {
+                    indexedSearches.increment();
+                    return index.search(prefix, size)
+                            .stream()
+                            .map(match -> new UserSuggestionDTO(match.getId(), FIELDS[match.getField()], match.getValue()))
+                            .collect(Collectors.toList());
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        fallbackSearches.increment();
+        final String pattern = escape(prefix.toLowerCase(Locale.ROOT)) + "%";
+        final Pageable page = PageRequest.of(0, size);
+
+        return userShards.scatter(shard -> Stream.of(userRepository.suggestByUserName(pattern, page),
+                                userRepository.suggestByFirstName(pattern, page),
+                                userRepository.suggestByLastName(pattern, page))
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList()))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(ORDER)
+                .limit(size)
+                .collect(Collectors.toList());
+
+    }
+
+    public void onSave(long id, String userName, String firstName, String lastName) {
+        afterCommit(index -> {
+            index.put(id, UserSuggestField.USER_NAME.ordinal(), userName);
+            index.put(id, UserSuggestField.FIRST_NAME.ordinal(), firstName);
+            index.put(id, UserSuggestField.LAST_NAME.ordinal(), lastName);
+        });
+    }
+
+    /**
+     * A null name is left unchanged.
+     */
+    public void onUpdate(long id, String firstName, String lastName) {
+        afterCommit(index -> {
+            if (firstName != null) {
+                index.put(id, UserSuggestField.FIRST_NAME.ordinal(), firstName);
+            }
+            if (lastName != null) {
+                index.put(id, UserSuggestField.LAST_NAME.ordinal(), lastName);
+            }
+        });
+    }
+
+    public void onDelete(Collection<Long> ids) {
+        final List<Long> removed = new ArrayList<>(ids);
+        afterCommit(index -> removed.forEach(index::remove));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        build();
+    }
+
+    @Scheduled(initialDelayString = "${backend.user-suggest.rebuild-interval-ms:600000}",
+            fixedDelayString = "${backend.user-suggest.rebuild-interval-ms:600000}")
+    public void rebuildIfDropped() {
+        if (dropped) {
+            maintenanceExecutor.execute(this::build);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenanceExecutor.shutdown();
+    }
+
+    /**
+     * Scans the table into a new index; changes committed meanwhile are replayed onto it, which is safe since every
+     * change sets or removes values rather than depending on the previous state.
+     */
+    public void build() {
+
+        maintenance.lock();
+        try {
+            rebuild();
+        } finally {
+            maintenance.unlock();
+        }
+
+    }
+
+    private void rebuild() {
+
+        final long start = System.nanoTime();
+
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        final List<PrefixIndex.Value> values = new ArrayList<>();
+        boolean fits = true;
+        for (int shard = 0; fits && shard < userShards.count(); shard++) {
+            fits = userShards.call(shard, () -> Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                try (Stream<User> users = userRepository.streamByIdBetween(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                    return users.allMatch(user -> {
+                        values.add(new PrefixIndex.Value(user.getId(), UserSuggestField.USER_NAME.ordinal(), user.getUserName()));
+                        values.add(new PrefixIndex.Value(user.getId(), UserSuggestField.FIRST_NAME.ordinal(), user.getFirstName()));
+                        values.add(new PrefixIndex.Value(user.getId(), UserSuggestField.LAST_NAME.ordinal(), user.getLastName()));
+                        entityManager.detach(user);
+                        return values.size() <= maxEntries;
+                    });
+                }
+            })));
+        }
+
+        final PrefixIndex built = fits ? PrefixIndex.of(values) : null;
+        values.clear();
+        if (built != null) {
+            built.setAutoCompaction(false);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (built != null) {
+                pendingChanges.forEach(change -> change.accept(built));
+            }
+            pendingChanges = null;
+            index = built;
+            ready = built != null;
+            dropped = built == null;
+            checkSize();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        lastBuildMs = (System.nanoTime() - start) / 1_000_000;
+        if (ready) {
+            log.info("User suggest index built with {} entries, about {} bytes, in {} ms",
+                    built.size(), built.getEstimatedBytes(), lastBuildMs);
+        } else {
+            log.warn("User suggest index not built, the table has more than {} entries; searches use LIKE queries",
+                    maxEntries);
+        }
+
+    }
+
+    public UserSuggestStatsDTO getStats() {
+
+        lock.readLock().lock();
+        try {
+            return UserSuggestStatsDTO.builder()
+                    .ready(ready)
+                    .entries(index == null ? 0 : index.size())
+                    .maxEntries(maxEntries)
+                    .estimatedBytes(index == null ? 0 : index.getEstimatedBytes())
+                    .lastBuildMs(lastBuildMs)
+                    .dropped(dropped)
+                    .compactions(compactions.sum())
+                    .indexedSearches(indexedSearches.sum())
+                    .fallbackSearches(fallbackSearches.sum())
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+    }
+
+    /**
+     * Rolled back writes never reach the index.
+     */
+    private void afterCommit(Consumer<PrefixIndex> change) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+
+    }
+
+    private void apply(Consumer<PrefixIndex> change) {
+
+        final boolean compact;
+
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            if (index != null) {
+                change.accept(index);
+                checkSize();
+            }
+            compact = index != null && index.needsCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (compact) {
+            // Off the committing thread, the merge takes about a second at the default max-entries.
+            maintenanceExecutor.execute(this::compact);
+        }
+
+    }
+
+    /**
+     * Merges a snapshot of the index while searches and writes go on against the current one, then replays the
+     * writes made meanwhile onto the result and swaps it in. Skipped while a build runs; the next write tries again.
+     */
+    private void compact() {
+
+        if (!maintenance.tryLock()) {
+            return;
+        }
+
+        try {
+            final PrefixIndex current;
+            final PrefixIndex.Snapshot snapshot;
+
+            lock.writeLock().lock();
+            try {
+                if (index == null || !index.needsCompaction()) {
+                    return;
+                }
+                current = index;
+                snapshot = index.snapshot();
+                pendingChanges = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            final PrefixIndex compacted = snapshot.compact();
+
+            lock.writeLock().lock();
+            try {
+                // Unless the index was dropped for its size meanwhile
+                if (index == current) {
+                    pendingChanges.forEach(change -> change.accept(compacted));
+                    index = compacted;
+                    compactions.increment();
+                    checkSize();
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            maintenance.unlock();
+        }
+
+    }
+
+    private void checkSize() {
+        if (index != null && index.size() > maxEntries) {
+            log.warn("User suggest index dropped, it outgrew {} entries; searches use LIKE queries until a rebuild fits",
+                    maxEntries);
+            index = null;
+            ready = false;
+            dropped = true;
+        }
+    }
+
+    private static String escape(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+}
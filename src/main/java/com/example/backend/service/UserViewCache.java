@@ -0,0 +1,163 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserCacheStatsDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.UserLookupTimeoutException;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size bounded read-through cache of {@link UserViewDTO} by id. Caffeine's W-TinyLFU policy only admits a new key
+ * when it is estimated to be used more often than the eviction victim, which suits our skewed id traffic.
+ * <p>
+ * Loads are single-flight per key: the cache holds a future for the in-flight load, so concurrent callers for the same
+ * id share one database call and its result, or its exception, while the calling thread of the first one runs the
+ * loader. The map is only locked to insert the future, never during the load, so loads of different ids do not wait
+ * on each other. Callers wait at most coalesced-wait-timeout-ms for someone else's load and then get a 503.
+ * <p>
+ * An invalidation drops an in-flight load as well, so callers arriving after it start a new load and, invalidating
+ * after the writing transaction has completed, never see the pre-write row.
+ */
+@Component
+public class UserViewCache {
+
+    private final AsyncCache<Long, UserViewDTO> cache;
+    private final long coalescedWaitTimeoutMs;
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder coalescedTimeouts = new LongAdder();
+
+    public UserViewCache(@Value("${backend.user-cache.maximum-size:10000}") long maximumSize,
+                         @Value("${backend.user-cache.expire-after-write-ms:0}") long expireAfterWriteMs,
+                         @Value("${backend.user-cache.coalesced-wait-timeout-ms:2000}") long coalescedWaitTimeoutMs) {
+
+        final Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats();
+        if (expireAfterWriteMs > 0) {
+            builder.expireAfterWrite(Duration.ofMillis(expireAfterWriteMs));
+        }
+        this.cache = builder.buildAsync();
+        this.coalescedWaitTimeoutMs = coalescedWaitTimeoutMs;
+
+    }
+
+    /**
+     * Returns the cached view or runs the loader once for all concurrent callers. A null result is not cached.
+     */
+    public UserViewDTO get(Long id, Function<Long, UserViewDTO> loader) {
+
+        final CompletableFuture<UserViewDTO> load = new CompletableFuture<>();
+        final CompletableFuture<UserViewDTO> result = cache.get(id, (key, executor) -> load);
+
+        if (result == load) {
+            loads.increment();
+            try {
+                load.complete(loader.apply(id));
+            } catch (RuntimeException | Error e) {
+                load.completeExceptionally(e);
+                throw e;
+            }
+            return load.join();
+        }
+
+        if (result.isDone()) {
+            return join(result);
+        }
+
+        coalesced.increment();
+        try {
+            return result.get(coalescedWaitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            coalescedTimeouts.increment();
+            throw new UserLookupTimeoutException("Timed out after " + coalescedWaitTimeoutMs + " ms waiting for the lookup of user " + id);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UserLookupTimeoutException("Interrupted while waiting for the lookup of user " + id);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+
+    }
+
+    public void invalidate(Long id) {
+        invalidateAll(Collections.singleton(id));
+    }
+
+    /**
+     * Like {@link #invalidate(Long)}, deferred until the current transaction has completed.
+     */
+    public void invalidateAll(Collection<Long> ids) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.synchronous().invalidateAll(ids);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.synchronous().invalidateAll(ids);
+            }
+        });
+
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public UserCacheStatsDTO getStats() {
+
+        final CacheStats stats = cache.synchronous().stats();
+
+        return UserCacheStatsDTO.builder()
+                .size(cache.synchronous().estimatedSize())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .averageLoadPenaltyNanos(stats.averageLoadPenalty())
+                .loadCount(loads.sum())
+                .coalescedCount(coalesced.sum())
+                .coalescedTimeoutCount(coalescedTimeouts.sum())
+                .build();
+
+    }
+
+    private static UserViewDTO join(CompletableFuture<UserViewDTO> future) {
+        try {
+            return future.getNow(null);
+        } catch (CompletionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.example.backend.shared;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of nanosecond values in the style of HdrHistogram: every power of two is split into
+ * {@value #SUB_BUCKETS_PER_OCTAVE} linear sub-buckets, so a reported percentile is at most 1/64 (about 1.6%) above
+ * the true value. Recording is a couple of shifts plus one atomic increment; values above about two hours are
+ * clamped into the last bucket.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS_PER_OCTAVE = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = SUB_BUCKETS_PER_OCTAVE * 2;
+    private static final int MAX_SHIFT = 36;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + MAX_SHIFT * SUB_BUCKETS_PER_OCTAVE;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public double getMeanNanos() {
+        final long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Values at the given quantiles (0..1), computed from one pass over a copy of the buckets. Concurrent recordings
+     * may or may not be included.
+     */
+    public long[] getValuesAtQuantiles(double... quantiles) {
+
+        final long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+
+        final long[] values = new long[quantiles.length];
+        if (count == 0) {
+            return values;
+        }
+
+        final long max = maxNanos.get();
+        for (int q = 0; q < quantiles.length; q++) {
+            final long rank = Math.max(1, (long) Math.ceil(quantiles[q] * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    values[q] = Math.min(highestEquivalentValue(i), max);
+                    break;
+                }
+            }
+        }
+        return values;
+
+    }
+
+    static int bucketIndex(long value) {
+
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+
+        // Shift so the value lands in [SUB_BUCKETS_PER_OCTAVE, 2 * SUB_BUCKETS_PER_OCTAVE).
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        if (shift > MAX_SHIFT) {
+            return BUCKET_COUNT - 1;
+        }
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS_PER_OCTAVE + (int) (value >>> shift) - SUB_BUCKETS_PER_OCTAVE;
+
+    }
+
+    static long highestEquivalentValue(int index) {
+
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+
+        final int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS_PER_OCTAVE + 1;
+        final long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS_PER_OCTAVE + SUB_BUCKETS_PER_OCTAVE;
+        return ((subBucket + 1) << shift) - 1;
+
+    }
+
+}
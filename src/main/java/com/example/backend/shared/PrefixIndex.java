@@ -0,0 +1,465 @@
+package com.example.backend.shared;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Case-insensitive prefix index of short text values, each tagged with an owner id and a field number. Values live in
+ * parallel arrays sorted by their lower case term, so a search is one binary search plus a scan over the matches, and
+ * an entry costs its strings plus 29 bytes of array slots instead of a tree node per character. Writes go to a small
+ * sorted delta and tombstones that are merged into new arrays once they reach an eighth of the arrays.
+ * <p>
+ * Not thread-safe. The arrays are never written after a compaction, so a caller guarding the index with a lock can
+ * take a {@link #snapshot()} under it and compact the snapshot without the lock, see {@link #setAutoCompaction}.
+ */
+public final class PrefixIndex {
+
+    private static final int MIN_COMPACTION_THRESHOLD = 1024;
+
+    private static final Comparator<Entry> ORDER = Comparator.<Entry, String>comparing(entry -> entry.term)
+            .thenComparingLong(entry -> entry.id)
+            .thenComparingInt(entry -> entry.field);
+
+    // Sorted by term, id, field
+    private String[] terms = new String[0];
+    private String[] values = new String[0];
+    private long[] ids = new long[0];
+    private byte[] fields = new byte[0];
+    private BitSet removed = new BitSet();
+    private int removedCount;
+
+    // Positions of the arrays above ordered by id, for removals by id
+    private long[] idOrder = new long[0];
+    private int[] idPositions = new int[0];
+
+    private final NavigableSet<Entry> delta = new TreeSet<>(ORDER);
+    private final Map<Long, List<Entry>> deltaById = new HashMap<>();
+
+    private long estimatedBytes;
+    private boolean autoCompaction = true;
+
+    /**
+     * Bulk load: sorts the given values once instead of merging them in through the delta.
+     */
+    public static PrefixIndex of(Collection<Value> values) {
+
+        final PrefixIndex index = new PrefixIndex();
+        for (Value value : values) {
+            if (value.value != null && !value.value.isEmpty()) {
+                index.delta.add(new Entry(toTerm(value.value), value.value, value.id, (byte) value.field));
+            }
+        }
+        index.compact();
+        return index;
+
+    }
+
+    /**
+     * Sets the value of a field, replacing the previous one; a null value removes it.
+     */
+    public void put(long id, int field, String value) {
+
+        remove(id, field);
+
+        if (value != null && !value.isEmpty()) {
+            final Entry entry = new Entry(toTerm(value), value, id, (byte) field);
+            delta.add(entry);
+            deltaById.computeIfAbsent(id, key -> new ArrayList<>(3)).add(entry);
+            compactIfNeeded();
+        }
+
+    }
+
+    /**
+     * Removes every field of the id.
+     */
+    public void remove(long id) {
+        remove(id, -1);
+    }
+
+    /**
+     * Up to limit matches ordered by term, then id.
+     */
+    public List<Match> search(String prefix, int limit) {
+
+        final String lower = toTerm(prefix);
+        final List<Match> matches = new ArrayList<>(Math.min(limit, 64));
+
+        int position = lowerBound(lower);
+        final Iterator<Entry> pending = delta.tailSet(new Entry(lower, null, Long.MIN_VALUE, (byte) 0), true).iterator();
+        Entry next = pending.hasNext() ? pending.next() : null;
+
+        while (matches.size() < limit) {
+
+            while (position < terms.length && removed.get(position)) {
+                position++;
+            }
+
+            final boolean baseMatches = position < terms.length && terms[position].startsWith(lower);
+            final boolean deltaMatches = next != null && next.term.startsWith(lower);
+
+            if (!baseMatches && !deltaMatches) {
+                break;
+            }
+
+            if (baseMatches && (!deltaMatches || compareBase(position, next) < 0)) {
+                matches.add(new Match(ids[position], fields[position], values[position]));
+                position++;
+            } else {
+                matches.add(new Match(next.id, next.field, next.value));
+                next = pending.hasNext() ? pending.next() : null;
+            }
+
+        }
+
+        return matches;
+
+    }
+
+    public int size() {
+        return terms.length - removedCount + delta.size();
+    }
+
+    /**
+     * Heap estimate of the compacted arrays and their strings as of the last compaction, counting two bytes per char.
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Whether put and remove compact once the delta and tombstones reach an eighth of the arrays; when off, the caller
+     * checks {@link #needsCompaction()} and compacts, for instance through a snapshot.
+     */
+    public void setAutoCompaction(boolean autoCompaction) {
+        this.autoCompaction = autoCompaction;
+    }
+
+    public boolean needsCompaction() {
+        return delta.size() + removedCount > Math.max(MIN_COMPACTION_THRESHOLD, terms.length / 8);
+    }
+
+    /**
+     * Merges the delta and tombstones into new arrays. Equal strings are shared between entries.
+     */
+    public void compact() {
+
+        final PrefixIndex compacted = merge(terms, values, ids, fields, removed, delta, size());
+
+        terms = compacted.terms;
+        values = compacted.values;
+        ids = compacted.ids;
+        fields = compacted.fields;
+        idOrder = compacted.idOrder;
+        idPositions = compacted.idPositions;
+        estimatedBytes = compacted.estimatedBytes;
+        removed = new BitSet();
+        removedCount = 0;
+        delta.clear();
+        deltaById.clear();
+
+    }
+
+    /**
+     * The current contents, for a compaction that does not hold up the users of this index. Copies only the
+     * tombstones and the delta; the arrays are shared.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    private static PrefixIndex merge(String[] terms, String[] values, long[] ids, byte[] fields, BitSet removed,
+                                     Collection<Entry> delta, int size) {
+
+        final String[] newTerms = new String[size];
+        final String[] newValues = new String[size];
+        final long[] newIds = new long[size];
+        final byte[] newFields = new byte[size];
+        final Map<String, String> canonical = new HashMap<>();
+
+        int position = 0;
+        int target = 0;
+        final Iterator<Entry> pending = delta.iterator();
+        Entry next = pending.hasNext() ? pending.next() : null;
+
+        while (target < size) {
+
+            while (position < terms.length && removed.get(position)) {
+                position++;
+            }
+
+            final String term;
+            final String value;
+            if (position < terms.length && (next == null || compare(terms, ids, fields, position, next) < 0)) {
+                term = terms[position];
+                value = values[position];
+                newIds[target] = ids[position];
+                newFields[target] = fields[position];
+                position++;
+            } else {
+                term = next.term;
+                value = next.value;
+                newIds[target] = next.id;
+                newFields[target] = next.field;
+                next = pending.hasNext() ? pending.next() : null;
+            }
+
+            newTerms[target] = canonical.computeIfAbsent(term, key -> key);
+            newValues[target] = canonical.computeIfAbsent(value, key -> key);
+            target++;
+
+        }
+
+        final PrefixIndex merged = new PrefixIndex();
+        merged.terms = newTerms;
+        merged.values = newValues;
+        merged.ids = newIds;
+        merged.fields = newFields;
+        merged.buildIdOrder();
+
+        long bytes = (long) size * (4 + 4 + 8 + 1 + 8 + 4);
+        for (String text : canonical.keySet()) {
+            bytes += 24 + 16 + 2L * text.length();
+        }
+        merged.estimatedBytes = bytes;
+
+        return merged;
+
+    }
+
+    private void remove(long id, int field) {
+
+        int index = lowerBound(idOrder, id);
+        while (index < idOrder.length && idOrder[index] == id) {
+            final int position = idPositions[index];
+            if ((field < 0 || fields[position] == field) && !removed.get(position)) {
+                removed.set(position);
+                removedCount++;
+            }
+            index++;
+        }
+
+        final List<Entry> entries = deltaById.get(id);
+        if (entries != null) {
+            entries.removeIf(entry -> {
+                if (field < 0 || entry.field == field) {
+                    delta.remove(entry);
+                    return true;
+                }
+                return false;
+            });
+            if (entries.isEmpty()) {
+                deltaById.remove(id);
+            }
+        }
+
+        compactIfNeeded();
+
+    }
+
+    private void compactIfNeeded() {
+        if (autoCompaction && needsCompaction()) {
+            compact();
+        }
+    }
+
+    private void buildIdOrder() {
+
+        idOrder = ids.clone();
+        idPositions = new int[ids.length];
+        for (int i = 0; i < idPositions.length; i++) {
+            idPositions[i] = i;
+        }
+        sortByKey(idOrder, idPositions);
+
+    }
+
+    /**
+     * Bottom-up merge sort of the keys that moves the values along, on primitive arrays.
+     */
+    private static void sortByKey(long[] keys, int[] values) {
+
+        final int length = keys.length;
+        long[] fromKeys = keys;
+        int[] fromValues = values;
+        long[] toKeys = new long[length];
+        int[] toValues = new int[length];
+
+        for (int width = 1; width < length; width *= 2) {
+            for (int low = 0; low < length; low += 2 * width) {
+                final int middle = Math.min(low + width, length);
+                final int high = Math.min(low + 2 * width, length);
+                int left = low;
+                int right = middle;
+                for (int target = low; target < high; target++) {
+                    if (left < middle && (right >= high || fromKeys[left] <= fromKeys[right])) {
+                        toKeys[target] = fromKeys[left];
+                        toValues[target] = fromValues[left++];
+                    } else {
+                        toKeys[target] = fromKeys[right];
+                        toValues[target] = fromValues[right++];
+                    }
+                }
+            }
+            final long[] swapKeys = fromKeys;
+            fromKeys = toKeys;
+            toKeys = swapKeys;
+            final int[] swapValues = fromValues;
+            fromValues = toValues;
+            toValues = swapValues;
+        }
+
+        if (fromKeys != keys) {
+            System.arraycopy(fromKeys, 0, keys, 0, length);
+            System.arraycopy(fromValues, 0, values, 0, length);
+        }
+
+    }
+
+    private int compareBase(int position, Entry entry) {
+        return compare(terms, ids, fields, position, entry);
+    }
+
+    private static int compare(String[] terms, long[] ids, byte[] fields, int position, Entry entry) {
+        final int byTerm = terms[position].compareTo(entry.term);
+        if (byTerm != 0) {
+            return byTerm;
+        }
+        final int byId = Long.compare(ids[position], entry.id);
+        return byId != 0 ? byId : Integer.compare(fields[position], entry.field);
+    }
+
+    /**
+     * First position whose term is not less than the given one.
+     */
+    private int lowerBound(String term) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (terms[middle].compareTo(term) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static String toTerm(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Contents of an index at the time it was taken; compacting it does not touch the index.
+     */
+    public static final class Snapshot {
+
+        private final String[] terms;
+        private final String[] values;
+        private final long[] ids;
+        private final byte[] fields;
+        private final BitSet removed;
+        private final List<Entry> delta;
+        private final int size;
+        private final boolean autoCompaction;
+
+        private Snapshot(PrefixIndex index) {
+            this.terms = index.terms;
+            this.values = index.values;
+            this.ids = index.ids;
+            this.fields = index.fields;
+            this.removed = (BitSet) index.removed.clone();
+            this.delta = new ArrayList<>(index.delta);
+            this.size = index.size();
+            this.autoCompaction = index.autoCompaction;
+        }
+
+        public PrefixIndex compact() {
+            final PrefixIndex compacted = merge(terms, values, ids, fields, removed, delta, size);
+            compacted.autoCompaction = autoCompaction;
+            return compacted;
+        }
+
+    }
+
+    public static final class Value {
+
+        private final long id;
+        private final int field;
+        private final String value;
+
+        public Value(long id, int field, String value) {
+            this.id = id;
+            this.field = field;
+            this.value = value;
+        }
+
+    }
+
+    public static final class Match {
+
+        private final long id;
+        private final int field;
+        private final String value;
+
+        private Match(long id, int field, String value) {
+            this.id = id;
+            this.field = field;
+            this.value = value;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public int getField() {
+            return field;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final String term;
+        private final String value;
+        private final long id;
+        private final byte field;
+
+        private Entry(String term, String value, long id, byte field) {
+            this.term = term;
+            this.value = value;
+            this.id = id;
+            this.field = field;
+        }
+
+    }
+
+}
@@ -0,0 +1,222 @@
+package com.example.backend.shared;
+
+import com.example.backend.dto.DataSourceRoutingStatsDTO;
+import com.example.backend.dto.ReplicaStatsDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Sends connections for read-only transactions to the replicas, round robin over those that passed the last health
+ * check, and everything else to the primary. A replica that fails to hand out a connection is marked down at once
+ * and the next one is tried; with none left the read goes to the primary.
+ * <p>
+ * The decision is made when the connection is taken, so this needs {@link LazyConnectionDataSourceProxy} in front
+ * of it: transaction managers take the connection before the read-only flag of the transaction is published.
+ * Reads on a thread inside {@link #pinToPrimary(boolean)} go to the primary, so a client sees its own writes even
+ * before the replicas have applied them. Reads whose result outlives the request, like cache loads, go through
+ * {@link #callOnPrimary(Supplier)} so that every client sees it, not only the one that wrote.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder pinnedReads = new LongAdder();
+    private final LongAdder fallbackReads = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, int validationTimeoutSeconds) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet()
+                .stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .collect(Collectors.toList());
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Sends read-only transactions on the current thread to the primary while pinned.
+     */
+    public static void pinToPrimary(boolean pinned) {
+        if (pinned) {
+            PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        } else {
+            PINNED_TO_PRIMARY.remove();
+        }
+    }
+
+    /**
+     * Runs the action with reads on the current thread going to the primary, then restores the previous pinning.
+     */
+    public static <T> T callOnPrimary(Supplier<T> action) {
+
+        if (isPinnedToPrimary()) {
+            return action.get();
+        }
+
+        pinToPrimary(true);
+        try {
+            return action.get();
+        } finally {
+            pinToPrimary(false);
+        }
+
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (isPinnedToPrimary()) {
+                pinnedReads.increment();
+            } else {
+                final Connection connection = replicaConnection(username, password);
+                if (connection != null) {
+                    return connection;
+                }
+                fallbackReads.increment();
+            }
+        }
+
+        primaryConnections.increment();
+        return connect(primary, username, password);
+
+    }
+
+    /**
+     * Validates a connection from every replica and marks it up or down.
+     */
+    @Scheduled(fixedDelayString = "${backend.datasource.replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+
+        for (Replica replica : replicas) {
+
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(validationTimeoutSeconds);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+
+            if (healthy != replica.healthy) {
+                log.warn("Replica {} is {}", replica.name, healthy ? "up again" : "down");
+            }
+            replica.healthy = healthy;
+
+        }
+
+    }
+
+    public DataSourceRoutingStatsDTO getStats() {
+
+        final List<ReplicaStatsDTO> replicaStats = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            replicaStats.add(ReplicaStatsDTO.builder()
+                    .name(replica.name)
+                    .healthy(replica.healthy)
+                    .connections(replica.connections.sum())
+                    .failures(replica.failures.sum())
+                    .build());
+        }
+
+        return DataSourceRoutingStatsDTO.builder()
+                .primaryConnections(primaryConnections.sum())
+                .pinnedReads(pinnedReads.sum())
+                .fallbackReads(fallbackReads.sum())
+                .replicas(replicaStats)
+                .build();
+
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable) {
+                ((Closeable) replica.dataSource).close();
+            }
+        }
+        if (primary instanceof Closeable) {
+            ((Closeable) primary).close();
+        }
+
+    }
+
+    private Connection replicaConnection(String username, String password) {
+
+        final int start = next.getAndIncrement();
+
+        for (int i = 0; i < replicas.size(); i++) {
+
+            final Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (!replica.healthy) {
+                continue;
+            }
+
+            try {
+                final Connection connection = connect(replica.dataSource, username, password);
+                replica.connections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.failures.increment();
+                replica.healthy = false;
+                log.warn("Replica {} is down, marked unhealthy until the next health check: {}", replica.name, e.getMessage());
+            }
+
+        }
+
+        return null;
+
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final LongAdder connections = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        // Optimistic until the first health check.
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+    }
+
+}
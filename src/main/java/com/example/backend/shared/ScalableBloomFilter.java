@@ -0,0 +1,171 @@
+package com.example.backend.shared;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable Bloom filter (Almeida et al.): when the newest slice reaches its capacity a new slice with twice the
+ * capacity and a tighter error rate is appended, so the compound false positive rate stays below the configured one
+ * no matter how many elements are added. Thread safe; elements can not be removed.
+ */
+public final class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final double falsePositiveRate;
+    private final List<Slice> slices = new CopyOnWriteArrayList<>();
+
+    public ScalableBloomFilter(int initialCapacity, double falsePositiveRate) {
+        if (initialCapacity < 1) {
+            throw new IllegalArgumentException("initialCapacity must be positive : " + initialCapacity);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1 : " + falsePositiveRate);
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        // P0 * 1 / (1 - r) is the upper bound of the geometric series of slice error rates.
+        slices.add(new Slice(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO)));
+    }
+
+    public void put(String value) {
+        final long hash = hash(value);
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash)) {
+                return;
+            }
+        }
+        lastSlice().put(hash);
+    }
+
+    public boolean mightContain(String value) {
+        final long hash = hash(value);
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Expected false positive rate for the current fill level, i.e. 1 - prod(1 - fpr(slice)).
+     */
+    public double getExpectedFalsePositiveRate() {
+        double none = 1;
+        for (Slice slice : slices) {
+            none *= 1 - slice.expectedFalsePositiveRate();
+        }
+        return 1 - none;
+    }
+
+    public long getApproximateElementCount() {
+        long count = 0;
+        for (Slice slice : slices) {
+            count += slice.count.get();
+        }
+        return count;
+    }
+
+    public long getBitSize() {
+        long bits = 0;
+        for (Slice slice : slices) {
+            bits += slice.bitCount;
+        }
+        return bits;
+    }
+
+    private synchronized Slice lastSlice() {
+        final Slice last = slices.get(slices.size() - 1);
+        if (last.count.get() < last.capacity) {
+            return last;
+        }
+        final Slice next = new Slice(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+        slices.add(next);
+        return next;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes followed by the splitmix64 finalizer; the two halves feed double hashing.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    private static final class Slice {
+
+        private final int capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray words;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Slice(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            final double ln2 = Math.log(2);
+            final long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            this.words = new AtomicLongArray((int) ((bits + 63) >>> 6));
+            this.bitCount = (long) words.length() << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+        }
+
+        private void put(long hash) {
+            final int h1 = (int) hash;
+            final int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                setBit(index(h1 + i * h2));
+            }
+            count.incrementAndGet();
+        }
+
+        private boolean mightContain(long hash) {
+            final int h1 = (int) hash;
+            final int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                final long index = index(h1 + i * h2);
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashCount * count.get() / bitCount), hashCount);
+        }
+
+        private long index(int combinedHash) {
+            return (combinedHash & Integer.MAX_VALUE) % bitCount;
+        }
+
+        private void setBit(long index) {
+            final int word = (int) (index >>> 6);
+            final long mask = 1L << index;
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    return;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.example.backend.shared;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections of the shard bound to the current thread by {@link #callOnShard(int, Supplier)}; without
+ * one they come from the first shard, which is also where Hibernate reads the JDBC metadata at startup.
+ * <p>
+ * The shard is bound before a transaction starts and kept until it ends, so every statement of a transaction runs
+ * on one shard. Switching shards inside a transaction or a read-only scope fails instead of silently mixing them.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final List<DataSource> shards;
+    private final List<LongAdder> connections;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        this.shards = new ArrayList<>(shards);
+        this.connections = new ArrayList<>(shards.size());
+        shards.forEach(shard -> connections.add(new LongAdder()));
+    }
+
+    /**
+     * Runs the action with the shard bound to the current thread, then restores the previous binding.
+     */
+    public static <T> T callOnShard(int shard, Supplier<T> action) {
+
+        final Integer previous = CURRENT_SHARD.get();
+        if (previous != null && previous != shard && TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Can not switch from shard " + previous + " to shard " + shard
+                    + " inside a transaction");
+        }
+
+        CURRENT_SHARD.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+
+    }
+
+    public static int currentShard() {
+        final Integer shard = CURRENT_SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public long getConnections(int shard) {
+        return connections.get(shard).sum();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final int shard = currentShard();
+        final Connection connection = shard(shard).getConnection();
+        connections.get(shard).increment();
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        final int shard = currentShard();
+        final Connection connection = shard(shard).getConnection(username, password);
+        connections.get(shard).increment();
+        return connection;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource shard : shards) {
+            if (shard instanceof Closeable) {
+                ((Closeable) shard).close();
+            }
+        }
+    }
+
+    private DataSource shard(int shard) {
+        if (shard >= shards.size()) {
+            throw new IllegalStateException("No shard " + shard + ", there are " + shards.size());
+        }
+        return shards.get(shard);
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.example.backend.shared;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * A {@link SequenceStyleGenerator} per shard, each with its own pooled optimizer over the sequence of its shard, so
+ * the preallocated ids of one shard are never used on another. The shard is encoded in the id as
+ * {@code value * shards + shard}, which makes {@code id % shards} the owning shard; with one shard the ids are the
+ * plain sequence values. The shard count comes from the {@value #SHARDS} Hibernate property and must not change
+ * once there are rows.
+ */
+public class ShardedSequenceGenerator implements PersistentIdentifierGenerator, Configurable {
+
+    public static final String SHARDS = "backend.sharding.shards";
+
+    private SequenceStyleGenerator[] generators;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+
+        final int shards = ConfigurationHelper.getInt(SHARDS,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(), 1);
+
+        generators = new SequenceStyleGenerator[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            final Properties shardParams = new Properties();
+            shardParams.putAll(params);
+            generators[shard] = new SequenceStyleGenerator();
+            generators[shard].configure(type, shardParams, serviceRegistry);
+        }
+
+    }
+
+    @Override
+    public void registerExportables(Database database) {
+        // All of them name the same sequence, which is created once; each needs its select statement built.
+        for (SequenceStyleGenerator generator : generators) {
+            generator.registerExportables(database);
+        }
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        final int shard = ShardRoutingDataSource.currentShard();
+        final long value = ((Number) generators[shard].generate(session, object)).longValue();
+        return value * generators.length + shard;
+    }
+
+    @Override
+    public boolean supportsJdbcBatchInserts() {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String[] sqlCreateStrings(Dialect dialect) throws HibernateException {
+        return generators[0].sqlCreateStrings(dialect);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String[] sqlDropStrings(Dialect dialect) throws HibernateException {
+        return generators[0].sqlDropStrings(dialect);
+    }
+
+    @Override
+    public Object generatorKey() {
+        return generators[0].generatorKey();
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.example.backend.shared;
+
+import com.example.backend.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor. It only carries the id of the last returned user, but clients must treat it as an
+ * opaque token so the encoding can change without breaking them.
+ */
+public final class UserCursor {
+
+    private static final String PREFIX = "id:";
+
+    private UserCursor() {
+    }
+
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decode(String cursor) {
+        try {
+            final String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new InvalidCursorException("Invalid cursor : " + cursor);
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor : " + cursor);
+        }
+    }
+
+}
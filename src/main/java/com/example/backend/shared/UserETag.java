@@ -0,0 +1,57 @@
+package com.example.backend.shared;
+
+import com.example.backend.exception.PreconditionFailedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Strong entity tags for a single user: the quoted row version, e.g. {@code "3"}.
+ */
+public final class UserETag {
+
+    // Each listed version costs a compare-and-set attempt
+    public static final int MAX_IF_MATCH_TAGS = 16;
+
+    private UserETag() {
+    }
+
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Parses an {@code If-Match} header into the versions it lists, or an empty list for {@code *}. The update
+     * applies when the current version is any of them. Weak and malformed members can never match a strong
+     * comparison and are skipped; a header with no strong tag left fails the precondition, and so does one listing
+     * more than {@link #MAX_IF_MATCH_TAGS} tags.
+     */
+    public static List<Long> parseIfMatch(String ifMatch) {
+
+        if ("*".equals(ifMatch.trim())) {
+            return Collections.emptyList();
+        }
+
+        final Set<Long> versions = new LinkedHashSet<>();
+        for (String member : ifMatch.split(",")) {
+            final String value = member.trim();
+            if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                try {
+                    versions.add(Long.parseLong(value.substring(1, value.length() - 1)));
+                } catch (NumberFormatException e) {
+                    // never matches
+                }
+            }
+        }
+
+        if (versions.isEmpty() || versions.size() > MAX_IF_MATCH_TAGS) {
+            throw new PreconditionFailedException("If-Match does not match the current version : " + ifMatch);
+        }
+        return new ArrayList<>(versions);
+
+    }
+
+}
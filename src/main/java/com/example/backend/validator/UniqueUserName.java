@@ -23,4 +23,10 @@ public @interface UniqueUserName {
 
     int max() default 2147483647;
 
+    /**
+     * Validation group of the database backed check, so it can be left out when uniqueness is checked in bulk.
+     */
+    interface Check {
+    }
+
 }
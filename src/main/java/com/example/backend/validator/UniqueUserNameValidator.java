@@ -1,6 +1,6 @@
 package com.example.backend.validator;
 
-import com.example.backend.repository.UserRepository;
+import com.example.backend.service.UserNameFilter;
 import lombok.RequiredArgsConstructor;
 
 import javax.validation.ConstraintValidator;
@@ -9,11 +9,11 @@ import javax.validation.ConstraintValidatorContext;
 @RequiredArgsConstructor
 public final class UniqueUserNameValidator implements ConstraintValidator<UniqueUserName, String> {
 
-    private final UserRepository userRepository;
+    private final UserNameFilter userNameFilter;
 
     @Override
     public boolean isValid(String username, ConstraintValidatorContext constraintValidatorContext) {
-        return !userRepository.existsUserByUserName(username);
+        return !userNameFilter.exists(username);
 //        return true;
     }
 }
@@ -0,0 +1,154 @@
+package com.example.backend.api;
+
+import com.example.backend.dto.LatencyStatsDTO;
+import com.example.backend.dto.MetricsDTO;
+import com.example.backend.dto.UserCacheStatsDTO;
+import com.example.backend.dto.UserNameFilterStatsDTO;
+import com.example.backend.service.RequestMetrics;
+import com.example.backend.service.SqlStatementCounter;
+import com.example.backend.service.UserChangeStream;
+import com.example.backend.service.UserNameFilter;
+import com.example.backend.service.UserSuggestIndex;
+import com.example.backend.service.UserViewCache;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(value = InternalAPI.class, excludeAutoConfiguration = SecurityAutoConfiguration.class)
+public class InternalAPITest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RequestMetrics requestMetrics;
+
+    @MockBean
+    private SqlStatementCounter sqlStatementCounter;
+
+    @MockBean
+    private UserViewCache userViewCache;
+
+    @MockBean
+    private UserNameFilter userNameFilter;
+
+    @MockBean
+    private UserSuggestIndex userSuggestIndex;
+
+    @MockBean
+    private UserChangeStream userChangeStream;
+
+    @Test
+    public void Valid_request_to_getUserNameFilterStats_method_should_return_filter_stats() throws Exception {
+
+        // given
+
+        String uri = "/internal/username-filter";
+
+        UserNameFilterStatsDTO stats = UserNameFilterStatsDTO.builder()
+                .ready(true)
+                .configuredFalsePositiveRate(0.01)
+                .queriesSaved(42)
+                .queriesIssued(3)
+                .build();
+
+        // when
+
+        when(userNameFilter.getStats()).thenReturn(stats);
+
+        ResultActions actions = mockMvc.perform(get(uri).accept(APPLICATION_JSON));
+
+        // then
+
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$.ready").value(true));
+        actions.andExpect(jsonPath("$.configuredFalsePositiveRate").value(0.01));
+        actions.andExpect(jsonPath("$.queriesSaved").value(42));
+        actions.andExpect(jsonPath("$.queriesIssued").value(3));
+
+    }
+
+    @Test
+    public void Valid_request_to_getUserCacheStats_method_should_return_cache_counters() throws Exception {
+
+        // given
+
+        String uri = "/internal/user-cache";
+
+        UserCacheStatsDTO stats = UserCacheStatsDTO.builder()
+                .size(2)
+                .hitCount(8)
+                .missCount(2)
+                .hitRate(0.8)
+                .evictionCount(1)
+                .build();
+
+        // when
+
+        when(userViewCache.getStats()).thenReturn(stats);
+
+        ResultActions actions = mockMvc.perform(get(uri).accept(APPLICATION_JSON));
+
+        // then
+
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$.hitCount").value(8));
+        actions.andExpect(jsonPath("$.missCount").value(2));
+        actions.andExpect(jsonPath("$.evictionCount").value(1));
+
+    }
+
+    @Test
+    public void Valid_request_to_getMetrics_method_should_return_latency_percentiles_and_record_the_request() throws Exception {
+
+        // given
+
+        String uri = "/internal/metrics";
+
+        LatencyStatsDTO endpoint = LatencyStatsDTO.builder()
+                .name("GET /api/v1/user/{id}")
+                .count(100)
+                .p50Micros(120)
+                .p99Micros(950)
+                .build();
+
+        MetricsDTO metrics = MetricsDTO.builder()
+                .uptimeSeconds(10)
+                .endpoints(Collections.singletonList(endpoint))
+                .repository(Collections.emptyList())
+                .build();
+
+        // when
+
+        when(requestMetrics.getStats()).thenReturn(metrics);
+
+        ResultActions actions = mockMvc.perform(get(uri).accept(APPLICATION_JSON));
+
+        // then
+
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$.endpoints[0].name").value("GET /api/v1/user/{id}"));
+        actions.andExpect(jsonPath("$.endpoints[0].p99Micros").value(950.0));
+        verify(requestMetrics).recordEndpoint(eq("GET /internal/metrics"), anyLong(), anyLong());
+
+    }
+
+}
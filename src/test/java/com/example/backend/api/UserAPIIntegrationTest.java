@@ -1,19 +1,41 @@
 package com.example.backend.api;
 
 import com.example.backend.exception.UserNotFoundException;
+import com.example.backend.dto.SqlStatementCountDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.model.User;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.SqlStatementCounter;
+import com.example.backend.shared.SqlStatements;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.List;
+
+import static com.example.backend.shared.SqlStatements.assertBudget;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.http.MediaType.APPLICATION_CBOR_VALUE;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -21,9 +43,28 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @RunWith(SpringRunner.class)                //https://stackoverflow.com/questions/58901288/springrunner-vs-springboottest
 public class UserAPIIntegrationTest {
 
+    private static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    private static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+    private static final TypeReference<List<UserViewDTO>> USER_LIST = new TypeReference<List<UserViewDTO>>() {
+    };
+
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Value("${backend.internal.port}")
+    private int internalPort;
+
+    @After
+    public void tearDown() throws Exception {
+        userRepository.deleteAll();
+    }
+
     @Test
     public void Valid_request_with_a_nonexisting_id_to_getUserById_method_should_throw_UserNotFoundException() throws Exception {
 
@@ -43,4 +84,148 @@ public class UserAPIIntegrationTest {
 
     }
 
+    @Test
+    public void Valid_request_after_a_getUserById_call_to_getMetrics_method_on_the_internal_port_should_report_endpoint_and_repository_latencies() throws Exception {
+
+        // given
+
+        mockMvc.perform(get("/api/v1/user/-2").accept(APPLICATION_JSON));
+
+        // when
+
+        ResultActions publicPort = mockMvc.perform(get("/internal/metrics").accept(APPLICATION_JSON));
+        ResultActions publicPathOnInternalPort = mockMvc.perform(get("/api/v1/user/-2").accept(APPLICATION_JSON).with(request -> {
+            request.setLocalPort(internalPort);
+            return request;
+        }));
+        ResultActions actions = mockMvc.perform(get("/internal/metrics").accept(APPLICATION_JSON).with(request -> {
+            request.setLocalPort(internalPort);
+            return request;
+        }));
+
+        // then
+
+        publicPort.andExpect(status().isNotFound());
+        publicPathOnInternalPort.andExpect(status().isNotFound());
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$.endpoints[?(@.name == 'GET /api/v1/user/{id}')].count").isNotEmpty());
+        actions.andExpect(jsonPath("$.endpoints[?(@.name == 'GET /api/v1/user/{id}')].p99Micros").isNotEmpty());
+        actions.andExpect(jsonPath("$.repository[?(@.name == 'findViewById')].count").isNotEmpty());
+
+    }
+
+    @Test
+    public void Valid_request_with_a_valid_body_to_createUser_method_should_stay_within_its_query_budget() throws Exception {
+
+        // given
+
+        String body = "{\"userName\":\"Test-username\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}";
+
+        // when
+
+        SqlStatementCountDTO statements = SqlStatements.count(sqlStatementCounter, () -> mockMvc.perform(post("/api/v1/user")
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk()));
+
+        // then
+
+        // The username filter answers the uniqueness check, so only the insert reaches the database.
+        assertBudget(statements, 0, 1, 0, 0);
+
+    }
+
+    @Test
+    public void Valid_request_accepting_cbor_or_smile_to_getUsers_method_should_return_the_same_users_as_json() throws Exception {
+
+        // given
+
+        for (int i = 0; i < 3; i++) {
+            userRepository.save(new User("Test-username" + i, "Test-firstname" + i, "Test-lastname" + i));
+        }
+
+        // when
+
+        MvcResult json = mockMvc.perform(get("/api/v1/user").accept(APPLICATION_JSON)).andReturn();
+        MvcResult cbor = mockMvc.perform(get("/api/v1/user").accept(APPLICATION_CBOR)).andReturn();
+        MvcResult smile = mockMvc.perform(get("/api/v1/user").accept(APPLICATION_SMILE)).andReturn();
+
+        // then
+
+        assertThat(cbor.getResponse().getContentType()).isEqualTo(APPLICATION_CBOR_VALUE);
+        assertThat(smile.getResponse().getContentType()).isEqualTo(APPLICATION_SMILE_VALUE);
+
+        List<UserViewDTO> expected = new ObjectMapper().readValue(json.getResponse().getContentAsByteArray(), USER_LIST);
+        assertThat(expected).hasSize(3);
+        assertThat(new CBORMapper().<List<UserViewDTO>>readValue(cbor.getResponse().getContentAsByteArray(), USER_LIST)).isEqualTo(expected);
+        assertThat(new SmileMapper().<List<UserViewDTO>>readValue(smile.getResponse().getContentAsByteArray(), USER_LIST)).isEqualTo(expected);
+
+    }
+
+    @Test
+    public void Valid_request_with_csv_body_to_importUsers_method_should_save_valid_rows_and_report_invalid_ones() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/import";
+
+        StringBuilder body = new StringBuilder("userName,firstName,lastName\n");
+        for (int i = 0; i < 2500; i++) {
+            body.append("Test-username").append(i).append(",Test-firstname,Test-lastname\n");
+        }
+        body.append("Test-username0,Test-firstname,Test-lastname\n");
+
+        // when
+
+        ResultActions actions = mockMvc.perform(post(uri)
+                .contentType("text/csv")
+                .accept(APPLICATION_JSON)
+                .content(body.toString()));
+
+        // then
+
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$.rows").value(2501));
+        actions.andExpect(jsonPath("$.created").value(2500));
+        actions.andExpect(jsonPath("$.failed").value(1));
+        actions.andExpect(jsonPath("$.errors[0].line").value(2502));
+
+        assertThat(userRepository.count()).isEqualTo(2500);
+
+    }
+
+    @Test
+    public void Valid_request_to_streamUserChanges_method_should_push_a_created_event_after_commit() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/changes";
+
+        MvcResult stream = mockMvc.perform(get(uri).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // when
+
+        // A name of its own: other tests expect the username filter not to know theirs.
+        mockMvc.perform(post("/api/v1/user")
+                        .contentType(APPLICATION_JSON)
+                        .accept(APPLICATION_JSON)
+                        .content("{\"userName\":\"Test-changes-username\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}"))
+                .andExpect(status().isOk());
+
+        // then
+
+        String content = "";
+        for (int i = 0; i < 500 && !content.contains("event:created"); i++) {
+            Thread.sleep(10);
+            content = stream.getResponse().getContentAsString();
+        }
+
+        assertThat(stream.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        assertThat(content).contains("event:created").contains("\"firstName\":\"Test-firstname\"");
+
+    }
+
 }
@@ -1,11 +1,34 @@
 package com.example.backend.api;
 
+import com.example.backend.dto.UserBatchItemResultDTO;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserBulkDeleteResultDTO;
 import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserCursorPageDTO;
+import com.example.backend.dto.UserExportDTO;
+import com.example.backend.dto.UserImportResultDTO;
+import com.example.backend.dto.UserMultiGetResultDTO;
+import com.example.backend.dto.UserPatchDTO;
+import com.example.backend.dto.UserSearchPageDTO;
+import com.example.backend.dto.UserSuggestionDTO;
 import com.example.backend.dto.UserUpdateDTO;
 import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.ExportNotFoundException;
+import com.example.backend.exception.InvalidCursorException;
+import com.example.backend.exception.InvalidSortException;
+import com.example.backend.exception.PreconditionFailedException;
 import com.example.backend.exception.UserNotFoundException;
-import com.example.backend.repository.UserRepository;
+import com.example.backend.service.RequestMetrics;
+import com.example.backend.service.SqlStatementCounter;
+import com.example.backend.service.UserExportFormat;
+import com.example.backend.service.UserChangeStream;
+import com.example.backend.service.UserExportService;
+import com.example.backend.service.UserImportFormat;
+import com.example.backend.service.UserImportService;
+import com.example.backend.service.UserNameFilter;
 import com.example.backend.service.UserService;
+import com.example.backend.service.UserSuggestField;
+import com.example.backend.service.UserSuggestIndex;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
@@ -15,6 +38,8 @@ import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfi
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -22,10 +47,15 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -44,7 +74,25 @@ public class UserAPITest {
     private UserService userService;
 
     @MockBean
-    private UserRepository userRepository;
+    private UserImportService userImportService;
+
+    @MockBean
+    private UserExportService userExportService;
+
+    @MockBean
+    private UserNameFilter userNameFilter;
+
+    @MockBean
+    private UserSuggestIndex userSuggestIndex;
+
+    @MockBean
+    private UserChangeStream userChangeStream;
+
+    @MockBean
+    private RequestMetrics requestMetrics;
+
+    @MockBean
+    private SqlStatementCounter sqlStatementCounter;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -166,7 +214,7 @@ public class UserAPITest {
 
         // when
 
-        when(userRepository.existsUserByUserName(username)).thenReturn(false);
+        when(userNameFilter.exists(username)).thenReturn(false);
         when(userService.createUser(userCreateDTO)).thenReturn(new UserViewDTO());
 
         String uri = "/api/v1/user";
@@ -203,7 +251,7 @@ public class UserAPITest {
 
         // when
 
-        when(userRepository.existsUserByUserName(username)).thenReturn(true);
+        when(userNameFilter.exists(username)).thenReturn(true);
         when(userService.createUser(userCreateDTO)).thenReturn(new UserViewDTO());
 
         String uri = "/api/v1/user";
@@ -226,6 +274,178 @@ public class UserAPITest {
     }
 
 
+    @Test
+    public void Valid_request_with_a_list_of_UserCreateDTO_objects_to_createUsers_method_should_return_per_item_results() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/batch";
+
+        List<UserCreateDTO> userCreateDTOs = Arrays.asList(
+                UserCreateDTO.builder().userName("Test-username").firstName("Test-firstname").lastName("Test-lastname").build(),
+                UserCreateDTO.builder().userName("ab").firstName("Test-firstname").lastName("Test-lastname").build());
+
+        UserBatchResultDTO batchResult = new UserBatchResultDTO(Arrays.asList(
+                UserBatchItemResultDTO.created(0, new UserViewDTO(1L, "Test-firstname", "Test-lastname")),
+                UserBatchItemResultDTO.failed(1, Collections.singletonList("User Name must be between 4 and 24"))));
+
+        // when
+
+        when(userService.createUsers(userCreateDTOs)).thenReturn(batchResult);
+
+        ResultActions actions = mockMvc.perform(post(uri)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(userCreateDTOs)));
+
+        // then
+
+        String response = actions.andReturn().getResponse().getContentAsString();
+
+        verify(userService).createUsers(userCreateDTOs);
+        actions.andExpect(status().isOk());
+        assertThat(objectMapper.readValue(response, UserBatchResultDTO.class)).isEqualTo(batchResult);
+
+    }
+
+
+    @Test
+    public void Valid_request_with_csv_body_to_importUsers_method_should_return_import_summary() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/import";
+
+        UserImportResultDTO importResult = UserImportResultDTO.builder()
+                .rows(2)
+                .created(2)
+                .rowsPerSecond(1000)
+                .errors(Collections.emptyList())
+                .build();
+
+        // when
+
+        when(userImportService.importUsers(any(), eq(UserImportFormat.CSV))).thenReturn(importResult);
+
+        ResultActions actions = mockMvc.perform(post(uri)
+                .contentType("text/csv")
+                .accept(APPLICATION_JSON)
+                .content("Test-username1,Test-firstname,Test-lastname\nTest-username2,Test-firstname,Test-lastname\n"));
+
+        // then
+
+        verify(userImportService).importUsers(any(), eq(UserImportFormat.CSV));
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$.rows").value(2));
+        actions.andExpect(jsonPath("$.created").value(2));
+
+    }
+
+    @Test
+    public void Valid_request_with_ndjson_body_to_importUsers_method_should_use_ndjson_format() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/import";
+
+        // when
+
+        when(userImportService.importUsers(any(), eq(UserImportFormat.NDJSON)))
+                .thenReturn(UserImportResultDTO.builder().errors(Collections.emptyList()).build());
+
+        ResultActions actions = mockMvc.perform(post(uri)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"userName\":\"Test-username\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}\n"));
+
+        // then
+
+        verify(userImportService).importUsers(any(), eq(UserImportFormat.NDJSON));
+        actions.andExpect(status().isOk());
+
+    }
+
+
+    @Test
+    public void Valid_request_with_binary_format_to_exportUsers_method_should_return_export_summary() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/export";
+
+        UserExportDTO export = UserExportDTO.builder()
+                .name("users-20261017T101010000.bin")
+                .format(UserExportFormat.BINARY)
+                .rows(3)
+                .build();
+
+        // when
+
+        when(userExportService.exportUsers(UserExportFormat.BINARY)).thenReturn(export);
+
+        ResultActions actions = mockMvc.perform(post(uri).queryParam("format", "BINARY").accept(APPLICATION_JSON));
+
+        // then
+
+        verify(userExportService).exportUsers(UserExportFormat.BINARY);
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$.name").value(export.getName()));
+        actions.andExpect(jsonPath("$.rows").value(3));
+
+    }
+
+    @Test
+    public void Valid_request_with_an_existing_export_name_to_downloadExport_method_should_stream_the_file() throws Exception {
+
+        // given
+
+        String name = "users-20261017T101010000.csv";
+        String uri = "/api/v1/user/export/" + name;
+
+        Path file = Files.createTempFile("users-", ".csv");
+        Files.write(file, "id,user_name,first_name,last_name\n1,Test-username,Test-firstname,Test-lastname\n".getBytes(StandardCharsets.UTF_8));
+
+        // when
+
+        when(userExportService.getExportFile(name)).thenReturn(file);
+
+        MvcResult mvcResult = mockMvc.perform(get(uri))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        ResultActions actions = mockMvc.perform(asyncDispatch(mvcResult));
+
+        // then
+
+        actions.andExpect(status().isOk());
+        actions.andExpect(header().longValue("Content-Length", Files.size(file)));
+        actions.andExpect(header().string("Content-Disposition", "attachment; filename=\"" + name + "\""));
+        actions.andExpect(content().bytes(Files.readAllBytes(file)));
+
+        Files.delete(file);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_nonexisting_export_name_to_downloadExport_method_should_return_HTTPNotFound() throws Exception {
+
+        // given
+
+        String name = "users-missing.csv";
+
+        // when
+
+        when(userExportService.getExportFile(name)).thenThrow(new ExportNotFoundException("Export not found : " + name));
+
+        ResultActions actions = mockMvc.perform(get("/api/v1/user/export/" + name));
+
+        // then
+
+        actions.andExpect(status().isNotFound());
+        actions.andExpect(result -> assertThat(result.getResolvedException()).isInstanceOf(ExportNotFoundException.class));
+
+    }
+
+
     @Test
     public void Valid_Request_with_zero_record_in_DB_to_getUsers_method_should_return_empty_list_of_users() throws Exception {
 
@@ -328,6 +548,212 @@ public class UserAPITest {
     }
 
 
+    @Test
+    public void Valid_request_with_an_existing_id_and_a_partial_body_to_patchUser_method_should_return_UserViewDTO_of_patched_user() throws Exception {
+
+        // given
+
+        long id = 1L;
+
+        String uri = "/api/v1/user/" + id;
+
+        UserPatchDTO userPatchDTO = UserPatchDTO.builder()
+                .firstName("Test-firstname")
+                .build();
+
+        UserViewDTO userViewDTO = new UserViewDTO(id, "Test-firstname", "Test-lastname");
+
+        // when
+
+        when(userService.patchUser(id, userPatchDTO)).thenReturn(userViewDTO);
+
+        ResultActions actions = mockMvc.perform(patch(uri)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("{\"firstName\":\"Test-firstname\"}")
+                .accept(APPLICATION_JSON));
+
+        // then
+
+        verify(userService).patchUser(id, userPatchDTO);
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$.lastName").value("Test-lastname"));
+
+    }
+
+    @Test
+    public void Invalid_request_with_a_too_short_lastName_to_patchUser_method_should_return_HTTPBadRequest() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/1";
+
+        // when
+
+        ResultActions actions = mockMvc.perform(patch(uri)
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content("{\"lastName\":\"ab\"}")
+                .accept(APPLICATION_JSON));
+
+        // then
+
+        actions.andExpect(status().isBadRequest());
+        verify(userService, never()).patchUser(anyLong(), any());
+
+    }
+
+    @Test
+    public void Valid_request_with_a_matching_If_None_Match_to_getUserById_method_should_return_HTTPNotModified() throws Exception {
+
+        // given
+
+        long id = 1L;
+        String uri = "/api/v1/user/" + id;
+
+        UserViewDTO userViewDTO = new UserViewDTO(id, "Test-firstname", "Test-lastname", 4L);
+
+        // when
+
+        when(userService.getUserById(id)).thenReturn(userViewDTO);
+
+        ResultActions first = mockMvc.perform(get(uri).accept(APPLICATION_JSON));
+        ResultActions second = mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, "\"4\"").accept(APPLICATION_JSON));
+
+        // then
+
+        first.andExpect(status().isOk());
+        first.andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+        first.andExpect(jsonPath("$.version").doesNotExist());
+
+        second.andExpect(status().isNotModified());
+        second.andExpect(content().string(""));
+
+    }
+
+    @Test
+    public void Valid_request_with_a_matching_If_None_Match_to_getUsers_method_should_return_HTTPNotModified_without_reading_users() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user";
+        String eTag = "\"kx1-7\"";
+
+        // when
+
+        when(userService.getUsersETag()).thenReturn(eTag);
+
+        ResultActions actions = mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, eTag).accept(APPLICATION_JSON));
+
+        // then
+
+        actions.andExpect(status().isNotModified());
+        actions.andExpect(header().string(HttpHeaders.ETAG, eTag));
+        verify(userService, never()).getUsers();
+
+    }
+
+    @Test
+    public void Valid_request_with_If_Match_to_updateUser_method_should_pass_the_expected_version_and_return_new_ETag() throws Exception {
+
+        // given
+
+        long id = 1L;
+        String uri = "/api/v1/user/" + id;
+
+        UserUpdateDTO userUpdateDTO = UserUpdateDTO.builder()
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build();
+
+        // when
+
+        when(userService.updateUser(id, userUpdateDTO, 4L))
+                .thenReturn(new UserViewDTO(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName(), 5L));
+
+        RequestBuilder request = put(uri)
+                .header(HttpHeaders.IF_MATCH, "\"4\"")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(objectMapper.writeValueAsString(userUpdateDTO))
+                .accept(APPLICATION_JSON);
+
+        ResultActions actions = mockMvc.perform(request);
+
+        // then
+
+        verify(userService).updateUser(id, userUpdateDTO, 4L);
+        actions.andExpect(status().isOk());
+        actions.andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+
+    }
+
+    @Test
+    public void Valid_request_with_a_multi_valued_If_Match_to_updateUser_method_should_update_when_any_tag_matches() throws Exception {
+
+        // given
+
+        long id = 1L;
+        String uri = "/api/v1/user/" + id;
+
+        UserUpdateDTO userUpdateDTO = UserUpdateDTO.builder()
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build();
+
+        // when
+
+        when(userService.updateUser(id, userUpdateDTO, 3L))
+                .thenThrow(new PreconditionFailedException("User 1 has been modified, expected version : 3"));
+        when(userService.updateUser(id, userUpdateDTO, 4L))
+                .thenReturn(new UserViewDTO(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName(), 5L));
+
+        RequestBuilder request = put(uri)
+                .header(HttpHeaders.IF_MATCH, "\"3\", W/\"7\", \"4\"")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(objectMapper.writeValueAsString(userUpdateDTO))
+                .accept(APPLICATION_JSON);
+
+        ResultActions actions = mockMvc.perform(request);
+
+        // then
+
+        verify(userService).updateUser(id, userUpdateDTO, 3L);
+        verify(userService).updateUser(id, userUpdateDTO, 4L);
+        verify(userService, never()).updateUser(id, userUpdateDTO, 7L);
+        actions.andExpect(status().isOk());
+        actions.andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+
+    }
+
+    @Test
+    public void Valid_request_with_a_weak_If_Match_to_updateUser_method_should_return_HTTPPreconditionFailed() throws Exception {
+
+        // given
+
+        long id = 1L;
+        String uri = "/api/v1/user/" + id;
+
+        UserUpdateDTO userUpdateDTO = UserUpdateDTO.builder()
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build();
+
+        // when
+
+        RequestBuilder request = put(uri)
+                .header(HttpHeaders.IF_MATCH, "W/\"4\"")
+                .contentType(MediaType.APPLICATION_JSON_VALUE)
+                .content(objectMapper.writeValueAsString(userUpdateDTO))
+                .accept(APPLICATION_JSON);
+
+        ResultActions actions = mockMvc.perform(request);
+
+        // then
+
+        actions.andExpect(status().isPreconditionFailed());
+        actions.andExpect(result -> assertThat(result.getResolvedException()).isInstanceOf(PreconditionFailedException.class));
+        verifyNoInteractions(userService);
+
+    }
+
     @Test
     public void Valid_request_with_an_existing_id_to_updateUser_method_should_return_UserViewDTO_of_updated_user() throws Exception {
 
@@ -402,6 +828,86 @@ public class UserAPITest {
     }
 
 
+    @Test
+    public void Valid_request_with_a_list_of_ids_to_deleteUsers_method_should_return_deleted_count() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user";
+
+        // when
+
+        when(userService.deleteUsers(Arrays.asList(1L, 2L, 3L))).thenReturn(new UserBulkDeleteResultDTO(3, 2));
+
+        ResultActions actions = mockMvc.perform(delete(uri).queryParam("ids", "1,2,3").accept(APPLICATION_JSON));
+
+        // then
+
+        verify(userService).deleteUsers(Arrays.asList(1L, 2L, 3L));
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$.requested").value(3));
+        actions.andExpect(jsonPath("$.deleted").value(2));
+
+    }
+
+    @Test
+    public void Valid_request_with_a_list_of_ids_to_getUsersByIds_method_should_return_users_and_missing_ids() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user";
+
+        UserMultiGetResultDTO result = new UserMultiGetResultDTO(
+                Arrays.asList(new UserViewDTO(3L, "Test-firstname3", "Test-lastname3"),
+                        new UserViewDTO(1L, "Test-firstname1", "Test-lastname1")),
+                Collections.singletonList(2L));
+
+        // when
+
+        when(userService.getUsersByIds(Arrays.asList(3L, 1L, 2L))).thenReturn(result);
+
+        ResultActions actions = mockMvc.perform(get(uri).queryParam("ids", "3,1,2").accept(APPLICATION_JSON));
+
+        // then
+
+        String response = actions.andReturn().getResponse().getContentAsString();
+
+        actions.andExpect(status().isOk());
+        assertThat(objectMapper.readValue(response, UserMultiGetResultDTO.class)).isEqualTo(result);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_list_of_ids_to_lookupUsers_method_should_return_users_and_missing_ids() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/lookup";
+
+        List<Long> ids = Arrays.asList(1L, 2L);
+        UserMultiGetResultDTO result = new UserMultiGetResultDTO(
+                Collections.singletonList(new UserViewDTO(1L, "Test-firstname1", "Test-lastname1")),
+                Collections.singletonList(2L));
+
+        // when
+
+        when(userService.getUsersByIds(ids)).thenReturn(result);
+
+        ResultActions actions = mockMvc.perform(post(uri)
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ids)));
+
+        // then
+
+        String response = actions.andReturn().getResponse().getContentAsString();
+
+        verify(userService).getUsersByIds(ids);
+        actions.andExpect(status().isOk());
+        assertThat(objectMapper.readValue(response, UserMultiGetResultDTO.class)).isEqualTo(result);
+
+    }
+
     @Test
     public void Valid_request_with_an_existing_id_to_deleteUser_method_should_return_GenericResponse() throws Exception {
 
@@ -427,6 +933,81 @@ public class UserAPITest {
     }
 
 
+    @Test
+    public void Valid_request_to_streamUsers_method_should_write_a_json_array_of_users() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/stream";
+
+        List<UserViewDTO> userViewDTOList = Arrays.asList(
+                new UserViewDTO(1L, "Test-firstname", "Test-lastname"),
+                new UserViewDTO(2L, "Test-firstname1", "Test-lastname1"));
+
+        // when
+
+        doAnswer(invocation -> {
+            Consumer<UserViewDTO> action = invocation.getArgument(0);
+            userViewDTOList.forEach(action);
+            return null;
+        }).when(userService).streamUsers(any());
+
+        MvcResult mvcResult = mockMvc.perform(get(uri).accept(APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        ResultActions actions = mockMvc.perform(asyncDispatch(mvcResult));
+
+        // then
+
+        String response = actions.andReturn().getResponse().getContentAsString();
+        List<UserViewDTO> responseList = objectMapper.readValue(response, new TypeReference<List<UserViewDTO>>() {
+        });
+
+        actions.andExpect(status().isOk());
+        actions.andExpect(content().contentType(APPLICATION_JSON));
+        assertThat(responseList).isEqualTo(userViewDTOList);
+
+    }
+
+    @Test
+    public void Valid_request_with_ndjson_accept_header_to_streamUsers_method_should_write_one_user_per_line() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/stream";
+
+        List<UserViewDTO> userViewDTOList = Arrays.asList(
+                new UserViewDTO(1L, "Test-firstname", "Test-lastname"),
+                new UserViewDTO(2L, "Test-firstname1", "Test-lastname1"));
+
+        // when
+
+        doAnswer(invocation -> {
+            Consumer<UserViewDTO> action = invocation.getArgument(0);
+            userViewDTOList.forEach(action);
+            return null;
+        }).when(userService).streamUsers(any());
+
+        MvcResult mvcResult = mockMvc.perform(get(uri).accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        ResultActions actions = mockMvc.perform(asyncDispatch(mvcResult));
+
+        // then
+
+        String expected = objectMapper.writeValueAsString(userViewDTOList.get(0)) + "\n"
+                + objectMapper.writeValueAsString(userViewDTOList.get(1)) + "\n";
+
+        actions.andExpect(status().isOk());
+        actions.andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+        assertThat(actions.andReturn().getResponse().getContentAsByteArray())
+                .isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+
+    }
+
+
     @Test
     public void Valid_request_with_pageable_object_to_slice_method_should_return_slice_of_UserViewDTOs() throws Exception {
 
@@ -463,6 +1044,154 @@ public class UserAPITest {
     }
 
 
+    @Test
+    public void Valid_request_with_cursor_and_limit_to_sliceAfter_method_should_return_page_with_next_cursor() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/keyset";
+        String after = "aWQ6Mw";
+
+        UserCursorPageDTO page = new UserCursorPageDTO(
+                Collections.singletonList(new UserViewDTO(4L, "Test-firstname", "Test-lastname")), "aWQ6NA");
+
+        // when
+
+        when(userService.sliceAfter(after, 1)).thenReturn(page);
+
+        ResultActions actions = mockMvc.perform(get(uri)
+                .accept(APPLICATION_JSON)
+                .queryParam("after", after)
+                .queryParam("limit", "1"));
+
+        // then
+
+        String response = actions.andReturn().getResponse().getContentAsString();
+
+        verify(userService).sliceAfter(after, 1);
+        actions.andExpect(status().isOk());
+        assertThat(objectMapper.readValue(response, UserCursorPageDTO.class)).isEqualTo(page);
+
+    }
+
+    @Test
+    public void Valid_request_with_an_invalid_cursor_to_sliceAfter_method_should_return_HTTPBadRequest() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/keyset";
+
+        // when
+
+        when(userService.sliceAfter("broken", 20)).thenThrow(new InvalidCursorException("Invalid cursor : broken"));
+
+        ResultActions actions = mockMvc.perform(get(uri).accept(APPLICATION_JSON).queryParam("after", "broken"));
+
+        // then
+
+        actions.andExpect(status().isBadRequest());
+        actions.andExpect(result -> assertThat(result.getResolvedException()).isInstanceOf(InvalidCursorException.class));
+
+    }
+
+
+    @Test
+    public void Valid_request_with_filters_and_sort_to_searchUsers_method_should_return_search_page() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/search";
+
+        UserSearchPageDTO page = new UserSearchPageDTO(
+                Collections.singletonList(new UserViewDTO(4L, "Test-firstname", "Test-lastname")), 0, 10, false);
+
+        // when
+
+        when(userService.searchUsers(null, "Test-lastname", "Test", PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "firstName"))))
+                .thenReturn(page);
+
+        ResultActions actions = mockMvc.perform(get(uri)
+                .accept(APPLICATION_JSON)
+                .queryParam("lastName", "Test-lastname")
+                .queryParam("userNamePrefix", "Test")
+                .queryParam("size", "10")
+                .queryParam("sort", "firstName,desc"));
+
+        // then
+
+        String response = actions.andReturn().getResponse().getContentAsString();
+
+        actions.andExpect(status().isOk());
+        assertThat(objectMapper.readValue(response, UserSearchPageDTO.class)).isEqualTo(page);
+
+    }
+
+    @Test
+    public void Valid_request_with_an_unindexed_sort_to_searchUsers_method_should_return_HTTPBadRequest() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/search";
+
+        // when
+
+        when(userService.searchUsers(any(), any(), any(), any()))
+                .thenThrow(new InvalidSortException("Sort property must be one of [id, userName, lastName, firstName] : version"));
+
+        ResultActions actions = mockMvc.perform(get(uri).accept(APPLICATION_JSON).queryParam("sort", "version"));
+
+        // then
+
+        actions.andExpect(status().isBadRequest());
+        actions.andExpect(result -> assertThat(result.getResolvedException()).isInstanceOf(InvalidSortException.class));
+
+    }
+
+    @Test
+    public void Valid_request_with_a_prefix_to_suggest_method_should_return_suggestions() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/suggest";
+
+        List<UserSuggestionDTO> suggestions = Arrays.asList(
+                new UserSuggestionDTO(1L, UserSuggestField.USER_NAME, "Test-username"),
+                new UserSuggestionDTO(2L, UserSuggestField.FIRST_NAME, "Test-firstname"));
+
+        // when
+
+        when(userSuggestIndex.search("te", 5)).thenReturn(suggestions);
+
+        ResultActions actions = mockMvc.perform(get(uri).param("prefix", "te").param("limit", "5").accept(APPLICATION_JSON));
+
+        // then
+
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$[0].id").value(1));
+        actions.andExpect(jsonPath("$[0].field").value("USER_NAME"));
+        actions.andExpect(jsonPath("$[1].value").value("Test-firstname"));
+
+    }
+
+    @Test
+    public void Valid_request_with_a_blank_prefix_to_suggest_method_should_return_an_empty_list() throws Exception {
+
+        // given
+
+        String uri = "/api/v1/user/suggest";
+
+        // when
+
+        ResultActions actions = mockMvc.perform(get(uri).param("prefix", " ").accept(APPLICATION_JSON));
+
+        // then
+
+        actions.andExpect(status().isOk());
+        actions.andExpect(jsonPath("$").isEmpty());
+        verify(userSuggestIndex, never()).search(any(), anyInt());
+
+    }
+
     @Test
     public void Valid_request_with_a_nonexisting_username_to_isUsernameExists_method_should_return_false() throws Exception {
 
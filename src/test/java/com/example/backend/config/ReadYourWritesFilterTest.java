@@ -0,0 +1,74 @@
+package com.example.backend.config;
+
+import com.example.backend.shared.ReadWriteRoutingDataSource;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.Cookie;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(2000);
+
+    @Test
+    public void Valid_mutating_request_to_doFilter_method_should_set_the_cookie_and_pin_to_the_primary() throws Exception {
+
+        // given
+
+        AtomicBoolean pinned = new AtomicBoolean();
+        FilterChain filterChain = (request, response) -> pinned.set(ReadWriteRoutingDataSource.isPinnedToPrimary());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+
+        long before = System.currentTimeMillis();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/v1/user"), response, filterChain);
+
+        // then
+
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertThat(cookie).isNotNull();
+        assertThat(Long.parseLong(cookie.getValue())).isGreaterThanOrEqualTo(before + 2000);
+        assertThat(cookie.getMaxAge()).isEqualTo(2);
+        assertThat(pinned.get()).isTrue();
+        assertThat(ReadWriteRoutingDataSource.isPinnedToPrimary()).isFalse();
+
+    }
+
+    @Test
+    public void Valid_read_request_with_or_without_an_open_window_to_doFilter_method_should_pin_only_inside_the_window() throws Exception {
+
+        // given
+
+        AtomicBoolean pinned = new AtomicBoolean();
+        FilterChain filterChain = (request, response) -> pinned.set(ReadWriteRoutingDataSource.isPinnedToPrimary());
+
+        MockHttpServletRequest inWindow = new MockHttpServletRequest("GET", "/api/v1/user");
+        inWindow.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, Long.toString(System.currentTimeMillis() + 1000)));
+        MockHttpServletRequest expired = new MockHttpServletRequest("GET", "/api/v1/user");
+        expired.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, Long.toString(System.currentTimeMillis() - 1)));
+
+        // when
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(inWindow, response, filterChain);
+        boolean pinnedInWindow = pinned.get();
+        filter.doFilter(expired, new MockHttpServletResponse(), filterChain);
+        boolean pinnedAfterWindow = pinned.get();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/user"), new MockHttpServletResponse(), filterChain);
+
+        // then
+
+        assertThat(pinnedInWindow).isTrue();
+        assertThat(pinnedAfterWindow).isFalse();
+        assertThat(pinned.get()).isFalse();
+        assertThat(response.getCookie(ReadYourWritesFilter.COOKIE_NAME)).isNull();
+
+    }
+
+}
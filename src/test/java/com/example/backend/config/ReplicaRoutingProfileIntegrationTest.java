@@ -0,0 +1,124 @@
+package com.example.backend.config;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.DataSourceRoutingStatsDTO;
+import com.example.backend.dto.ReplicaStatsDTO;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserUpdateDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.service.UserService;
+import com.example.backend.shared.ReadWriteRoutingDataSource;
+import org.junit.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the application with the {@code replicas} profile: one H2 primary and two H2 replicas linked to it.
+ */
+public class ReplicaRoutingProfileIntegrationTest {
+
+    @Test
+    public void Valid_requests_with_the_replicas_profile_should_write_to_the_primary_and_read_from_the_replicas() {
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("replicas")
+                .run("--spring.datasource.url=jdbc:h2:mem:replica_routing_test",
+                        "--spring.devtools.restart.enabled=false",
+                        "--backend.datasource.replicas.health-check-interval-ms=3600000")) {
+
+            // given
+
+            UserService userService = context.getBean(UserService.class);
+            ReadWriteRoutingDataSource routingDataSource = context.getBean(ReadWriteRoutingDataSource.class);
+
+            // when
+
+            long primaryBefore = routingDataSource.getStats().getPrimaryConnections();
+            UserViewDTO created = userService.createUser(UserCreateDTO.builder()
+                    .userName("Test-username")
+                    .firstName("Test-firstname")
+                    .lastName("Test-lastname")
+                    .build());
+            long primaryAfterWrite = routingDataSource.getStats().getPrimaryConnections();
+
+            UserViewDTO first = userService.getUsersByIds(Collections.singletonList(created.getId())).getUsers().get(0);
+            userService.getUsersByIds(Collections.singletonList(created.getId()));
+
+            // then
+
+            DataSourceRoutingStatsDTO stats = routingDataSource.getStats();
+            assertThat(first).isEqualTo(created);
+            assertThat(primaryAfterWrite).isEqualTo(primaryBefore + 1);
+            assertThat(stats.getPrimaryConnections()).isEqualTo(primaryAfterWrite);
+            assertThat(stats.getReplicas()).extracting(ReplicaStatsDTO::getConnections).containsExactly(1L, 1L);
+            assertThat(stats.getFallbackReads()).isZero();
+
+        }
+
+    }
+
+    @Test
+    public void Valid_requests_with_a_lagging_replica_should_fill_the_user_cache_and_the_user_list_from_the_primary() throws Exception {
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:lagging_replica_primary",
+                        "--spring.devtools.restart.enabled=false",
+                        "--backend.datasource.replicas.enabled=true",
+                        "--backend.datasource.replicas.urls[0]=jdbc:h2:mem:lagging_replica;DB_CLOSE_DELAY=-1",
+                        "--backend.datasource.replicas.health-check-interval-ms=3600000")) {
+
+            // given
+
+            UserService userService = context.getBean(UserService.class);
+            ReadWriteRoutingDataSource routingDataSource = context.getBean(ReadWriteRoutingDataSource.class);
+
+            UserViewDTO created = userService.createUser(UserCreateDTO.builder()
+                    .userName("Test-username")
+                    .firstName("Test-firstname")
+                    .lastName("Test-lastname")
+                    .build());
+
+            // The replica stops applying changes here: its users table is a copy of the primary's rows at this point.
+            try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:lagging_replica", "sami", "ersun");
+                 Statement statement = connection.createStatement()) {
+                statement.execute("CREATE LINKED TABLE PRIMARY_USERS('org.h2.Driver', 'jdbc:h2:mem:lagging_replica_primary', "
+                        + "'sami', 'ersun', 'PUBLIC', 'USERS')");
+                statement.execute("CREATE TABLE USERS AS SELECT * FROM PRIMARY_USERS");
+                statement.execute("DROP TABLE PRIMARY_USERS");
+            }
+
+            UserViewDTO updated = userService.updateUser(created.getId(), UserUpdateDTO.builder()
+                    .firstName("Test-firstname-updated")
+                    .lastName("Test-lastname-updated")
+                    .build());
+
+            // when
+
+            UserViewDTO fromReplica = userService.getUsersByIds(Collections.singletonList(created.getId())).getUsers().get(0);
+            long pinnedBefore = routingDataSource.getStats().getPinnedReads();
+            UserViewDTO loaded = userService.getUserById(created.getId());
+            UserViewDTO cached = userService.getUserById(created.getId());
+
+            // then
+
+            assertThat(fromReplica).isEqualTo(created);
+            assertThat(loaded).isEqualTo(updated);
+            assertThat(cached).isEqualTo(updated);
+            assertThat(userService.getUsers()).containsExactly(updated);
+            assertThat(routingDataSource.getStats().getPinnedReads()).isEqualTo(pinnedBefore + 2);
+
+        }
+
+    }
+
+}
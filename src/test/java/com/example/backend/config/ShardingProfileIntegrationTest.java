@@ -0,0 +1,191 @@
+package com.example.backend.config;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.UserBatchItemResultDTO;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserCursorPageDTO;
+import com.example.backend.dto.UserSearchPageDTO;
+import com.example.backend.dto.UserUpdateDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.InvalidPageException;
+import com.example.backend.exception.InvalidSortException;
+import com.example.backend.exception.UserNotFoundException;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.UserService;
+import com.example.backend.service.UserShards;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Starts the application with the {@code shards} profile over two in-memory H2 databases.
+ */
+public class ShardingProfileIntegrationTest {
+
+    private static ConfigurableApplicationContext context;
+    private static UserService userService;
+    private static UserShards userShards;
+    private static UserRepository userRepository;
+
+    @BeforeClass
+    public static void setUp() {
+
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("shards")
+                .run("--backend.sharding.urls[0]=jdbc:h2:mem:sharding_test_0",
+                        "--backend.sharding.urls[1]=jdbc:h2:mem:sharding_test_1",
+                        "--spring.devtools.restart.enabled=false");
+
+        userService = context.getBean(UserService.class);
+        userShards = context.getBean(UserShards.class);
+        userRepository = context.getBean(UserRepository.class);
+
+    }
+
+    @AfterClass
+    public static void tearDownContext() {
+        context.close();
+    }
+
+    @After
+    public void tearDown() {
+        userService.deleteUsers(userService.getUsers().stream().map(UserViewDTO::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void Valid_request_with_users_to_createUsers_method_should_store_each_on_the_shard_of_its_user_name() {
+
+        // given
+
+        List<UserCreateDTO> users = users("Test-shard-username", 20);
+
+        // when
+
+        UserBatchResultDTO result = userService.createUsers(users);
+
+        // then
+
+        assertThat(result.getCreated()).isEqualTo(20);
+        for (UserBatchItemResultDTO item : result.getResults()) {
+            long id = item.getUser().getId();
+            int shard = userShards.shardOfUserName(users.get(item.getIndex()).getUserName());
+            assertThat(userShards.shardOf(id)).isEqualTo(shard);
+            boolean onOwner = userShards.call(shard, () -> userRepository.existsById(id));
+            boolean onOther = userShards.call(1 - shard, () -> userRepository.existsById(id));
+            assertThat(onOwner).isTrue();
+            assertThat(onOther).isFalse();
+        }
+        long onFirstShard = userShards.call(0, userRepository::count);
+        long onSecondShard = userShards.call(1, userRepository::count);
+        assertThat(onFirstShard).isPositive();
+        assertThat(onSecondShard).isPositive();
+
+    }
+
+    @Test
+    public void Valid_request_with_a_taken_user_name_should_be_rejected_and_single_user_calls_should_reach_its_shard() {
+
+        // given
+
+        UserViewDTO created = userService.createUser(UserCreateDTO.builder()
+                .userName("Test-shard-taken")
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build());
+
+        // when
+
+        UserBatchResultDTO duplicate = userService.createUsers(Arrays.asList(
+                UserCreateDTO.builder().userName("Test-shard-taken").firstName("Test-firstname").lastName("Test-lastname").build(),
+                UserCreateDTO.builder().userName("Test-shard-free").firstName("Test-firstname").lastName("Test-lastname").build(),
+                null));
+        UserViewDTO updated = userService.updateUser(created.getId(),
+                UserUpdateDTO.builder().firstName("Test-firstname2").lastName("Test-lastname2").build());
+
+        // then
+
+        assertThat(duplicate.getResults().get(0).getErrors()).isNotEmpty();
+        assertThat(duplicate.getResults().get(1).getUser()).isNotNull();
+        assertThat(duplicate.getResults().get(2).getErrors()).containsExactly("User must not be null");
+        assertThat(userService.isUsernameExists("Test-shard-taken")).isTrue();
+        assertThat(userService.isUsernameExists("Test-shard-unknown")).isFalse();
+        assertThat(userService.getUserById(created.getId())).isEqualTo(updated);
+
+        userService.deleteUser(created.getId());
+        assertThatThrownBy(() -> userService.getUserById(created.getId())).isInstanceOf(UserNotFoundException.class);
+
+    }
+
+    @Test
+    public void Valid_request_with_users_on_both_shards_to_read_methods_should_merge_them_in_order() {
+
+        // given
+
+        userService.createUsers(users("Test-shard-page", 30));
+        List<UserViewDTO> all = new ArrayList<>(userService.getUsers());
+        Comparator<UserViewDTO> byLastNameDesc = Comparator.comparing(UserViewDTO::getLastName).reversed()
+                .thenComparing(UserViewDTO::getId, Comparator.reverseOrder());
+
+        // when
+
+        List<UserViewDTO> slice = userService.slice(PageRequest.of(1, 7, Sort.by(Sort.Direction.DESC, "lastName")));
+        UserCursorPageDTO first = userService.sliceAfter(null, 16);
+        UserCursorPageDTO second = userService.sliceAfter(first.getNextCursor(), 16);
+        UserSearchPageDTO search = userService.searchUsers(null, null, "Test-shard-page", PageRequest.of(2, 10, Sort.by("firstName")));
+        List<UserViewDTO> streamed = new ArrayList<>();
+        userService.streamUsers(streamed::add);
+
+        // then
+
+        assertThat(all).hasSize(30).isSortedAccordingTo(Comparator.comparing(UserViewDTO::getId));
+        assertThat(slice).containsExactlyElementsOf(all.stream().sorted(byLastNameDesc).skip(7).limit(7).collect(Collectors.toList()));
+        assertThat(first.getUsers()).containsExactlyElementsOf(all.subList(0, 16));
+        assertThat(second.getUsers()).containsExactlyElementsOf(all.subList(16, 30));
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(search.getUsers()).containsExactlyElementsOf(all.stream()
+                .sorted(Comparator.comparing(UserViewDTO::getFirstName).thenComparing(UserViewDTO::getId))
+                .skip(20)
+                .collect(Collectors.toList()));
+        assertThat(search.isHasNext()).isFalse();
+        assertThat(streamed).containsExactlyElementsOf(all);
+        assertThatThrownBy(() -> userService.slice(PageRequest.of(0, 10, Sort.by("userName"))))
+                .isInstanceOf(InvalidSortException.class);
+        assertThatThrownBy(() -> userService.slice(PageRequest.of(1001, 10)))
+                .isInstanceOf(InvalidPageException.class);
+        assertThatThrownBy(() -> userService.searchUsers(null, null, "Test-shard-page", PageRequest.of(Integer.MAX_VALUE / 10, 10)))
+                .isInstanceOf(InvalidPageException.class);
+
+    }
+
+    private static List<UserCreateDTO> users(String prefix, int count) {
+
+        List<UserCreateDTO> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(UserCreateDTO.builder()
+                    .userName(prefix + i)
+                    .firstName("Test-firstname" + (char) ('a' + (i * 7) % 26))
+                    .lastName("Test-lastname" + (char) ('a' + (i * 11) % 26))
+                    .build());
+        }
+        return users;
+
+    }
+
+}
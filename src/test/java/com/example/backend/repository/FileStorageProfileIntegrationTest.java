@@ -0,0 +1,68 @@
+package com.example.backend.repository;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.model.User;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the application twice with the {@code file} profile on the same directory, the way a restart would.
+ */
+public class FileStorageProfileIntegrationTest {
+
+    private static final Path DIRECTORY = Paths.get("target", "file-storage-test").toAbsolutePath();
+
+    @After
+    public void tearDown() throws Exception {
+        FileSystemUtils.deleteRecursively(DIRECTORY);
+    }
+
+    @Test
+    public void Valid_restart_with_the_file_profile_should_keep_saved_users_and_the_user_name_index() {
+
+        // given
+
+        long id;
+        try (ConfigurableApplicationContext context = start()) {
+            id = context.getBean(UserRepository.class).save(new User("Test-username", "Test-firstname", "Test-lastname")).getId();
+        }
+
+        // when
+
+        try (ConfigurableApplicationContext context = start()) {
+
+            Optional<UserViewDTO> user = context.getBean(UserRepository.class).findViewById(id);
+            Integer indexes = context.getBean(JdbcTemplate.class).queryForObject(
+                    "select count(*) from information_schema.constraints where table_name = 'USERS' and constraint_name = ?",
+                    Integer.class, User.USER_NAME_INDEX.toUpperCase());
+
+            // then
+
+            assertThat(user).contains(new UserViewDTO(id, "Test-firstname", "Test-lastname"));
+            assertThat(indexes).isEqualTo(1);
+        }
+
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("file")
+                .run("--backend.storage.directory=" + DIRECTORY,
+                        "--spring.devtools.restart.enabled=false",
+                        "--backend.username-filter.rebuild-interval-ms=3600000");
+    }
+
+}
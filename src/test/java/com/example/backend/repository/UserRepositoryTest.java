@@ -1,14 +1,21 @@
 package com.example.backend.repository;
 
+import com.example.backend.dto.UserViewDTO;
 import com.example.backend.model.User;
+import org.hibernate.Session;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 /**
  * @DataJpaTest anotasyonu H2 veri tabanını aktif eder ve sadece test için gerekli konfigürasyonları yapar.
@@ -26,6 +33,9 @@ public class UserRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EntityManager entityManager;
+
     @After
     public void setUp() throws Exception {
 
@@ -59,4 +69,31 @@ public class UserRepositoryTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void Valid_request_with_an_existing_id_to_findViewById_method_should_return_projection_without_managed_entity() {
+
+        User user = userRepository.saveAndFlush(new User("samiogun", "Sami Ogün", "ERSUN"));
+        entityManager.clear();
+
+        UserViewDTO actual = userRepository.findViewById(user.getId()).orElse(null);
+
+        assertThat(actual).isEqualTo(new UserViewDTO(user.getId(), "Sami Ogün", "ERSUN"));
+        assertThat(entityManager.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+
+    }
+
+    @Test
+    public void Valid_request_with_an_id_and_pageable_to_findViewsAfter_method_should_return_next_views_in_id_order() {
+
+        List<User> users = userRepository.saveAll(Arrays.asList(
+                new User("Test-username1", "Test-firstname1", "Test-lastname1"),
+                new User("Test-username2", "Test-firstname2", "Test-lastname2"),
+                new User("Test-username3", "Test-firstname3", "Test-lastname3")));
+
+        List<UserViewDTO> actual = userRepository.findViewsAfter(users.get(0).getId(), PageRequest.of(0, 1));
+
+        assertThat(actual).containsExactly(new UserViewDTO(users.get(1).getId(), "Test-firstname2", "Test-lastname2"));
+
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.example.backend.repository;
+
+import com.example.backend.model.User;
+import com.example.backend.service.SqlStatementCounter;
+import com.example.backend.service.UserService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the SQL Hibernate generates for {@code searchUsers} through H2's EXPLAIN: the filter must be answered from an
+ * index and, where the index order matches the sort, H2 must report "index sorted" instead of sorting the rows. The
+ * SQL is captured from the statement inspector, which is spied on here.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class UserSearchQueryPlanIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @SpyBean
+    private SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        clearInvocations(sqlStatementCounter);
+    }
+
+    @Test
+    public void Valid_request_with_a_lastName_filter_sorted_by_firstName_should_use_the_last_name_index() {
+
+        // when
+
+        userService.searchUsers(null, "Test-lastname", null, PageRequest.of(0, 20, Sort.by("firstName")));
+        String plan = explain("Test-lastname", 21);
+
+        // then
+
+        assertThat(plan).contains(User.LAST_NAME_INDEX.toUpperCase(Locale.ROOT)).contains("index sorted");
+
+    }
+
+    @Test
+    public void Valid_request_with_a_firstName_filter_sorted_by_lastName_should_use_the_first_name_index() {
+
+        // when
+
+        userService.searchUsers("Test-firstname", null, null, PageRequest.of(0, 20, Sort.by("lastName")));
+        String plan = explain("Test-firstname", 21);
+
+        // then
+
+        assertThat(plan).contains(User.FIRST_NAME_INDEX.toUpperCase(Locale.ROOT)).contains("index sorted");
+
+    }
+
+    @Test
+    public void Valid_request_with_a_userName_prefix_sorted_by_userName_should_use_the_user_name_index() {
+
+        // when
+
+        userService.searchUsers(null, null, "Test", PageRequest.of(0, 20, Sort.by("userName")));
+        String plan = explain("Test%", "!", 21);
+
+        // then
+
+        assertThat(plan).contains(User.USER_NAME_INDEX.toUpperCase(Locale.ROOT)).contains("index sorted");
+
+    }
+
+    @Test
+    public void Valid_request_without_filters_sorted_by_lastName_should_read_the_last_name_index_in_order() {
+
+        // when
+
+        userService.searchUsers(null, null, null, PageRequest.of(0, 20, Sort.by("lastName", "firstName")));
+        String plan = explain(21);
+
+        // then
+
+        assertThat(plan).contains(User.LAST_NAME_INDEX.toUpperCase(Locale.ROOT)).contains("index sorted");
+
+    }
+
+    private String explain(Object... parameters) {
+        final ArgumentCaptor<String> statements = ArgumentCaptor.forClass(String.class);
+        verify(sqlStatementCounter, atLeastOnce()).inspect(statements.capture());
+        final List<String> sqls = statements.getAllValues();
+        final String sql = sqls.get(sqls.size() - 1);
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters));
+    }
+
+}
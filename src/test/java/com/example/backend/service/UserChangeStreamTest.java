@@ -0,0 +1,261 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserChangeStreamStatsDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserChangeStreamTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private UserChangeStream userChangeStream;
+
+    @After
+    public void tearDown() {
+        userChangeStream.shutdown();
+    }
+
+    @Test
+    public void Valid_request_with_changes_to_subscribe_method_should_send_them_in_order_with_resumable_ids() throws Exception {
+
+        // given
+
+        userChangeStream = stream(UserChangeOverflowPolicy.DISCONNECT, 10);
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        userChangeStream.register(emitter, null);
+
+        // when
+
+        userChangeStream.onCreate(new UserViewDTO(1L, "Test-firstname", "Test-lastname"));
+        userChangeStream.onUpdate(new UserViewDTO(1L, "Test-firstname2", "Test-lastname"));
+        userChangeStream.onDelete(Collections.singletonList(1L));
+
+        // then
+
+        List<String> events = emitter.awaitEvents(3);
+        assertThat(events.get(0)).contains("event:created").contains("\"sequence\":1").contains("\"firstName\":\"Test-firstname\"");
+        assertThat(events.get(1)).contains("event:updated").contains("\"sequence\":2").contains("\"firstName\":\"Test-firstname2\"");
+        assertThat(events.get(2)).contains("event:deleted").contains("\"sequence\":3").contains("\"userId\":1");
+        assertThat(lastEventId(events.get(2))).endsWith("-3");
+
+    }
+
+    @Test
+    public void Valid_request_with_a_Last_Event_ID_to_subscribe_method_should_replay_only_the_missed_changes() throws Exception {
+
+        // given
+
+        userChangeStream = stream(UserChangeOverflowPolicy.DISCONNECT, 10);
+        RecordingEmitter first = new RecordingEmitter(null);
+        userChangeStream.register(first, null);
+        userChangeStream.onCreate(new UserViewDTO(1L, "Test-firstname1", "Test-lastname1"));
+        String resumeId = lastEventId(first.awaitEvents(1).get(0));
+
+        userChangeStream.onCreate(new UserViewDTO(2L, "Test-firstname2", "Test-lastname2"));
+        userChangeStream.onCreate(new UserViewDTO(3L, "Test-firstname3", "Test-lastname3"));
+
+        // when
+
+        RecordingEmitter resumed = new RecordingEmitter(null);
+        userChangeStream.register(resumed, resumeId);
+        userChangeStream.onCreate(new UserViewDTO(4L, "Test-firstname4", "Test-lastname4"));
+
+        // then
+
+        List<String> events = resumed.awaitEvents(3);
+        assertThat(events.get(0)).contains("\"userId\":2");
+        assertThat(events.get(1)).contains("\"userId\":3");
+        assertThat(events.get(2)).contains("\"userId\":4");
+
+    }
+
+    @Test
+    public void Valid_request_with_an_unknown_Last_Event_ID_to_subscribe_method_should_send_a_reset_event() throws Exception {
+
+        // given
+
+        userChangeStream = stream(UserChangeOverflowPolicy.DISCONNECT, 10);
+        userChangeStream.onCreate(new UserViewDTO(1L, "Test-firstname", "Test-lastname"));
+
+        // when
+
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        userChangeStream.register(emitter, "0-1");
+
+        // then
+
+        List<String> events = emitter.awaitEvents(1);
+        assertThat(events.get(0)).contains("event:" + UserChangeStream.RESET_EVENT);
+        assertThat(lastEventId(events.get(0))).endsWith("-1");
+        assertThat(userChangeStream.getStats().getResetCount()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_slow_subscriber_and_the_DISCONNECT_policy_should_close_only_its_stream() throws Exception {
+
+        // given
+
+        userChangeStream = stream(UserChangeOverflowPolicy.DISCONNECT, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        userChangeStream.register(slow, null);
+        userChangeStream.register(fast, null);
+
+        // when
+
+        for (long id = 1; id <= 5; id++) {
+            userChangeStream.onCreate(new UserViewDTO(id, "Test-firstname" + id, "Test-lastname" + id));
+            fast.awaitEvents((int) id);
+        }
+        release.countDown();
+
+        // then
+
+        assertThat(fast.awaitEvents(5)).hasSize(5);
+        assertThat(slow.completed.await(5, TimeUnit.SECONDS)).isTrue();
+
+        UserChangeStreamStatsDTO stats = userChangeStream.getStats();
+        assertThat(stats.getSubscribers()).isEqualTo(1);
+        assertThat(stats.getDisconnectedCount()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_slow_subscriber_and_the_DROP_OLDEST_policy_should_keep_the_latest_changes() throws Exception {
+
+        // given
+
+        userChangeStream = stream(UserChangeOverflowPolicy.DROP_OLDEST, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        userChangeStream.register(slow, null);
+
+        // when
+
+        for (long id = 1; id <= 5; id++) {
+            userChangeStream.onCreate(new UserViewDTO(id, "Test-firstname" + id, "Test-lastname" + id));
+        }
+        release.countDown();
+
+        // then
+
+        List<String> events = slow.awaitEvents(2);
+        assertThat(events.get(events.size() - 1)).contains("\"userId\":5");
+        assertThat(userChangeStream.getStats().getDroppedCount()).isGreaterThan(0L);
+        assertThat(userChangeStream.getStats().getSubscribers()).isEqualTo(1);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_subscriber_whose_send_blocks_should_disconnect_it_and_keep_delivering_to_the_others() throws Exception {
+
+        // given
+
+        userChangeStream = new UserChangeStream(OBJECT_MAPPER, 100, 10, UserChangeOverflowPolicy.DISCONNECT, 10, 0, 50, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter blocked = new RecordingEmitter(release);
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        userChangeStream.register(blocked, null);
+        userChangeStream.register(healthy, null);
+
+        // when
+
+        userChangeStream.onCreate(new UserViewDTO(1L, "Test-firstname1", "Test-lastname1"));
+        Thread.sleep(200);
+        userChangeStream.checkStalls();
+        for (long id = 2; id <= 5; id++) {
+            userChangeStream.onCreate(new UserViewDTO(id, "Test-firstname" + id, "Test-lastname" + id));
+        }
+        List<String> events = healthy.awaitEvents(5);
+        boolean completedWhileBlocked = blocked.completed.getCount() == 0;
+        release.countDown();
+
+        // then
+
+        assertThat(events).hasSize(5);
+        assertThat(events.get(4)).contains("\"userId\":5");
+        assertThat(completedWhileBlocked).isFalse();
+        assertThat(blocked.completed.await(5, TimeUnit.SECONDS)).isTrue();
+
+        UserChangeStreamStatsDTO stats = userChangeStream.getStats();
+        assertThat(stats.getStalledCount()).isEqualTo(1L);
+        assertThat(stats.getDisconnectedCount()).isEqualTo(1L);
+        assertThat(stats.getSubscribers()).isEqualTo(1);
+
+    }
+
+    private static UserChangeStream stream(UserChangeOverflowPolicy policy, int bufferSize) {
+        return new UserChangeStream(OBJECT_MAPPER, 100, bufferSize, policy, 10, 0, 5000, 2);
+    }
+
+    private static String lastEventId(String event) {
+        for (String line : event.split("\n")) {
+            if (line.startsWith("id:")) {
+                return line.substring(3);
+            }
+        }
+        throw new AssertionError("No id in " + event);
+    }
+
+    /**
+     * Keeps the text of every event instead of writing it to a response; heartbeat comments are skipped. With a
+     * latch, every send waits for it first.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch release;
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            StringBuilder event = new StringBuilder();
+            builder.build().forEach(part -> event.append(part.getData()));
+            if (!event.toString().startsWith(":")) {
+                events.add(event.toString());
+            }
+
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+
+        private List<String> awaitEvents(int count) throws InterruptedException {
+            for (int i = 0; i < 500 && events.size() < count; i++) {
+                Thread.sleep(10);
+            }
+            return events;
+        }
+
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserExportDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.ExportNotFoundException;
+import com.example.backend.repository.UserRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "backend.user-export.directory=target/user-exports",
+        "backend.user-export.range-size=7",
+        "backend.user-export.parallelism=4"
+})
+@RunWith(SpringRunner.class)
+public class UserExportServiceImplIntegrationTest {
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @After
+    public void tearDown() throws Exception {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void Valid_request_with_csv_format_to_exportUsers_method_should_write_all_users_in_id_order() throws Exception {
+
+        // given
+
+        List<UserViewDTO> users = createUsers(50);
+
+        // when
+
+        UserExportDTO export = userExportService.exportUsers(UserExportFormat.CSV);
+
+        // then
+
+        Path file = userExportService.getExportFile(export.getName());
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        assertThat(export.getRows()).isEqualTo(50);
+        assertThat(export.getRanges()).isGreaterThan(1);
+        assertThat(export.getBytes()).isEqualTo(Files.size(file));
+        assertThat(lines).hasSize(51);
+        assertThat(lines.get(0)).isEqualTo("id,user_name,first_name,last_name");
+        for (int i = 0; i < users.size(); i++) {
+            assertThat(lines.get(i + 1)).isEqualTo(users.get(i).getId() + ",Test-username" + i + ",\"Sami, Ogün\",ERSUN");
+        }
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertThat(files.filter(path -> path.toString().endsWith(".part")).count()).isZero();
+        }
+
+    }
+
+    @Test
+    public void Valid_request_with_binary_format_to_exportUsers_method_should_write_fixed_layout_records() throws Exception {
+
+        // given
+
+        List<UserViewDTO> users = createUsers(20);
+
+        // when
+
+        UserExportDTO export = userExportService.exportUsers(UserExportFormat.BINARY);
+
+        // then
+
+        Path file = userExportService.getExportFile(export.getName());
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            assertThat(input.readInt()).isEqualTo(UserExportServiceImpl.BINARY_MAGIC);
+            for (int i = 0; i < users.size(); i++) {
+                assertThat(input.readLong()).isEqualTo(users.get(i).getId());
+                assertThat(input.readUTF()).isEqualTo("Test-username" + i);
+                assertThat(input.readUTF()).isEqualTo("Sami, Ogün");
+                assertThat(input.readUTF()).isEqualTo("ERSUN");
+            }
+            assertThat(input.read()).isEqualTo(-1);
+        }
+
+    }
+
+    @Test
+    public void Invalid_name_to_getExportFile_method_should_throw_ExportNotFoundException() {
+
+        assertThatThrownBy(() -> userExportService.getExportFile("../application.properties"))
+                .isInstanceOf(ExportNotFoundException.class)
+                .hasMessage("Export not found : ../application.properties");
+
+    }
+
+    private List<UserViewDTO> createUsers(int size) {
+
+        List<UserViewDTO> users = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            users.add(userService.createUser(UserCreateDTO.builder()
+                    .userName("Test-username" + i)
+                    .firstName("Sami, Ogün")
+                    .lastName("ERSUN")
+                    .build()));
+        }
+
+        return users;
+
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserBatchItemResultDTO;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserGroupCommitStatsDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.UserCreateQueueFullException;
+import com.example.backend.exception.UserCreateRejectedException;
+import com.example.backend.repository.UserRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "backend.user-group-commit.enabled=true",
+        "backend.user-group-commit.max-batch-size=50",
+        "backend.user-group-commit.max-delay-ms=200"
+})
+@RunWith(SpringRunner.class)
+public class UserGroupCommitterIntegrationTest {
+
+    @Autowired
+    private UserGroupCommitter userGroupCommitter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @After
+    public void tearDown() throws Exception {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    public void Valid_concurrent_requests_to_createUser_method_should_share_transactions_and_return_committed_users() throws Exception {
+
+        // given
+
+        int users = 40;
+        ExecutorService callers = Executors.newFixedThreadPool(users);
+        long batchesBefore = userGroupCommitter.getStats(1).getBatches();
+
+        // when
+
+        List<Future<UserViewDTO>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < users; i++) {
+                UserCreateDTO userCreateDTO = UserCreateDTO.builder()
+                        .userName("Test-username" + i)
+                        .firstName("Test-firstname")
+                        .lastName("Test-lastname")
+                        .build();
+                results.add(callers.submit(() -> userGroupCommitter.createUser(userCreateDTO)));
+            }
+            for (Future<UserViewDTO> result : results) {
+                assertThat(result.get().getId()).isNotNull();
+            }
+        } finally {
+            callers.shutdown();
+        }
+
+        // then
+
+        UserGroupCommitStatsDTO stats = userGroupCommitter.getStats(1);
+
+        assertThat(userRepository.count()).isEqualTo(users);
+        assertThat(stats.getBatches() - batchesBefore).isBetween(1L, (long) users - 1);
+        assertThat(stats.getQueueDepth()).isZero();
+        assertThat(stats.getFlush().getCount()).isEqualTo(stats.getBatches());
+
+    }
+
+    @Test
+    public void Valid_concurrent_requests_with_the_same_username_to_createUser_method_should_create_it_once() throws Exception {
+
+        // given
+
+        UserCreateDTO userCreateDTO = UserCreateDTO.builder()
+                .userName("Test-username")
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build();
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        // when
+
+        List<Future<UserViewDTO>> results = new ArrayList<>();
+        try {
+            results.add(callers.submit(() -> userGroupCommitter.createUser(userCreateDTO)));
+            results.add(callers.submit(() -> userGroupCommitter.createUser(userCreateDTO)));
+
+            int created = 0;
+            for (Future<UserViewDTO> result : results) {
+                try {
+                    result.get();
+                    created++;
+                } catch (ExecutionException e) {
+                    assertThatThrownBy(() -> {
+                        throw e.getCause();
+                    }).isInstanceOf(UserCreateRejectedException.class);
+                }
+            }
+
+            // then
+
+            assertThat(created).isEqualTo(1);
+        } finally {
+            callers.shutdown();
+        }
+
+        assertThat(userRepository.count()).isEqualTo(1);
+
+    }
+
+    @Test
+    public void Valid_request_to_stop_method_during_a_flush_should_let_the_flush_finish_uninterrupted() throws Exception {
+
+        // given
+
+        UserService userService = mock(UserService.class);
+        UserGroupCommitter committer = new UserGroupCommitter(userService, 10, 10, 0, 1000, 30000, 1);
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        UserViewDTO userViewDTO = new UserViewDTO(1L, "Test-firstname", "Test-lastname");
+
+        when(userService.createUsers(anyList())).thenAnswer(invocation -> {
+            flushing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            interrupted.set(Thread.currentThread().isInterrupted());
+            return new UserBatchResultDTO(Collections.singletonList(UserBatchItemResultDTO.created(0, userViewDTO)));
+        });
+
+        committer.start();
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+
+        // when
+
+        try {
+            Future<UserViewDTO> created = threads.submit(() -> committer.createUser(UserCreateDTO.builder()
+                    .userName("Test-username")
+                    .firstName("Test-firstname")
+                    .lastName("Test-lastname")
+                    .build()));
+            assertThat(flushing.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<?> stopped = threads.submit(() -> {
+                committer.stop();
+                return null;
+            });
+            Thread.sleep(200);
+            release.countDown();
+            stopped.get(10, TimeUnit.SECONDS);
+
+            // then
+
+            assertThat(created.get(10, TimeUnit.SECONDS)).isEqualTo(userViewDTO);
+            assertThat(interrupted).isFalse();
+        } finally {
+            threads.shutdown();
+        }
+
+    }
+
+    @Test
+    public void Valid_request_to_createUser_method_with_a_stuck_flush_should_fail_after_the_result_timeout() throws Exception {
+
+        // given
+
+        UserService userService = mock(UserService.class);
+        UserGroupCommitter committer = new UserGroupCommitter(userService, 10, 10, 0, 1000, 100, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(userService.createUsers(anyList())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return new UserBatchResultDTO(Collections.emptyList());
+        });
+
+        committer.start();
+
+        // when
+
+        try {
+            assertThatThrownBy(() -> committer.createUser(UserCreateDTO.builder()
+                    .userName("Test-username")
+                    .firstName("Test-firstname")
+                    .lastName("Test-lastname")
+                    .build()))
+
+                    // then
+
+                    .isInstanceOf(UserCreateQueueFullException.class)
+                    .hasMessage("User creation did not commit in time, it may still have been created");
+        } finally {
+            release.countDown();
+            committer.stop();
+        }
+
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserBatchItemResultDTO;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserImportErrorDTO;
+import com.example.backend.dto.UserImportResultDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserImportServiceImplTest {
+
+    @Mock
+    private UserService userService;
+
+    private UserImportServiceImpl userImportService;
+
+    @Before
+    public void setUp() {
+
+        userImportService = new UserImportServiceImpl(userService, Jackson2ObjectMapperBuilder.json().modulesToInstall(new ParameterNamesModule()).build(), 2, 10, 200);
+
+        // Every valid row is created, the results mirror the chunk.
+        lenient().when(userService.createUsers(anyList())).thenAnswer(invocation -> {
+            List<UserCreateDTO> chunk = invocation.getArgument(0);
+            List<UserBatchItemResultDTO> results = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(UserBatchItemResultDTO.created(i, new UserViewDTO((long) i, chunk.get(i).getFirstName(), chunk.get(i).getLastName())));
+            }
+            return new UserBatchResultDTO(results);
+        });
+
+    }
+
+    @Test
+    public void Valid_request_with_ndjson_body_to_importUsers_method_should_create_users_in_chunks_and_report_malformed_lines() throws Exception {
+
+        // given
+
+        String body = "{\"userName\":\"Test-username1\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}\n"
+                + "{\"userName\":\"Test-username2\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}\n"
+                + "{not json}\n"
+                + "\n"
+                + "{\"userName\":\"Test-username3\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}\n";
+
+        // when
+
+        UserImportResultDTO result = userImportService.importUsers(stream(body), UserImportFormat.NDJSON);
+
+        // then
+
+        assertThat(result.getRows()).isEqualTo(4);
+        assertThat(result.getCreated()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).hasSize(1);
+        assertThat(result.getErrors().get(0).getLine()).isEqualTo(3);
+        assertThat(result.getErrors().get(0).getErrors().get(0)).startsWith("Malformed JSON : ");
+
+        verify(userService, times(2)).createUsers(anyList());
+
+    }
+
+    @Test
+    public void Valid_request_with_a_null_ndjson_line_to_importUsers_method_should_fail_only_that_line() throws Exception {
+
+        // given
+
+        String body = "{\"userName\":\"Test-username1\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}\n"
+                + "null\n"
+                + "{\"userName\":\"Test-username2\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}\n";
+
+        // when
+
+        UserImportResultDTO result = userImportService.importUsers(stream(body), UserImportFormat.NDJSON);
+
+        // then
+
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getErrors()).containsExactly(
+                new UserImportErrorDTO(2, Collections.singletonList("Expected a JSON object but found null")));
+
+    }
+
+    @Test
+    public void Valid_request_with_csv_body_to_importUsers_method_should_skip_header_and_map_batch_failures_to_lines() throws Exception {
+
+        // given
+
+        String body = "user_name,first_name,last_name\n"
+                + "Test-username1,Test-firstname,Test-lastname\n"
+                + "\"Test-username2\",\"Ersun, Sami\",\"O\"\"Brien\"\n"
+                + "Test-username3,Test-firstname\n";
+
+        // when
+
+        when(userService.createUsers(anyList())).thenReturn(new UserBatchResultDTO(Arrays.asList(
+                UserBatchItemResultDTO.created(0, new UserViewDTO(1L, "Test-firstname", "Test-lastname")),
+                UserBatchItemResultDTO.failed(1, Collections.singletonList("User name must be unique")))));
+
+        UserImportResultDTO result = userImportService.importUsers(stream(body), UserImportFormat.CSV);
+
+        // then
+
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getErrors()).containsExactly(
+                new UserImportErrorDTO(3, Collections.singletonList("User name must be unique")),
+                new UserImportErrorDTO(4, Collections.singletonList("Expected 3 columns but found 2")));
+
+        verify(userService).createUsers(Arrays.asList(
+                UserCreateDTO.builder().userName("Test-username1").firstName("Test-firstname").lastName("Test-lastname").build(),
+                UserCreateDTO.builder().userName("Test-username2").firstName("Ersun, Sami").lastName("O\"Brien").build()));
+
+    }
+
+    @Test
+    public void Valid_request_with_many_bad_rows_to_importUsers_method_should_truncate_the_error_report() throws Exception {
+
+        // given
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            body.append("only-one-column\n");
+        }
+
+        // when
+
+        UserImportResultDTO result = userImportService.importUsers(stream(body.toString()), UserImportFormat.CSV);
+
+        // then
+
+        assertThat(result.getFailed()).isEqualTo(25);
+        assertThat(result.getErrors()).hasSize(10);
+        assertThat(result.isErrorsTruncated()).isTrue();
+
+        verify(userService, never()).createUsers(anyList());
+
+    }
+
+    @Test
+    public void Invalid_csv_line_with_unterminated_quote_to_parseCsvLine_method_should_throw_IllegalArgumentException() {
+
+        assertThatThrownBy(() -> UserImportServiceImpl.parseCsvLine("\"Test-username,Test-firstname,Test-lastname"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unterminated quoted field");
+
+    }
+
+    @Test
+    public void Valid_request_with_an_oversized_line_to_importUsers_method_should_fail_only_that_line() throws Exception {
+
+        // given
+
+        char[] padding = new char[500];
+        Arrays.fill(padding, 'x');
+        String body = "{\"userName\":\"Test-username1\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}\r\n"
+                + "{\"userName\":\"" + new String(padding) + "\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}\r\n"
+                + "{\"userName\":\"Test-username2\",\"firstName\":\"Test-firstname\",\"lastName\":\"Test-lastname\"}\r\n";
+
+        // when
+
+        UserImportResultDTO result = userImportService.importUsers(stream(body), UserImportFormat.NDJSON);
+
+        // then
+
+        assertThat(result.getRows()).isEqualTo(3);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).containsExactly(
+                new UserImportErrorDTO(2, Collections.singletonList("Line is longer than 200 characters")));
+
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserNameFilterStatsDTO;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.shared.ShardRoutingDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserNameFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private UserNameFilter userNameFilter;
+
+    @Before
+    public void setUp() {
+
+        userNameFilter = new UserNameFilter(userRepository, transactionTemplate, new UserShards((ShardRoutingDataSource) null, 1), 100, 0.01);
+
+        lenient().doAnswer(invocation -> {
+            Consumer<Object> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+    }
+
+    @Test
+    public void Valid_request_before_warm_up_to_exists_method_should_fall_through_to_repository() {
+
+        // given
+
+        String username = "Test-username";
+
+        // when
+
+        when(userRepository.existsUserByUserName(username)).thenReturn(false);
+
+        boolean result = userNameFilter.exists(username);
+
+        // then
+
+        assertThat(result).isFalse();
+        verify(userRepository).existsUserByUserName(username);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_never_seen_username_after_warm_up_to_exists_method_should_not_query_repository() {
+
+        // given
+
+        when(userRepository.streamUserNames()).thenReturn(Stream.of("Test-username", "Test-username1"));
+
+        userNameFilter.warmUp();
+
+        // when
+
+        boolean result = userNameFilter.exists("non-existingusername");
+
+        // then
+
+        assertThat(result).isFalse();
+        verify(userRepository, never()).existsUserByUserName(any());
+
+        UserNameFilterStatsDTO stats = userNameFilter.getStats();
+        assertThat(stats.isReady()).isTrue();
+        assertThat(stats.getQueriesSaved()).isEqualTo(1L);
+        assertThat(stats.getConfiguredFalsePositiveRate()).isEqualTo(0.01);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_warmed_username_to_exists_method_should_confirm_with_repository() {
+
+        // given
+
+        String username = "Test-username";
+
+        when(userRepository.streamUserNames()).thenReturn(Stream.of(username));
+
+        userNameFilter.warmUp();
+
+        // when
+
+        when(userRepository.existsUserByUserName(username)).thenReturn(true);
+
+        boolean result = userNameFilter.exists(username);
+
+        // then
+
+        assertThat(result).isTrue();
+        verify(userRepository).existsUserByUserName(username);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_put_username_to_exists_method_should_fall_through_and_survive_rebuild() {
+
+        // given
+
+        String username = "Test-username";
+
+        when(userRepository.streamUserNames()).thenReturn(Stream.empty(), Stream.empty());
+        when(userRepository.existsUserByUserName(username)).thenReturn(true);
+
+        userNameFilter.warmUp();
+
+        // when
+
+        userNameFilter.put(username);
+        boolean beforeRebuild = userNameFilter.exists(username);
+
+        // the row is not visible to the rebuild scan yet, the name must still be carried over
+        userNameFilter.rebuild();
+        boolean afterRebuild = userNameFilter.exists(username);
+
+        // then
+
+        assertThat(beforeRebuild).isTrue();
+        assertThat(afterRebuild).isTrue();
+        verify(userRepository, times(2)).existsUserByUserName(username);
+
+    }
+
+}
@@ -1,22 +1,35 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.SqlStatementCountDTO;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserBulkDeleteResultDTO;
 import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserMultiGetResultDTO;
+import com.example.backend.dto.UserCursorPageDTO;
+import com.example.backend.dto.UserPatchDTO;
+import com.example.backend.dto.UserSearchPageDTO;
 import com.example.backend.dto.UserUpdateDTO;
 import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.PreconditionFailedException;
 import com.example.backend.exception.UserNotFoundException;
 import com.example.backend.repository.UserRepository;
+import com.example.backend.shared.SqlStatements;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Collectors;
 
+import static com.example.backend.shared.SqlStatements.assertBudget;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -38,6 +51,9 @@ public class UserServiceImplIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+
     @After
     public void tearDown() throws Exception {
         userRepository.deleteAll();
@@ -117,6 +133,39 @@ public class UserServiceImplIntegrationTest {
 
     }
 
+    @Test
+    public void Valid_Request_to_streamUsers_method_should_pass_every_saved_user_in_id_order() {
+
+        // given
+
+        int size = new Random().nextInt(10) + 1;
+
+        List<UserViewDTO> userViewDTOList = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+
+            UserCreateDTO userCreateDTO = UserCreateDTO.builder()
+                    .userName("Test-username" + i)
+                    .firstName("Test-firstname")
+                    .lastName("Test-lastname")
+                    .build();
+
+            userViewDTOList.add(userService.createUser(userCreateDTO));
+
+        }
+
+        // when
+
+        List<UserViewDTO> userViewDTOListDb = new ArrayList<>();
+
+        userService.streamUsers(userViewDTOListDb::add);
+
+        // then
+
+        assertThat(userViewDTOListDb).isEqualTo(userViewDTOList);
+
+    }
+
     @Test
     public void Valid_request_with_a_CreateUserDTO_object_to_createUser_method_should_return_UserViewDTO_object_of_saved_User() {
 
@@ -145,6 +194,55 @@ public class UserServiceImplIntegrationTest {
     }
 
 
+    @Test
+    public void Valid_request_with_a_list_of_CreateUserDTO_objects_to_createUsers_method_should_save_valid_users_and_report_failures() {
+
+        // given
+
+        userService.createUser(UserCreateDTO.builder()
+                .userName("Test-existing")
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build());
+
+        int size = new Random().nextInt(100) + 100;
+
+        List<UserCreateDTO> userCreateDTOs = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            userCreateDTOs.add(UserCreateDTO.builder()
+                    .userName("Test-username" + i)
+                    .firstName("Test-firstname")
+                    .lastName("Test-lastname")
+                    .build());
+        }
+
+        userCreateDTOs.add(UserCreateDTO.builder().userName("Test-existing").firstName("Test-firstname").lastName("Test-lastname").build());
+        userCreateDTOs.add(UserCreateDTO.builder().userName("Test-username0").firstName("Test-firstname").lastName("Test-lastname").build());
+        userCreateDTOs.add(UserCreateDTO.builder().userName("Test-username-invalid").firstName("T").lastName("Test-lastname").build());
+
+        // when
+
+        UserBatchResultDTO result = userService.createUsers(userCreateDTOs);
+
+        // then
+
+        assertThat(result.getCreated()).isEqualTo(size);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getResults().get(size).getErrors()).containsExactly("User name must be unique");
+        assertThat(result.getResults().get(size + 1).getErrors()).containsExactly("User name must be unique");
+        assertThat(result.getResults().get(size + 2).getErrors()).containsExactly("First Name must be between 2 and 32");
+
+        for (int i = 0; i < size; i++) {
+            UserViewDTO created = result.getResults().get(i).getUser();
+            assertThat(userService.getUserById(created.getId())).isEqualTo(created);
+        }
+
+        assertThat(userRepository.count()).isEqualTo(size + 1);
+
+    }
+
+
     @Test
     public void Valid_Request_with_a_nonexisting_id_to_updateUser_method_should_throw_NotFoundException() {
 
@@ -192,6 +290,130 @@ public class UserServiceImplIntegrationTest {
 
     }
 
+    @Test
+    public void Valid_Request_with_a_stale_version_to_updateUser_method_should_throw_PreconditionFailedException() {
+
+        // given
+
+        UserViewDTO userViewDTO = userService.createUser(UserCreateDTO.builder()
+                .userName("Test-username")
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build());
+
+        UserUpdateDTO userUpdateDTO = UserUpdateDTO.builder()
+                .firstName("Test-updatedfirstname")
+                .lastName("Test-updatedlastname")
+                .build();
+
+        String usersETag = userService.getUsersETag();
+
+        // when
+
+        UserViewDTO updatedUserViewDTO = userService.updateUser(userViewDTO.getId(), userUpdateDTO, userViewDTO.getVersion());
+
+        // then
+
+        assertThat(userViewDTO.getVersion()).isZero();
+        assertThat(updatedUserViewDTO.getVersion()).isEqualTo(1L);
+        assertThat(userService.getUserById(userViewDTO.getId()).getVersion()).isEqualTo(1L);
+        assertThat(userService.getUsersETag()).isNotEqualTo(usersETag).startsWith("W/\"");
+
+        assertThatThrownBy(() -> userService.updateUser(userViewDTO.getId(), userUpdateDTO, userViewDTO.getVersion()))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> userService.updateUser(-1L, userUpdateDTO, 0L))
+                .isInstanceOf(UserNotFoundException.class);
+
+    }
+
+    @Test
+    public void Valid_Request_with_an_existing_id_and_only_a_lastName_to_patchUser_method_should_keep_firstName() {
+
+        // given
+
+        UserViewDTO userViewDTO = userService.createUser(UserCreateDTO.builder()
+                .userName("Test-username")
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build());
+
+        userService.getUserById(userViewDTO.getId());
+
+        UserPatchDTO userPatchDTO = UserPatchDTO.builder()
+                .lastName("Test-patchedlastname")
+                .build();
+
+        // when
+
+        UserViewDTO patchedUserViewDTO = userService.patchUser(userViewDTO.getId(), userPatchDTO);
+
+        // then
+
+        assertThat(patchedUserViewDTO).isEqualTo(new UserViewDTO(userViewDTO.getId(), "Test-firstname", "Test-patchedlastname"));
+        assertThat(userService.getUserById(userViewDTO.getId())).isEqualTo(patchedUserViewDTO);
+
+    }
+
+    @Test
+    public void Valid_Request_with_a_cached_id_to_getUserById_method_should_return_updated_User_after_updateUser() {
+
+        // given
+
+        UserCreateDTO userCreateDTO = UserCreateDTO.builder()
+                .userName("Test-username")
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build();
+
+        UserViewDTO userViewDTO = userService.createUser(userCreateDTO);
+
+        userService.getUserById(userViewDTO.getId());
+
+        UserUpdateDTO userUpdateDTO = UserUpdateDTO.builder()
+                .firstName("Test-updatedfirstname")
+                .lastName("Test-updatedlastname")
+                .build();
+
+        // when
+
+        UserViewDTO updatedUserViewDTO = userService.updateUser(userViewDTO.getId(), userUpdateDTO);
+
+        UserViewDTO userViewDTODb = userService.getUserById(userViewDTO.getId());
+
+        // then
+
+        assertThat(userViewDTODb).isEqualTo(updatedUserViewDTO);
+
+    }
+
+    @Test
+    public void Valid_Request_with_a_cached_id_to_getUserById_method_should_throw_NotFoundException_after_deleteUser() {
+
+        // given
+
+        UserCreateDTO userCreateDTO = UserCreateDTO.builder()
+                .userName("Test-username")
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build();
+
+        long id = userService.createUser(userCreateDTO).getId();
+
+        userService.getUserById(id);
+
+        // when
+
+        userService.deleteUser(id);
+
+        // then
+
+        assertThatThrownBy(() -> userService.getUserById(id))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessage("User not found with id : " + id);
+
+    }
+
+
     @Test
     public void Valid_request_with_a_nonexisting_id_to_deleteUser_method_should_throw_UserNotFoundException() {
 
@@ -278,6 +500,92 @@ public class UserServiceImplIntegrationTest {
 
     }
 
+    @Test
+    public void Valid_request_with_filters_to_searchUsers_method_should_return_matching_users_in_sort_order() throws Exception {
+
+        // given
+
+        List<UserViewDTO> smiths = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            smiths.add(userService.createUser(UserCreateDTO.builder()
+                    .userName("Test-username" + i)
+                    .firstName("Test-firstname" + (4 - i))
+                    .lastName("Smith")
+                    .build()));
+            userService.createUser(UserCreateDTO.builder()
+                    .userName("Other-username" + i)
+                    .firstName("Test-firstname" + i)
+                    .lastName("Jones")
+                    .build());
+        }
+        Collections.reverse(smiths);
+
+        // when
+
+        List<UserViewDTO> found = new ArrayList<>();
+        UserSearchPageDTO page = null;
+        SqlStatementCountDTO statements = SqlStatements.count(sqlStatementCounter, () ->
+                found.addAll(userService.searchUsers(null, "Smith", null, PageRequest.of(0, 3, Sort.by("firstName"))).getUsers()));
+
+        for (int number = 1; page == null || page.isHasNext(); number++) {
+            page = userService.searchUsers(null, "Smith", null, PageRequest.of(number, 3, Sort.by("firstName")));
+            found.addAll(page.getUsers());
+        }
+
+        // then
+
+        assertThat(found).isEqualTo(smiths);
+        assertBudget(statements, 1, 0, 0, 0);
+        assertThat(userService.searchUsers("Test-firstname0", "Jones", "Other", PageRequest.of(0, 10)).getUsers())
+                .extracting(UserViewDTO::getLastName)
+                .containsExactly("Jones");
+        assertThat(userService.searchUsers(null, null, "Test-username_", PageRequest.of(0, 10)).getUsers()).isEmpty();
+
+    }
+
+    @Test
+    public void Valid_request_with_cursors_to_sliceAfter_method_should_walk_all_users_in_id_order() {
+
+        // given
+
+        int size = new Random().nextInt(10) + 10;
+
+        List<UserViewDTO> userViewDTOList = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+
+            UserCreateDTO userCreateDTO = UserCreateDTO.builder()
+                    .userName("Test-username" + i)
+                    .firstName("Test-firstname")
+                    .lastName("Test-lastname")
+                    .build();
+
+            userViewDTOList.add(userService.createUser(userCreateDTO));
+
+        }
+
+        // when
+
+        List<UserViewDTO> userViewDTOListDb = new ArrayList<>();
+
+        String cursor = null;
+        int pages = 0;
+
+        do {
+            UserCursorPageDTO page = userService.sliceAfter(cursor, 3);
+            userViewDTOListDb.addAll(page.getUsers());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        // then
+
+        assertThat(userViewDTOListDb).isEqualTo(userViewDTOList);
+        assertThat(pages).isEqualTo((size + 2) / 3);
+
+    }
+
     @Test
     public void Valid_request_with_a_nonexisting_username_to_isUsernameExists_method_should_return_false() {
 
@@ -320,5 +628,128 @@ public class UserServiceImplIntegrationTest {
 
     }
 
+    @Test
+    public void Valid_request_with_a_list_of_ids_to_getUsersByIds_method_should_use_one_select_per_chunk() throws Exception {
+
+        // given
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(userService.createUser(UserCreateDTO.builder()
+                    .userName("Test-username" + i)
+                    .firstName("Test-firstname" + i)
+                    .lastName("Test-lastname" + i)
+                    .build()).getId());
+        }
+        Collections.reverse(ids);
+
+        List<Long> manyIds = new ArrayList<>(ids);
+        for (long id = -1; manyIds.size() < 1500; id--) {
+            manyIds.add(id);
+        }
+
+        // when
+
+        List<UserMultiGetResultDTO> results = new ArrayList<>();
+        SqlStatementCountDTO few = SqlStatements.count(sqlStatementCounter, () -> results.add(userService.getUsersByIds(ids)));
+        SqlStatementCountDTO many = SqlStatements.count(sqlStatementCounter, () -> results.add(userService.getUsersByIds(manyIds)));
+
+        // then
+
+        assertBudget(few, 1, 0, 0, 0);
+        assertBudget(many, 2, 0, 0, 0);
+        assertThat(results.get(0).getUsers()).extracting(UserViewDTO::getId).isEqualTo(ids);
+        assertThat(results.get(0).getMissingIds()).isEmpty();
+        assertThat(results.get(1).getUsers()).extracting(UserViewDTO::getId).isEqualTo(ids);
+        assertThat(results.get(1).getMissingIds()).isEqualTo(manyIds.subList(3, 1500));
+
+    }
+
+    @Test
+    public void Valid_request_to_each_read_method_should_stay_within_its_query_budget() throws Exception {
+
+        // given
+
+        long id = userService.createUser(UserCreateDTO.builder()
+                .userName("Test-username")
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build()).getId();
+
+        // when
+
+        SqlStatementCountDTO getUserById = SqlStatements.count(sqlStatementCounter, () -> userService.getUserById(id));
+        SqlStatementCountDTO cachedGetUserById = SqlStatements.count(sqlStatementCounter, () -> userService.getUserById(id));
+        SqlStatementCountDTO getUsers = SqlStatements.count(sqlStatementCounter, () -> userService.getUsers());
+        SqlStatementCountDTO slice = SqlStatements.count(sqlStatementCounter, () -> userService.slice(PageRequest.of(0, 10)));
+        SqlStatementCountDTO sliceAfter = SqlStatements.count(sqlStatementCounter, () -> userService.sliceAfter(null, 10));
+        SqlStatementCountDTO isUsernameExists = SqlStatements.count(sqlStatementCounter, () -> userService.isUsernameExists("Test-username"));
+
+        // then
+
+        assertBudget(getUserById, 1, 0, 0, 0);
+        assertBudget(cachedGetUserById, 0, 0, 0, 0);
+        assertBudget(getUsers, 1, 0, 0, 0);
+        assertBudget(slice, 1, 0, 0, 0);
+        assertBudget(sliceAfter, 1, 0, 0, 0);
+        assertBudget(isUsernameExists, 1, 0, 0, 0);
+
+    }
+
+    @Test
+    public void Valid_request_to_each_write_method_should_stay_within_its_query_budget() throws Exception {
+
+        // given
+
+        UserCreateDTO userCreateDTO = UserCreateDTO.builder()
+                .userName("Test-username")
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build();
+
+        List<UserCreateDTO> userCreateDTOs = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            userCreateDTOs.add(UserCreateDTO.builder()
+                    .userName("Test-username" + i)
+                    .firstName("Test-firstname")
+                    .lastName("Test-lastname")
+                    .build());
+        }
+
+        UserUpdateDTO userUpdateDTO = UserUpdateDTO.builder()
+                .firstName("Test-updatedfirstname")
+                .lastName("Test-updatedlastname")
+                .build();
+
+        // when
+
+        List<UserViewDTO> created = new ArrayList<>();
+        SqlStatementCountDTO createUser = SqlStatements.count(sqlStatementCounter, () -> created.add(userService.createUser(userCreateDTO)));
+        SqlStatementCountDTO createUsers = SqlStatements.count(sqlStatementCounter, () -> userService.createUsers(userCreateDTOs));
+        long id = created.get(0).getId();
+        SqlStatementCountDTO updateUser = SqlStatements.count(sqlStatementCounter, () -> userService.updateUser(id, userUpdateDTO));
+        SqlStatementCountDTO conditionalUpdateUser = SqlStatements.count(sqlStatementCounter, () -> userService.updateUser(id, userUpdateDTO, 1L));
+        SqlStatementCountDTO patchUser = SqlStatements.count(sqlStatementCounter,
+                () -> userService.patchUser(id, UserPatchDTO.builder().lastName("Test-patchedlastname").build()));
+        SqlStatementCountDTO deleteUser = SqlStatements.count(sqlStatementCounter, () -> userService.deleteUser(id));
+        List<Long> ids = userService.getUsers().stream().map(UserViewDTO::getId).collect(Collectors.toList());
+        List<UserBulkDeleteResultDTO> deleted = new ArrayList<>();
+        SqlStatementCountDTO deleteUsers = SqlStatements.count(sqlStatementCounter, () -> deleted.add(userService.deleteUsers(ids)));
+
+        // then
+
+        assertBudget(createUser, 0, 1, 0, 0);
+        // One name lookup for the whole batch; the JDBC batched insert statement is prepared once.
+        assertBudget(createUsers, 1, 1, 0, 0);
+        assertBudget(updateUser, 0, 0, 1, 0);
+        assertBudget(conditionalUpdateUser, 0, 0, 1, 0);
+        // A partial update reads the untouched name back.
+        assertBudget(patchUser, 1, 0, 1, 0);
+        assertBudget(deleteUser, 0, 0, 0, 1);
+        assertBudget(deleteUsers, 0, 0, 0, 1);
+        assertThat(deleted.get(0)).isEqualTo(new UserBulkDeleteResultDTO(120, 120));
+        assertThat(userRepository.count()).isZero();
+
+    }
 
-}
\ No newline at end of file
+}
@@ -1,25 +1,45 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.UserBatchItemResultDTO;
+import com.example.backend.dto.UserBatchResultDTO;
+import com.example.backend.dto.UserBulkDeleteResultDTO;
 import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserCursorPageDTO;
+import com.example.backend.dto.UserMultiGetResultDTO;
+import com.example.backend.dto.UserPatchDTO;
+import com.example.backend.dto.UserSearchPageDTO;
 import com.example.backend.dto.UserUpdateDTO;
 import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.BatchTooLargeException;
+import com.example.backend.exception.InvalidCursorException;
+import com.example.backend.exception.InvalidPageException;
+import com.example.backend.exception.InvalidSortException;
+import com.example.backend.exception.PreconditionFailedException;
 import com.example.backend.exception.UserNotFoundException;
 import com.example.backend.model.User;
 import com.example.backend.repository.UserRepository;
+import com.example.backend.shared.UserCursor;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.*;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -37,6 +57,24 @@ public class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserNameFilter userNameFilter;
+
+    @Mock
+    private UserViewCache userViewCache;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private UserChangeCounter userChangeCounter;
+
+    @Mock
+    private UserSuggestIndex userSuggestIndex;
+
+    @Mock
+    private UserChangeStream userChangeStream;
+
     @Mock
     private MockedStatic<UserViewDTO> userDTO;
 
@@ -51,6 +89,17 @@ public class UserServiceImplTest {
 
     private AutoCloseable closeable;
 
+    @Before
+    public void setUp() {
+
+        // The cache is bypassed so the tests below exercise the repository calls behind it.
+        lenient().when(userViewCache.get(any(), any())).thenAnswer(invocation -> {
+            Function<Long, UserViewDTO> loader = invocation.getArgument(1);
+            return loader.apply(invocation.getArgument(0));
+        });
+
+    }
+
 //    @Before
 //    public void setUp() {
 //        closeable = MockitoAnnotations.openMocks(this);
@@ -66,16 +115,13 @@ public class UserServiceImplTest {
 
         long id = -1L;
 
-        when(userRepository.findById(id)).thenReturn(Optional.empty());
+        when(userRepository.findViewById(id)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> userService.getUserById(id))
                 .isInstanceOf(UserNotFoundException.class)
                 .hasMessage("User not found with id : " + id);
 
-        userDTO.verify(
-                () -> UserViewDTO.of(any()),
-                never()
-        );
+        verify(userRepository, never()).findById(any());
 
     }
 
@@ -86,13 +132,9 @@ public class UserServiceImplTest {
         String firstName = "Sami Ogün";
         String lastName = "ERSUN";
 
-        User user = new User("samiogun", firstName, lastName);
-        user.setId(id);
-
         UserViewDTO expectedUserDto = new UserViewDTO(id, firstName, lastName);
 
-        when(userRepository.findById(id)).thenReturn(Optional.of(user));
-        userDTO.when(() -> UserViewDTO.of(user)).thenReturn(expectedUserDto);
+        when(userRepository.findViewById(id)).thenReturn(Optional.of(expectedUserDto));
 
         UserViewDTO result = userService.getUserById(id);
 
@@ -101,7 +143,8 @@ public class UserServiceImplTest {
         assertUserDTOFields(expectedUserDto, result);
         assertThat(result).isEqualTo(expectedUserDto);
 
-        verify(userRepository, times(1)).findById(id); // Burada times(1) olarak belirtmeyebilirdik, çünkü default olarak times(1) her zaman uygulanır.
+        verify(userRepository, times(1)).findViewById(id); // Burada times(1) olarak belirtmeyebilirdik, çünkü default olarak times(1) her zaman uygulanır.
+        verify(userRepository, never()).findById(any());
 
     }
 
@@ -113,21 +156,16 @@ public class UserServiceImplTest {
         Random random = new Random();
         int size = random.nextInt(10);
 
-        User user = new User();
-        List<User> userList = new ArrayList<>();
-
         UserViewDTO userViewDTO = new UserViewDTO();
         List<UserViewDTO> userViewDTOList = new ArrayList<>();
 
         for (int i = 0; i < size; i++) {
-            userList.add(user);
             userViewDTOList.add(userViewDTO);
         }
 
         // when
 
-        when(userRepository.findAll()).thenReturn(userList);
-        userDTO.when(() -> UserViewDTO.of(any(User.class))).thenReturn(userViewDTO);
+        when(userRepository.findAllViews()).thenReturn(userViewDTOList);
 
         List<UserViewDTO> result = userService.getUsers();
 
@@ -136,14 +174,40 @@ public class UserServiceImplTest {
         assertThat(result).isEqualTo(userViewDTOList);
         assertThat(result.size()).isEqualTo(userViewDTOList.size());
 
-        verify(userRepository).findAll();// times(1) yazılmış gibi çalışır, default her verify metodu times(1) ' dir.
+        verify(userRepository).findAllViews();// times(1) yazılmış gibi çalışır, default her verify metodu times(1) ' dir.
+        verify(userRepository, never()).findAll();
         userDTO.verify(
                 () -> UserViewDTO.of(any(User.class)),
-                times(size)
+                never()
         );
 
     }
 
+    @Test
+    public void Valid_request_to_streamUsers_method_should_pass_every_user_to_the_action() {
+
+        // given
+
+        UserViewDTO userViewDTO = new UserViewDTO(1L, "Test-firstname", "Test-lastname");
+        UserViewDTO userViewDTO1 = new UserViewDTO(2L, "Test-firstname", "Test-lastname");
+
+        List<UserViewDTO> result = new ArrayList<>();
+
+        // when
+
+        when(userRepository.streamAllViews()).thenReturn(Stream.of(userViewDTO, userViewDTO1));
+
+        userService.streamUsers(result::add);
+
+        // then
+
+        assertThat(result).isEqualTo(Arrays.asList(userViewDTO, userViewDTO1));
+
+        verify(userRepository).streamAllViews();
+        verify(userRepository, never()).findAll();
+
+    }
+
     @Test
     public void Valid_request_with_an_UserCreateDTO_object_to_createUser_method_should_return_UserViewDTO_object() {
 
@@ -171,6 +235,8 @@ public class UserServiceImplTest {
 
         assertThat(userArgumentCaptor.getValue()).isEqualTo(user);
         assertThat(result).isEqualTo(userViewDTO);
+        verify(userNameFilter).put(userCreateDTO.getUserName());
+        verify(userChangeStream).onCreate(userViewDTO);
         userDTO.verify(
                 () -> UserViewDTO.of(user)
         );
@@ -178,6 +244,89 @@ public class UserServiceImplTest {
     }
 
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void Valid_request_with_a_list_of_UserCreateDTO_objects_to_createUsers_method_should_check_names_once_and_save_all_valid_users() {
+
+        // given
+
+        UserCreateDTO valid = UserCreateDTO.builder().userName("Test-username").firstName("Test-firstname").lastName("Test-lastname").build();
+        UserCreateDTO invalid = UserCreateDTO.builder().userName("ab").firstName("Test-firstname").lastName("Test-lastname").build();
+        UserCreateDTO duplicateInBatch = UserCreateDTO.builder().userName("Test-username").firstName("Other").lastName("Other").build();
+        UserCreateDTO existing = UserCreateDTO.builder().userName("Test-existing").firstName("Test-firstname").lastName("Test-lastname").build();
+
+        ConstraintViolation<UserCreateDTO> violation = mock(ConstraintViolation.class);
+
+        User user = new User(valid.getUserName(), valid.getFirstName(), valid.getLastName());
+        user.setId(1L);
+
+        UserViewDTO userViewDTO = new UserViewDTO(user.getId(), user.getFirstName(), user.getLastName());
+
+        // when
+
+        when(validator.validate(any(UserCreateDTO.class))).thenReturn(Collections.emptySet());
+        when(validator.validate(invalid)).thenReturn(Collections.singleton(violation));
+        when(violation.getMessage()).thenReturn("User Name must be between 4 and 24");
+        when(userRepository.findExistingUserNames(any())).thenReturn(Collections.singletonList(existing.getUserName()));
+        when(userRepository.saveAll(anyList())).thenReturn(Collections.singletonList(user));
+        userDTO.when(() -> UserViewDTO.of(user)).thenReturn(userViewDTO);
+
+        UserBatchResultDTO result = userService.createUsers(Arrays.asList(valid, invalid, duplicateInBatch, existing));
+
+        // then
+
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(3);
+        assertThat(result.getResults().get(0)).isEqualTo(UserBatchItemResultDTO.created(0, userViewDTO));
+        assertThat(result.getResults().get(1)).isEqualTo(UserBatchItemResultDTO.failed(1, Collections.singletonList("User Name must be between 4 and 24")));
+        assertThat(result.getResults().get(2)).isEqualTo(UserBatchItemResultDTO.failed(2, Collections.singletonList("User name must be unique")));
+        assertThat(result.getResults().get(3)).isEqualTo(UserBatchItemResultDTO.failed(3, Collections.singletonList("User name must be unique")));
+
+        verify(userRepository).findExistingUserNames(new HashSet<>(Arrays.asList(valid.getUserName(), existing.getUserName())));
+        verify(userRepository, never()).existsUserByUserName(any());
+        verify(userRepository, never()).save(any(User.class));
+        verify(userNameFilter).put(valid.getUserName());
+
+    }
+
+    @Test
+    public void Valid_request_with_a_null_element_to_createUsers_method_should_report_it_as_failed() {
+
+        // given
+
+        List<UserCreateDTO> userCreateDTOs = Collections.singletonList(null);
+
+        // when
+
+        UserBatchResultDTO result = userService.createUsers(userCreateDTOs);
+
+        // then
+
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getResults().get(0)).isEqualTo(UserBatchItemResultDTO.failed(0, Collections.singletonList("User must not be null")));
+
+        verifyNoInteractions(validator);
+
+    }
+
+    @Test
+    public void Valid_request_with_too_many_UserCreateDTO_objects_to_createUsers_method_should_throw_BatchTooLargeException() {
+
+        // given
+
+        List<UserCreateDTO> userCreateDTOs = Collections.nCopies(1001, UserCreateDTO.builder().build());
+
+        // then
+
+        assertThatThrownBy(() -> userService.createUsers(userCreateDTOs))
+                .isInstanceOf(BatchTooLargeException.class)
+                .hasMessage("Batch size must not exceed 1000 : 1001");
+
+        verifyNoInteractions(userRepository);
+
+    }
+
+
     @Test
     public void Valid_request_with_an_existing_id_and_UserUpdateDTO_object_to_updateUser_method_should_return_UserViewDTO_object() {
 
@@ -190,16 +339,11 @@ public class UserServiceImplTest {
                 .lastName("Test-lastname")
                 .build();
 
-        User user = new User("Test-username", userUpdateDTO.getFirstName(), userUpdateDTO.getLastName());
-        user.setId(id);
-
-        UserViewDTO userViewDTO = new UserViewDTO(user.getId(), user.getFirstName(), user.getLastName());
+        UserViewDTO userViewDTO = new UserViewDTO(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName());
 
         // when
 
-        when(userRepository.findById(id)).thenReturn(Optional.of(user));
-        when(userRepository.save(user)).thenReturn(user);
-        userDTO.when(() -> UserViewDTO.of(user)).thenReturn(userViewDTO);
+        when(userRepository.updateNames(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName())).thenReturn(1);
 
         UserViewDTO result = userService.updateUser(id, userUpdateDTO);
 
@@ -207,9 +351,10 @@ public class UserServiceImplTest {
 
         assertThat(result).isEqualTo(userViewDTO);
 
-        verify(userRepository).findById(id);
-        verify(userRepository).save(user);
-        userDTO.verify(() -> UserViewDTO.of(user));
+        verify(userRepository).updateNames(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName());
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).save(any(User.class));
+        verify(userViewCache).invalidate(id);
 
     }
 
@@ -228,7 +373,7 @@ public class UserServiceImplTest {
 
         // when
 
-        when(userRepository.findById(id)).thenReturn(Optional.empty());
+        when(userRepository.updateNames(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName())).thenReturn(0);
 
         // then
 
@@ -236,35 +381,175 @@ public class UserServiceImplTest {
                 .isInstanceOf(UserNotFoundException.class)
                 .hasMessage("User not found with id : " + id);
 
-        verify(userRepository).findById(id);
         verify(userRepository, never()).save(any(User.class));
-        userDTO.verify(
-                () -> UserViewDTO.of(any(User.class)),
-                never()
-        );
+        verify(userViewCache, never()).invalidate(any());
+
+    }
+
+
+    @Test
+    public void Valid_request_with_the_current_version_to_updateUser_method_should_return_UserViewDTO_with_next_version() {
+
+        // given
+
+        long id = 1L;
+        long version = 3L;
+
+        UserUpdateDTO userUpdateDTO = UserUpdateDTO.builder()
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build();
+
+        // when
+
+        when(userRepository.updateNamesIfVersion(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName(), version)).thenReturn(1);
+
+        UserViewDTO result = userService.updateUser(id, userUpdateDTO, version);
+
+        // then
+
+        assertThat(result.getVersion()).isEqualTo(version + 1);
+        assertThat(result.getFirstName()).isEqualTo(userUpdateDTO.getFirstName());
+
+        verify(userRepository, never()).existsById(any());
+        verify(userViewCache).invalidate(id);
+        verify(userChangeCounter).onChange();
+
+    }
+
+
+    @Test
+    public void Valid_request_with_a_stale_version_to_updateUser_method_should_throw_PreconditionFailedException() {
+
+        // given
+
+        long id = 1L;
+
+        UserUpdateDTO userUpdateDTO = UserUpdateDTO.builder()
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build();
+
+        // when
+
+        when(userRepository.updateNamesIfVersion(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName(), 2L)).thenReturn(0);
+        when(userRepository.existsById(id)).thenReturn(true);
+
+        // then
+
+        assertThatThrownBy(() -> userService.updateUser(id, userUpdateDTO, 2L))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        verify(userViewCache, never()).invalidate(any());
+        verify(userChangeCounter, never()).onChange();
+
+    }
+
+
+    @Test
+    public void Valid_request_with_a_version_and_a_nonexisting_id_to_updateUser_method_should_throw_UserNotFoundException() {
+
+        // given
+
+        long id = 1L;
+
+        UserUpdateDTO userUpdateDTO = UserUpdateDTO.builder()
+                .firstName("Test-firstname")
+                .lastName("Test-lastname")
+                .build();
+
+        // when
+
+        when(userRepository.updateNamesIfVersion(id, userUpdateDTO.getFirstName(), userUpdateDTO.getLastName(), 2L)).thenReturn(0);
+        when(userRepository.existsById(id)).thenReturn(false);
+
+        // then
+
+        assertThatThrownBy(() -> userService.updateUser(id, userUpdateDTO, 2L))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessage("User not found with id : " + id);
 
     }
 
 
     @Test
-    public void Valid_request_with_an_existing_id_to_deleteUser_method_should_call_deleteById_method() {
+    public void Valid_request_with_an_existing_id_and_only_a_firstName_to_patchUser_method_should_update_firstName_only() {
 
         // given
 
         long id = 1L;
 
-        User user = new User();
-        user.setId(id);
+        UserPatchDTO userPatchDTO = UserPatchDTO.builder()
+                .firstName("Test-patchedfirstname")
+                .build();
+
+        UserViewDTO userViewDTO = new UserViewDTO(id, userPatchDTO.getFirstName(), "Test-lastname");
 
         // when
 
-        when(userRepository.findById(id)).thenReturn(Optional.of(user));
+        when(userRepository.updateFirstName(id, userPatchDTO.getFirstName())).thenReturn(1);
+        when(userRepository.findViewById(id)).thenReturn(Optional.of(userViewDTO));
+
+        UserViewDTO result = userService.patchUser(id, userPatchDTO);
+
+        // then
+
+        assertThat(result).isEqualTo(userViewDTO);
+
+        verify(userRepository, never()).updateLastName(anyLong(), any());
+        verify(userRepository, never()).updateNames(anyLong(), any(), any());
+        verify(userViewCache).invalidate(id);
+
+    }
+
+
+    @Test
+    public void Valid_request_with_a_nonexisting_id_to_patchUser_method_should_throw_UserNotFoundException() {
+
+        // given
+
+        long id = 1L;
+
+        UserPatchDTO userPatchDTO = UserPatchDTO.builder()
+                .lastName("Test-patchedlastname")
+                .build();
+
+        // when
+
+        when(userRepository.updateLastName(id, userPatchDTO.getLastName())).thenReturn(0);
+
+        // then
+
+        assertThatThrownBy(() -> userService.patchUser(id, userPatchDTO))
+                .isInstanceOf(UserNotFoundException.class)
+                .hasMessage("User not found with id : " + id);
+
+        verify(userRepository, never()).findViewById(any());
+        verify(userViewCache, never()).invalidate(any());
+
+    }
+
+
+    @Test
+    public void Valid_request_with_an_existing_id_to_deleteUser_method_should_call_removeById_method_only() {
+
+        // given
+
+        long id = 1L;
+
+        // when
+
+        when(userRepository.removeById(id)).thenReturn(1);
 
         userService.deleteUser(id);
 
         // then
 
-        verify(userRepository).deleteById(id);
+        verify(userRepository).removeById(id);
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).deleteById(any());
+        verify(userViewCache).invalidate(id);
+        verify(userNameFilter).onDelete();
 
     }
 
@@ -278,7 +563,7 @@ public class UserServiceImplTest {
 
         // when
 
-        when(userRepository.findById(id)).thenReturn(Optional.empty());
+        when(userRepository.removeById(id)).thenReturn(0);
 
         // then
 
@@ -286,7 +571,132 @@ public class UserServiceImplTest {
                 .isInstanceOf(UserNotFoundException.class)
                 .hasMessage("User not found with id : " + id);
 
-        verify(userRepository, never()).deleteById(any());
+        verify(userViewCache, never()).invalidate(anyLong());
+
+    }
+
+    @Test
+    public void Valid_request_with_a_list_of_ids_to_deleteUsers_method_should_delete_distinct_ids_in_one_statement() {
+
+        // given
+
+        List<Long> ids = Arrays.asList(1L, 2L, 2L, 3L);
+        List<Long> distinctIds = Arrays.asList(1L, 2L, 3L);
+
+        // when
+
+        when(userRepository.removeByIdIn(distinctIds)).thenReturn(2);
+
+        UserBulkDeleteResultDTO result = userService.deleteUsers(ids);
+
+        // then
+
+        assertThat(result).isEqualTo(new UserBulkDeleteResultDTO(3, 2));
+
+        verify(userRepository).removeByIdIn(distinctIds);
+        verify(userViewCache).invalidateAll(distinctIds);
+        verify(userNameFilter).onDelete(2);
+        verify(userChangeStream).onDelete(distinctIds);
+
+    }
+
+    @Test
+    public void Valid_request_with_too_many_ids_to_deleteUsers_method_should_throw_BatchTooLargeException() {
+
+        // given
+
+        List<Long> ids = new ArrayList<>();
+        for (long id = 0; id < 1001; id++) {
+            ids.add(id);
+        }
+
+        // then
+
+        assertThatThrownBy(() -> userService.deleteUsers(ids))
+                .isInstanceOf(BatchTooLargeException.class)
+                .hasMessage("Batch size must not exceed 1000 : 1001");
+
+        verifyNoInteractions(userRepository);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_list_of_ids_to_getUsersByIds_method_should_return_users_in_request_order_and_missing_ids() {
+
+        // given
+
+        List<Long> ids = Arrays.asList(3L, 1L, 3L, 2L);
+        List<Long> distinctIds = Arrays.asList(3L, 1L, 2L);
+        UserViewDTO first = new UserViewDTO(1L, "Test-firstname1", "Test-lastname1");
+        UserViewDTO third = new UserViewDTO(3L, "Test-firstname3", "Test-lastname3");
+
+        // when
+
+        when(userRepository.findViewsByIdIn(distinctIds)).thenReturn(Arrays.asList(first, third));
+
+        UserMultiGetResultDTO result = userService.getUsersByIds(ids);
+
+        // then
+
+        assertThat(result).isEqualTo(new UserMultiGetResultDTO(Arrays.asList(third, first), Collections.singletonList(2L)));
+
+        verify(userRepository).findViewsByIdIn(distinctIds);
+
+    }
+
+    @Test
+    public void Valid_request_with_more_ids_than_a_chunk_to_getUsersByIds_method_should_query_each_chunk_once() {
+
+        // given
+
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 2500; id++) {
+            ids.add(id);
+        }
+
+        // when
+
+        when(userRepository.findViewsByIdIn(any())).thenAnswer(invocation -> {
+            List<UserViewDTO> users = new ArrayList<>();
+            for (Long id : invocation.<List<Long>>getArgument(0)) {
+                if (id % 2 == 0) {
+                    users.add(new UserViewDTO(id, "Test-firstname" + id, "Test-lastname" + id));
+                }
+            }
+            return users;
+        });
+
+        UserMultiGetResultDTO result = userService.getUsersByIds(ids);
+
+        // then
+
+        verify(userRepository).findViewsByIdIn(ids.subList(0, 1000));
+        verify(userRepository).findViewsByIdIn(ids.subList(1000, 2000));
+        verify(userRepository).findViewsByIdIn(ids.subList(2000, 2500));
+        assertThat(result.getUsers().size()).isEqualTo(1250);
+        assertThat(result.getUsers().get(1).getId()).isEqualTo(4L);
+        assertThat(result.getMissingIds().size()).isEqualTo(1250);
+        assertThat(result.getMissingIds().get(1)).isEqualTo(3L);
+
+    }
+
+    @Test
+    public void Valid_request_with_too_many_ids_to_getUsersByIds_method_should_throw_BatchTooLargeException() {
+
+        // given
+
+        List<Long> ids = new ArrayList<>();
+        for (long id = 0; id < 10_001; id++) {
+            ids.add(id);
+        }
+
+        // then
+
+        assertThatThrownBy(() -> userService.getUsersByIds(ids))
+                .isInstanceOf(BatchTooLargeException.class)
+                .hasMessage("Batch size must not exceed 10000 : 10001");
+
+        verifyNoInteractions(userRepository);
 
     }
 
@@ -298,23 +708,16 @@ public class UserServiceImplTest {
         Random random = new Random();
         int size = random.nextInt(10);
 
-        User user = new User();
-        List<User> userList = new ArrayList<>();
-
         UserViewDTO userViewDTO = new UserViewDTO();
         List<UserViewDTO> userViewDTOList = new ArrayList<>();
 
         for (int i = 0; i < size; i++) {
-            userList.add(user);
             userViewDTOList.add(userViewDTO);
         }
 
-        Page<User> userPage = new PageImpl<>(userList);
-
         // when
 
-        when(userRepository.findAll(pageable)).thenReturn(userPage);
-        userDTO.when(() -> UserViewDTO.of(any(User.class))).thenReturn(userViewDTO);
+        when(userRepository.findViews(pageable)).thenReturn(userViewDTOList);
 
         List<UserViewDTO> result = userService.slice(pageable);
 
@@ -323,14 +726,139 @@ public class UserServiceImplTest {
         assertThat(result).isEqualTo(userViewDTOList);
         assertThat(result.size()).isEqualTo(userViewDTOList.size());
 
-        verify(userRepository).findAll(pageable);
-        userDTO.verify(
-                () -> UserViewDTO.of(any(User.class)),
-                times(size)
-        );
+        verify(userRepository).findViews(pageable);
+        verify(userRepository, never()).findAll(any(Pageable.class));
+        verify(userRepository, never()).count();
+
+    }
+
+
+    @Test
+    public void Valid_request_without_a_cursor_to_sliceAfter_method_should_return_first_page_and_next_cursor() {
+
+        // given
+
+        int limit = 2;
+
+        List<UserViewDTO> userList = new ArrayList<>();
+
+        for (long i = 1; i <= limit + 1; i++) {
+            userList.add(new UserViewDTO(i, "Test-firstname", "Test-lastname"));
+        }
+
+        // when
+
+        when(userRepository.findViewsAfter(Long.MIN_VALUE, PageRequest.of(0, limit + 1))).thenReturn(userList);
+
+        UserCursorPageDTO result = userService.sliceAfter(null, limit);
+
+        // then
+
+        assertThat(result.getUsers().size()).isEqualTo(limit);
+        assertThat(result.getUsers().get(limit - 1).getId()).isEqualTo(2L);
+        assertThat(result.getNextCursor()).isEqualTo(UserCursor.encode(2L));
+
+        verify(userRepository, never()).findAll(any(Pageable.class));
+        verify(userRepository, never()).count();
 
     }
 
+    @Test
+    public void Valid_request_with_a_lastName_filter_to_searchUsers_method_should_sort_by_the_last_name_index_and_detect_next_page() {
+
+        // given
+
+        int size = 2;
+
+        List<UserViewDTO> userList = new ArrayList<>();
+
+        for (long i = 1; i <= size + 1; i++) {
+            userList.add(new UserViewDTO(i, "Test-firstname" + i, "Test-lastname"));
+        }
+
+        Sort expectedSort = Sort.by("lastName", "firstName", "id");
+
+        // when
+
+        when(userRepository.searchViews(any(), eq(expectedSort), eq(2L), eq(size + 1))).thenReturn(userList);
+
+        UserSearchPageDTO result = userService.searchUsers(null, "Test-lastname", null,
+                PageRequest.of(1, size, Sort.by("firstName")));
+
+        // then
+
+        assertThat(result.getUsers().size()).isEqualTo(size);
+        assertThat(result.isHasNext()).isTrue();
+        assertThat(result.getPage()).isEqualTo(1);
+
+        verify(userRepository, never()).count();
+
+    }
+
+    @Test
+    public void Valid_request_with_an_unindexed_sort_property_to_searchUsers_method_should_throw_InvalidSortException() {
+
+        // given
+
+        Pageable sortedByVersion = PageRequest.of(0, 20, Sort.by("version"));
+
+        // when, then
+
+        assertThatThrownBy(() -> userService.searchUsers(null, null, null, sortedByVersion))
+                .isInstanceOf(InvalidSortException.class)
+                .hasMessage("Sort property must be one of [id, userName, lastName, firstName] : version");
+        verifyNoInteractions(userRepository);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_page_past_the_int_offset_range_to_searchUsers_method_should_throw_InvalidPageException() {
+
+        // given
+
+        Pageable deepPage = PageRequest.of(3_000_000, 1000);
+
+        // when, then
+
+        assertThatThrownBy(() -> userService.searchUsers(null, null, null, deepPage))
+                .isInstanceOf(InvalidPageException.class)
+                .hasMessage("Page is out of range : 3000000");
+        verifyNoInteractions(userRepository);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_cursor_on_the_last_page_to_sliceAfter_method_should_return_no_next_cursor() {
+
+        // given
+
+        int limit = 5;
+
+        UserViewDTO userViewDTO = new UserViewDTO(8L, "Test-firstname", "Test-lastname");
+
+        // when
+
+        when(userRepository.findViewsAfter(7L, PageRequest.of(0, limit + 1))).thenReturn(Collections.singletonList(userViewDTO));
+
+        UserCursorPageDTO result = userService.sliceAfter(UserCursor.encode(7L), limit);
+
+        // then
+
+        assertThat(result.getUsers()).isEqualTo(Collections.singletonList(userViewDTO));
+        assertThat(result.getNextCursor()).isNull();
+
+    }
+
+    @Test
+    public void Valid_request_with_a_malformed_cursor_to_sliceAfter_method_should_throw_InvalidCursorException() {
+
+        assertThatThrownBy(() -> userService.sliceAfter("not-a-cursor", 10))
+                .isInstanceOf(InvalidCursorException.class)
+                .hasMessage("Invalid cursor : not-a-cursor");
+
+        verify(userRepository, never()).findViewsAfter(anyLong(), any(Pageable.class));
+
+    }
 
     @Test
     public void Valid_request_with_an_existing_username_to_isUsernameExists_method_should_return_true() {
@@ -341,7 +869,7 @@ public class UserServiceImplTest {
 
         // when
 
-        when(userRepository.existsUserByUserName(userName)).thenReturn(true);
+        when(userNameFilter.exists(userName)).thenReturn(true);
 
         boolean result = userService.isUsernameExists(userName);
 
@@ -360,7 +888,7 @@ public class UserServiceImplTest {
 
         // when
 
-        when(userRepository.existsUserByUserName(anyString())).thenReturn(false);
+        when(userNameFilter.exists(anyString())).thenReturn(false);
 
         boolean result = userService.isUsernameExists(anyString());
 
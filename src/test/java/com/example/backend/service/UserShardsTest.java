@@ -0,0 +1,71 @@
+package com.example.backend.service;
+
+import com.example.backend.exception.UserNotFoundException;
+import com.example.backend.shared.ShardRoutingDataSource;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class UserShardsTest {
+
+    private UserShards userShards;
+
+    @After
+    public void tearDown() {
+        userShards.shutdown();
+    }
+
+    @Test
+    public void Valid_request_with_sorted_lists_to_merge_method_should_skip_and_limit_the_merged_order() {
+
+        // given
+
+        userShards = new UserShards((ShardRoutingDataSource) null, 1);
+        List<List<Integer>> sorted = Arrays.asList(Arrays.asList(1, 4, 7), Collections.emptyList(), Arrays.asList(2, 3, 8, 9));
+
+        // when
+
+        List<Integer> merged = UserShards.merge(sorted, Comparator.naturalOrder(), 2, 4);
+
+        // then
+
+        assertThat(merged).containsExactly(3, 4, 7, 8);
+        assertThat(userShards.count()).isEqualTo(1);
+        assertThat(userShards.shardOf(42L)).isZero();
+
+    }
+
+    @Test
+    public void Valid_request_with_four_shards_to_scatter_method_should_run_on_each_shard_and_rethrow_failures() {
+
+        // given
+
+        userShards = new UserShards(new ShardRoutingDataSource(Collections.nCopies(4, new DriverManagerDataSource())), 2);
+
+        // when
+
+        List<Integer> shards = userShards.scatter(shard -> ShardRoutingDataSource.currentShard());
+
+        // then
+
+        assertThat(shards).containsExactly(0, 1, 2, 3);
+        assertThat(userShards.shardOf(4L * 7 + 3)).isEqualTo(3);
+        assertThat(userShards.shardOfUserName("Test-username")).isEqualTo(Math.floorMod("Test-username".hashCode(), 4));
+        assertThatThrownBy(() -> userShards.scatter(shard -> {
+            if (shard == 2) {
+                throw new UserNotFoundException("User not found with id : " + shard);
+            }
+            return shard;
+        })).isInstanceOf(UserNotFoundException.class);
+
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserCreateDTO;
+import com.example.backend.dto.UserPatchDTO;
+import com.example.backend.dto.UserSuggestionDTO;
+import com.example.backend.dto.UserUpdateDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.model.User;
+import com.example.backend.repository.UserRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@RunWith(SpringRunner.class)
+public class UserSuggestIndexIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserSuggestIndex userSuggestIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserShards userShards;
+
+    @After
+    public void tearDown() throws Exception {
+        // Through the service, so the index forgets the rows as well.
+        userService.deleteUsers(userRepository.findAll().stream().map(User::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void Valid_request_after_create_update_and_delete_to_search_method_should_return_committed_values() {
+
+        // given
+
+        UserViewDTO user = userService.createUser(UserCreateDTO.builder().userName("Suggest-username").firstName("Suggest-firstname").lastName("Suggest-lastname").build());
+        UserViewDTO other = userService.createUser(UserCreateDTO.builder().userName("Suggest-username2").firstName("Suggest-firstname2").lastName("Suggest-lastname2").build());
+
+        // when
+
+        userService.updateUser(user.getId(), UserUpdateDTO.builder().firstName("Renamed-firstname").lastName("Suggest-lastname").build());
+        userService.patchUser(user.getId(), UserPatchDTO.builder().lastName("Renamed-lastname").build());
+        userService.deleteUser(other.getId());
+
+        List<UserSuggestionDTO> suggestions = userSuggestIndex.search("suggest", 10);
+
+        // then
+
+        assertThat(userSuggestIndex.getStats().isReady()).isTrue();
+        assertThat(suggestions)
+                .extracting(UserSuggestionDTO::getId, UserSuggestionDTO::getField, UserSuggestionDTO::getValue)
+                .containsExactly(tuple(user.getId(), UserSuggestField.USER_NAME, "Suggest-username"));
+        assertThat(userSuggestIndex.search("RENAMED", 10))
+                .extracting(UserSuggestionDTO::getValue)
+                .containsExactly("Renamed-firstname", "Renamed-lastname");
+
+    }
+
+    @Test
+    public void Valid_request_after_rebuild_to_search_method_should_return_the_same_values_as_the_like_queries() {
+
+        // given
+
+        userService.createUsers(Arrays.asList(
+                UserCreateDTO.builder().userName("Ab_username").firstName("Abc-firstname").lastName("Zed-lastname").build(),
+                UserCreateDTO.builder().userName("Abx-username").firstName("Ab%firstname").lastName("Abc-lastname").build(),
+                UserCreateDTO.builder().userName("Other-username").firstName("Other-firstname").lastName("Other-lastname").build()));
+
+        // when
+
+        userSuggestIndex.build();
+        List<UserSuggestionDTO> indexed = userSuggestIndex.search("ab", 10);
+        List<UserSuggestionDTO> escaped = userSuggestIndex.search("ab_", 10);
+
+        // then
+
+        assertThat(indexed).extracting(UserSuggestionDTO::getValue)
+                .containsExactly("Ab%firstname", "Ab_username", "Abc-firstname", "Abc-lastname", "Abx-username");
+        assertThat(escaped).extracting(UserSuggestionDTO::getValue).containsExactly("Ab_username");
+        assertThat(userRepository.suggestByUserName("ab!_%", PageRequest.of(0, 10)))
+                .extracting(UserSuggestionDTO::getValue)
+                .containsExactly("Ab_username");
+
+    }
+
+    @Test
+    public void Valid_request_after_enough_writes_to_compact_the_index_to_search_method_should_return_every_value() throws Exception {
+
+        // given
+
+        List<Long> ids = LongStream.rangeClosed(1_000_001, 1_001_500).boxed().collect(Collectors.toList());
+        int entriesBefore = userSuggestIndex.getStats().getEntries();
+        long compactionsBefore = userSuggestIndex.getStats().getCompactions();
+
+        // when
+
+        ids.forEach(id -> userSuggestIndex.onSave(id, "Compact-username" + id, "Compact-firstname", "Compact-lastname"));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (userSuggestIndex.getStats().getCompactions() == compactionsBefore && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        List<UserSuggestionDTO> suggestions = userSuggestIndex.search("compact-username100150", 10);
+        int entries = userSuggestIndex.getStats().getEntries();
+        userSuggestIndex.onDelete(ids);
+
+        // then
+
+        assertThat(suggestions).extracting(UserSuggestionDTO::getValue).containsExactly("Compact-username1001500");
+        assertThat(entries - entriesBefore).isEqualTo(4500);
+        assertThat(userSuggestIndex.getStats().getCompactions()).isGreaterThan(compactionsBefore);
+        assertThat(userSuggestIndex.search("compact", 10)).isEmpty();
+
+    }
+
+    @Test
+    public void Valid_request_after_the_index_outgrew_max_entries_to_rebuildIfDropped_method_should_rebuild_it_once_it_fits() throws Exception {
+
+        // given
+
+        UserSuggestIndex index = new UserSuggestIndex(userRepository, transactionTemplate, entityManager, userShards, 6);
+        UserViewDTO user = userService.createUser(UserCreateDTO.builder().userName("Dropped-username").firstName("Dropped-firstname").lastName("Dropped-lastname").build());
+
+        try {
+            index.build();
+            index.onSave(2_000_001L, "Dropped-username2", "Dropped-firstname2", "Dropped-lastname2");
+            index.onSave(2_000_002L, "Dropped-username3", "Dropped-firstname3", "Dropped-lastname3");
+            boolean droppedAfterGrowth = index.getStats().isDropped();
+
+            // when
+
+            index.rebuildIfDropped();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!index.getStats().isReady() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // then
+
+            assertThat(droppedAfterGrowth).isTrue();
+            assertThat(index.getStats().isReady()).isTrue();
+            assertThat(index.getStats().isDropped()).isFalse();
+            assertThat(index.search("dropped-username", 10))
+                    .extracting(UserSuggestionDTO::getId)
+                    .containsExactly(user.getId());
+        } finally {
+            index.shutdown();
+        }
+
+    }
+
+}
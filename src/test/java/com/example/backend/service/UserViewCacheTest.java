@@ -0,0 +1,246 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.UserCacheStatsDTO;
+import com.example.backend.dto.UserViewDTO;
+import com.example.backend.exception.UserLookupTimeoutException;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class UserViewCacheTest {
+
+    private final UserViewCache userViewCache = new UserViewCache(100, 0, 5000);
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void Valid_request_with_the_same_id_to_get_method_should_load_once_and_count_hits() {
+
+        // given
+
+        AtomicInteger loads = new AtomicInteger();
+        UserViewDTO userViewDTO = new UserViewDTO(1L, "Test-firstname", "Test-lastname");
+
+        // when
+
+        UserViewDTO first = userViewCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return userViewDTO;
+        });
+        UserViewDTO second = userViewCache.get(1L, id -> {
+            loads.incrementAndGet();
+            return userViewDTO;
+        });
+
+        // then
+
+        assertThat(first).isEqualTo(userViewDTO);
+        assertThat(second).isEqualTo(userViewDTO);
+        assertThat(loads.get()).isEqualTo(1);
+
+        UserCacheStatsDTO stats = userViewCache.getStats();
+        assertThat(stats.getHitCount()).isEqualTo(1L);
+        assertThat(stats.getMissCount()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_nonexisting_id_to_get_method_should_not_cache_the_miss() {
+
+        // given
+
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+
+        userViewCache.get(-1L, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        UserViewDTO result = userViewCache.get(-1L, id -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        // then
+
+        assertThat(result).isNull();
+        assertThat(loads.get()).isEqualTo(2);
+
+    }
+
+    @Test
+    public void Valid_concurrent_requests_with_the_same_id_to_get_method_should_share_one_load() throws Exception {
+
+        // given
+
+        int callers = 8;
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        UserViewDTO userViewDTO = new UserViewDTO(1L, "Test-firstname", "Test-lastname");
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        // when
+
+        List<Future<UserViewDTO>> results = new ArrayList<>();
+        try {
+            results.add(executor.submit(() -> userViewCache.get(1L, id -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return userViewDTO;
+            })));
+            loading.await();
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> userViewCache.get(1L, id -> {
+                    loads.incrementAndGet();
+                    return userViewDTO;
+                })));
+            }
+            while (userViewCache.getStats().getCoalescedCount() < callers - 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            // then
+
+            for (Future<UserViewDTO> result : results) {
+                assertThat(result.get()).isEqualTo(userViewDTO);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(userViewCache.getStats().getLoadCount()).isEqualTo(1L);
+        assertThat(userViewCache.getStats().getCoalescedCount()).isEqualTo(callers - 1L);
+
+    }
+
+    @Test
+    public void Valid_request_while_a_failing_load_is_in_flight_to_get_method_should_get_the_same_exception() throws Exception {
+
+        // given
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // when
+
+        try {
+            Future<UserViewDTO> leader = executor.submit(() -> userViewCache.get(1L, id -> {
+                loading.countDown();
+                await(release);
+                throw new IllegalStateException("Database unavailable");
+            }));
+            loading.await();
+            Future<UserViewDTO> follower = executor.submit(() -> userViewCache.get(1L, id -> null));
+            while (userViewCache.getStats().getCoalescedCount() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            // then
+
+            assertThatThrownBy(leader::get).hasCauseInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(follower::get).hasCauseInstanceOf(IllegalStateException.class)
+                    .hasRootCauseMessage("Database unavailable");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        UserViewDTO reloaded = userViewCache.get(1L, id -> new UserViewDTO(1L, "Test-firstname", "Test-lastname"));
+        assertThat(reloaded).isNotNull();
+
+    }
+
+    @Test
+    public void Valid_request_while_a_slow_load_is_in_flight_to_get_method_should_time_out() throws Exception {
+
+        // given
+
+        UserViewCache shortWait = new UserViewCache(100, 0, 50);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when
+
+        try {
+            executor.submit(() -> shortWait.get(1L, id -> {
+                loading.countDown();
+                await(release);
+                return null;
+            }));
+            loading.await();
+
+            // then
+
+            assertThatThrownBy(() -> shortWait.get(1L, id -> null)).isInstanceOf(UserLookupTimeoutException.class);
+            assertThat(shortWait.getStats().getCoalescedTimeoutCount()).isEqualTo(1L);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    public void Valid_request_inside_a_transaction_to_invalidate_method_should_evict_after_completion() {
+
+        // given
+
+        UserViewDTO cached = new UserViewDTO(1L, "Test-firstname", "Test-lastname");
+        UserViewDTO updated = new UserViewDTO(1L, "Test-updatedfirstname", "Test-lastname");
+
+        userViewCache.get(1L, id -> cached);
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        // when
+
+        userViewCache.invalidate(1L);
+
+        UserViewDTO beforeCommit = userViewCache.get(1L, id -> updated);
+
+        TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+
+        UserViewDTO afterCommit = userViewCache.get(1L, id -> updated);
+
+        // then
+
+        assertThat(beforeCommit).isEqualTo(cached);
+        assertThat(afterCommit).isEqualTo(updated);
+
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.example.backend.shared;
+
+import com.example.backend.exception.ConnectionLimitExceededException;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConnectionLimitDataSourceTest {
+
+    @Test
+    public void Valid_request_with_a_free_permit_to_getConnection_method_should_hold_it_until_the_connection_is_closed() throws Exception {
+
+        // given
+
+        ConnectionLimitDataSource dataSource = new ConnectionLimitDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:connection_limit_test"), 1, 0);
+
+        // when
+
+        Connection connection = dataSource.getConnection();
+        int whileOpen = dataSource.availablePermits();
+        connection.close();
+        connection.close();
+
+        // then
+
+        assertThat(whileOpen).isZero();
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+        assertThat(new JdbcTemplate(dataSource).queryForObject("select 1", Integer.class)).isEqualTo(1);
+        assertThat(dataSource.availablePermits()).isEqualTo(1);
+
+    }
+
+    @Test
+    public void Valid_request_without_a_free_permit_to_getConnection_method_should_throw_ConnectionLimitExceededException() throws Exception {
+
+        // given
+
+        ConnectionLimitDataSource dataSource = new ConnectionLimitDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:connection_limit_test"), 1, 10);
+
+        // when
+
+        try (Connection held = dataSource.getConnection()) {
+
+            // then
+
+            assertThatThrownBy(dataSource::getConnection)
+                    .isInstanceOf(ConnectionLimitExceededException.class)
+                    .hasMessage("All 1 database connections are busy, retry later");
+            assertThat(held.isValid(1)).isTrue();
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.example.backend.shared;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void Valid_request_with_uniform_values_to_getValuesAtQuantiles_method_should_stay_within_bucket_precision() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long value = 1; value <= 1_000_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        long[] values = histogram.getValuesAtQuantiles(0.5, 0.9, 0.99, 0.999);
+
+        assertThat((double) values[0]).isCloseTo(500_000_000, within(500_000_000 / 64.0));
+        assertThat((double) values[1]).isCloseTo(900_000_000, within(900_000_000 / 64.0));
+        assertThat((double) values[2]).isCloseTo(990_000_000, within(990_000_000 / 64.0));
+        assertThat((double) values[3]).isCloseTo(999_000_000, within(999_000_000 / 64.0));
+        assertThat(histogram.getMaxNanos()).isEqualTo(1_000_000_000L);
+        assertThat(histogram.getMeanNanos()).isEqualTo(500_000_500.0);
+
+    }
+
+    @Test
+    public void Valid_request_with_every_bucket_index_to_highestEquivalentValue_method_should_map_back_to_the_same_bucket() {
+
+        for (int index = 0; index < LatencyHistogram.bucketIndex(Long.MAX_VALUE); index++) {
+            assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.highestEquivalentValue(index))).isEqualTo(index);
+            assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.highestEquivalentValue(index) + 1)).isEqualTo(index + 1);
+        }
+
+    }
+
+    @Test
+    public void Valid_request_from_concurrent_threads_to_record_method_should_count_every_value() throws Exception {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(histogram.getCount()).isEqualTo(800_000);
+        assertThat(histogram.getValuesAtQuantiles(1.0)[0]).isEqualTo(99_999);
+
+    }
+
+}
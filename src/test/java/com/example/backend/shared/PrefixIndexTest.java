@@ -0,0 +1,134 @@
+package com.example.backend.shared;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrefixIndexTest {
+
+    @Test
+    public void Valid_request_with_mixed_case_values_to_search_method_should_return_matches_ordered_by_term_then_id() {
+
+        // given
+
+        PrefixIndex index = PrefixIndex.of(Arrays.asList(
+                new PrefixIndex.Value(2, 0, "Alice"),
+                new PrefixIndex.Value(1, 1, "alan"),
+                new PrefixIndex.Value(3, 0, "Bob")));
+        index.put(4, 2, "ALBERT");
+
+        // when
+
+        List<String> values = values(index.search("Al", 10));
+
+        // then
+
+        assertThat(values).containsExactly("alan", "ALBERT", "Alice");
+        assertThat(index.search("al", 2)).hasSize(2);
+        assertThat(index.search("c", 10)).isEmpty();
+
+    }
+
+    @Test
+    public void Valid_request_with_replaced_and_removed_values_to_search_method_should_return_only_current_values() {
+
+        // given
+
+        PrefixIndex index = PrefixIndex.of(Arrays.asList(
+                new PrefixIndex.Value(1, 0, "Test-username"),
+                new PrefixIndex.Value(1, 1, "Test-firstname"),
+                new PrefixIndex.Value(2, 0, "Test-username2")));
+
+        // when
+
+        index.put(1, 1, "Other-firstname");
+        index.put(3, 0, "Test-username3");
+        index.remove(2);
+
+        // then
+
+        assertThat(values(index.search("test", 10))).containsExactly("Test-username", "Test-username3");
+        assertThat(values(index.search("other", 10))).containsExactly("Other-firstname");
+        assertThat(index.size()).isEqualTo(3);
+
+    }
+
+    @Test
+    public void Valid_request_with_many_writes_to_put_method_should_compact_and_keep_every_value() {
+
+        // given
+
+        PrefixIndex index = new PrefixIndex();
+
+        // when
+
+        for (int i = 0; i < 20_000; i++) {
+            index.put(i, 0, "Test-username" + i);
+        }
+        for (int i = 0; i < 20_000; i += 2) {
+            index.remove(i);
+        }
+
+        // then
+
+        assertThat(index.size()).isEqualTo(10_000);
+        assertThat(index.getEstimatedBytes()).isPositive();
+        assertThat(values(index.search("test-username1999", 100))).containsExactly("Test-username1999", "Test-username19991",
+                "Test-username19993", "Test-username19995", "Test-username19997", "Test-username19999");
+
+        index.compact();
+        List<String> all = values(index.search("test", 20_000));
+        List<String> sorted = new ArrayList<>(all);
+        sorted.sort(String::compareTo);
+        assertThat(all).hasSize(10_000).isEqualTo(sorted);
+
+    }
+
+    @Test
+    public void Valid_request_with_writes_after_a_snapshot_to_compact_method_should_return_the_snapshot_contents() {
+
+        // given
+
+        PrefixIndex index = new PrefixIndex();
+        index.setAutoCompaction(false);
+        for (int i = 0; i < 3000; i++) {
+            index.put(3000 - i, 0, "Test-username" + i);
+        }
+        index.compact();
+        for (int i = 0; i < 2000; i++) {
+            index.remove(3000 - i);
+        }
+
+        // when
+
+        PrefixIndex.Snapshot snapshot = index.snapshot();
+        index.put(1, 0, "Other-username");
+        index.remove(3000 - 2500);
+        PrefixIndex compacted = snapshot.compact();
+
+        // then
+
+        assertThat(index.needsCompaction()).isTrue();
+        assertThat(compacted.needsCompaction()).isFalse();
+        assertThat(compacted.size()).isEqualTo(1000);
+        assertThat(values(compacted.search("test-username2500", 10))).containsExactly("Test-username2500");
+        assertThat(values(compacted.search("other", 10))).isEmpty();
+        assertThat(values(index.search("test-username2500", 10))).isEmpty();
+        assertThat(values(index.search("other", 10))).containsExactly("Other-username");
+
+        compacted.remove(3000 - 2999);
+        assertThat(values(compacted.search("test-username2999", 10))).isEmpty();
+        assertThat(compacted.size()).isEqualTo(999);
+
+    }
+
+    private static List<String> values(List<PrefixIndex.Match> matches) {
+        return matches.stream().map(PrefixIndex.Match::getValue).collect(Collectors.toList());
+    }
+
+}
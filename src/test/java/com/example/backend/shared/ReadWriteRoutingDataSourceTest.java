@@ -0,0 +1,165 @@
+package com.example.backend.shared;
+
+import com.example.backend.dto.DataSourceRoutingStatsDTO;
+import com.example.backend.dto.ReplicaStatsDTO;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three in-memory H2 databases stand in for the primary and two replicas; each holds one row naming itself, so a
+ * query shows which one served it.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final String UNREACHABLE_URL = "jdbc:h2:tcp://localhost:1/unreachable";
+
+    private ReadWriteRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @After
+    public void tearDown() {
+        ReadWriteRoutingDataSource.pinToPrimary(false);
+    }
+
+    @Test
+    public void Valid_request_with_read_only_transactions_should_go_round_robin_to_the_replicas_and_writes_to_the_primary() {
+
+        // given
+
+        setUp("routing_test_replica_0", "routing_test_replica_1");
+
+        // when
+
+        // The proxy reads the default connection settings from the primary when it is created.
+        long primaryBefore = routingDataSource.getStats().getPrimaryConnections();
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(readOnly.execute(status -> whoAmI()));
+        }
+        String write = readWrite.execute(status -> whoAmI());
+
+        // then
+
+        assertThat(reads).containsExactlyInAnyOrder("routing_test_replica_0", "routing_test_replica_1",
+                "routing_test_replica_0", "routing_test_replica_1");
+        assertThat(reads.get(0)).isNotEqualTo(reads.get(1));
+        assertThat(write).isEqualTo("routing_test_primary");
+
+        DataSourceRoutingStatsDTO stats = routingDataSource.getStats();
+        assertThat(stats.getPrimaryConnections()).isEqualTo(primaryBefore + 1);
+        assertThat(stats.getReplicas()).extracting(ReplicaStatsDTO::getConnections).containsExactly(2L, 2L);
+
+    }
+
+    @Test
+    public void Valid_request_pinned_to_the_primary_should_read_from_the_primary() {
+
+        // given
+
+        setUp("routing_test_replica_0");
+
+        // when
+
+        ReadWriteRoutingDataSource.pinToPrimary(true);
+        String pinned = readOnly.execute(status -> whoAmI());
+        ReadWriteRoutingDataSource.pinToPrimary(false);
+        String unpinned = readOnly.execute(status -> whoAmI());
+
+        // then
+
+        assertThat(pinned).isEqualTo("routing_test_primary");
+        assertThat(unpinned).isEqualTo("routing_test_replica_0");
+        assertThat(routingDataSource.getStats().getPinnedReads()).isEqualTo(1L);
+
+    }
+
+    @Test
+    public void Valid_request_with_a_replica_down_should_fail_over_to_the_next_replica_and_then_to_the_primary() {
+
+        // given
+
+        setUp(UNREACHABLE_URL, "routing_test_replica_1");
+
+        // when
+
+        List<String> reads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            reads.add(readOnly.execute(status -> whoAmI()));
+        }
+
+        // then
+
+        assertThat(reads).containsOnly("routing_test_replica_1");
+
+        DataSourceRoutingStatsDTO stats = routingDataSource.getStats();
+        assertThat(stats.getReplicas()).extracting(ReplicaStatsDTO::isHealthy).containsExactly(false, true);
+        assertThat(stats.getReplicas()).extracting(ReplicaStatsDTO::getFailures).containsExactly(1L, 0L);
+        assertThat(stats.getFallbackReads()).isZero();
+
+        // when
+
+        setUp(UNREACHABLE_URL);
+        String fallback = readOnly.execute(status -> whoAmI());
+        routingDataSource.checkReplicas();
+
+        // then
+
+        assertThat(fallback).isEqualTo("routing_test_primary");
+        assertThat(routingDataSource.getStats().getFallbackReads()).isEqualTo(1L);
+        assertThat(routingDataSource.getStats().getReplicas()).extracting(ReplicaStatsDTO::isHealthy).containsExactly(false);
+
+    }
+
+    private void setUp(String... replicas) {
+
+        Map<String, DataSource> replicaDataSources = new LinkedHashMap<>();
+        for (String replica : replicas) {
+            replicaDataSources.put(replica, database(replica));
+        }
+
+        routingDataSource = new ReadWriteRoutingDataSource(database("routing_test_primary"), replicaDataSources, 1);
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+    }
+
+    private String whoAmI() {
+        return jdbcTemplate.queryForObject("select name from who_am_i", String.class);
+    }
+
+    private static DataSource database(String name) {
+
+        if (name.startsWith("jdbc:")) {
+            return new DriverManagerDataSource(name);
+        }
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists who_am_i (name varchar(64))");
+        jdbcTemplate.update("delete from who_am_i");
+        jdbcTemplate.update("insert into who_am_i values (?)", name);
+        return dataSource;
+
+    }
+
+}
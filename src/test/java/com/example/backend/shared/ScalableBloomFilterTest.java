@@ -0,0 +1,57 @@
+package com.example.backend.shared;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ScalableBloomFilterTest {
+
+    @Test
+    public void Valid_request_with_put_values_to_mightContain_method_should_never_return_false_negatives() {
+
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("Test-username" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("Test-username" + i)).isTrue();
+        }
+
+    }
+
+    @Test
+    public void Valid_request_beyond_initial_capacity_to_mightContain_method_should_keep_false_positive_rate_bounded() {
+
+        double falsePositiveRate = 0.01;
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, falsePositiveRate);
+
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("Test-username" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("non-existingusername" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat((double) falsePositives / probes).isLessThan(falsePositiveRate);
+        assertThat(filter.getExpectedFalsePositiveRate()).isLessThan(falsePositiveRate);
+
+    }
+
+    @Test
+    public void Invalid_false_positive_rate_to_constructor_should_throw_IllegalArgumentException() {
+
+        assertThatThrownBy(() -> new ScalableBloomFilter(100, 1.5))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("falsePositiveRate must be between 0 and 1 : 1.5");
+
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.example.backend.shared;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Two in-memory H2 databases stand in for the shards; each holds one row naming itself, so a query shows which one
+ * served it.
+ */
+public class ShardRoutingDataSourceTest {
+
+    private ShardRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setUp() {
+
+        List<DataSource> shards = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            DriverManagerDataSource shard = new DriverManagerDataSource("jdbc:h2:mem:shard_routing_test_" + i + ";DB_CLOSE_DELAY=-1");
+            new JdbcTemplate(shard).execute("create table if not exists who_am_i as select 'shard-" + i + "' name");
+            shards.add(shard);
+        }
+
+        routingDataSource = new ShardRoutingDataSource(shards);
+        jdbcTemplate = new JdbcTemplate(routingDataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(routingDataSource));
+
+    }
+
+    @After
+    public void tearDown() {
+        for (int i = 0; i < 2; i++) {
+            int shard = i;
+            ShardRoutingDataSource.callOnShard(shard, () -> {
+                jdbcTemplate.execute("drop table who_am_i");
+                return null;
+            });
+        }
+    }
+
+    @Test
+    public void Valid_request_with_a_bound_shard_should_use_its_connections_and_the_first_shard_otherwise() {
+
+        // when
+
+        String unbound = whoAmI();
+        String first = ShardRoutingDataSource.callOnShard(0, this::whoAmI);
+        String second = ShardRoutingDataSource.callOnShard(1, () -> transactionTemplate.execute(status -> whoAmI()));
+
+        // then
+
+        assertThat(unbound).isEqualTo("shard-0");
+        assertThat(first).isEqualTo("shard-0");
+        assertThat(second).isEqualTo("shard-1");
+        assertThat(ShardRoutingDataSource.currentShard()).isZero();
+        assertThat(routingDataSource.getConnections(1)).isEqualTo(1L);
+
+    }
+
+    @Test
+    public void Valid_request_switching_shards_inside_a_transaction_should_fail() {
+
+        // when / then
+
+        assertThatThrownBy(() -> ShardRoutingDataSource.callOnShard(0, () -> transactionTemplate.execute(status ->
+                ShardRoutingDataSource.callOnShard(1, this::whoAmI))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("inside a transaction");
+        String sameShard = ShardRoutingDataSource.callOnShard(1, () -> transactionTemplate.execute(status ->
+                ShardRoutingDataSource.callOnShard(1, this::whoAmI)));
+        assertThat(sameShard).isEqualTo("shard-1");
+
+    }
+
+    private String whoAmI() {
+        return jdbcTemplate.queryForObject("select name from who_am_i", String.class);
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.example.backend.shared;
+
+import com.example.backend.dto.SqlStatementCountDTO;
+import com.example.backend.service.SqlStatementCounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query budget helper for integration tests: counts the statements a call issues on the current thread. MockMvc runs
+ * requests on the calling thread, so API calls can be measured the same way as service calls. Statements of type
+ * OTHER, such as pooled sequence calls, are left out of the budget since they depend on earlier tests.
+ */
+public final class SqlStatements {
+
+    private SqlStatements() {
+    }
+
+    public static SqlStatementCountDTO count(SqlStatementCounter counter, Call call) throws Exception {
+        final SqlStatementCountDTO before = counter.currentThread();
+        call.run();
+        return counter.currentThread().minus(before);
+    }
+
+    public static void assertBudget(SqlStatementCountDTO actual, long select, long insert, long update, long delete) {
+        assertThat(new long[]{actual.getSelect(), actual.getInsert(), actual.getUpdate(), actual.getDelete()})
+                .as("select, insert, update, delete statements")
+                .containsExactly(select, insert, update, delete);
+    }
+
+    public interface Call {
+        void run() throws Exception;
+    }
+
+}